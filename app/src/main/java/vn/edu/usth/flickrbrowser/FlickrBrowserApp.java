@@ -0,0 +1,28 @@
+package vn.edu.usth.flickrbrowser;
+
+import android.app.Application;
+
+import vn.edu.usth.flickrbrowser.core.api.ApiClient;
+import vn.edu.usth.flickrbrowser.core.api.NetworkWarmup;
+import vn.edu.usth.flickrbrowser.core.db.FeedStore;
+import vn.edu.usth.flickrbrowser.core.sync.CuratedPrefetchJob;
+import vn.edu.usth.flickrbrowser.core.sync.PrefetchStats;
+import vn.edu.usth.flickrbrowser.core.util.StartupMetrics;
+
+public class FlickrBrowserApp extends Application {
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        // Khởi tạo networking (HTTP disk cache) trước khi ViewModel đầu tiên gọi API
+        ApiClient.init(this);
+        FeedStore.init(this);
+        // Tải nền trang curated khi sạc + Wi-Fi để lần mở sau hiện ngay từ disk
+        PrefetchStats.init(this);
+        CuratedPrefetchJob.schedule(this);
+        // DNS + TCP/TLS tới Pexels chạy nền trong lúc MainActivity inflate
+        if (StartupMetrics.onAppStart(this)) {
+            NetworkWarmup.start();
+        }
+    }
+}
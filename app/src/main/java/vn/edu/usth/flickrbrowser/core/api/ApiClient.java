@@ -1,37 +1,166 @@
 package vn.edu.usth.flickrbrowser.core.api;
 
+import android.content.Context;
+
+import java.io.File;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import okhttp3.Cache;
+import okhttp3.Dispatcher;
+import okhttp3.HttpUrl;
 import okhttp3.OkHttpClient;
 import okhttp3.Request;
-import okhttp3.logging.HttpLoggingInterceptor;
 import retrofit2.Retrofit;
-import retrofit2.converter.gson.GsonConverterFactory;
 import vn.edu.usth.flickrbrowser.BuildConfig;
 
 public class ApiClient {
+    private static final long HTTP_CACHE_SIZE = 20L * 1024 * 1024; // 20 MB
+    private static final String FLICKR_FEED_BASE_URL = "https://www.flickr.com/";
+
+    // Giới hạn số thread mạng: Dispatcher không chạy quá MAX_REQUESTS call cùng lúc, pool có
+    // đúng chừng ấy thread. Hàng đợi chỉ đỡ khoảnh khắc thread cũ chưa kịp trả về pool.
+    private static final int MAX_REQUESTS = 8;
+    private static final int MAX_REQUESTS_PER_HOST = 4;
+    // Ảnh của Glide chạy trên Dispatcher riêng để không chiếm chỗ của request API
+    private static final int MAX_IMAGE_REQUESTS = 8;
+    private static final int MAX_IMAGE_REQUESTS_PER_HOST = 6;
+
+    // DNS cache trong bộ nhớ: tránh resolve lại api/images.pexels.com cho mỗi kết nối mới
+    private static final CachingDns DNS = new CachingDns(5, TimeUnit.MINUTES);
+
+    private static Context appContext;
+    private static Cache cache;
+    private static RateLimitGovernor rateLimit;
+    private static OkHttpClient httpClient;
+    private static OkHttpClient imageClient;
     private static Retrofit retrofit;
+    private static Retrofit feedRetrofit;
 
-    public static Retrofit getClient() {
-        if (retrofit != null) return retrofit;
+    /** Gọi từ Application.onCreate() để bật disk cache + offline cache. */
+    public static void init(Context context) {
+        appContext = context.getApplicationContext();
+    }
 
-        HttpLoggingInterceptor logging = new HttpLoggingInterceptor();
-        logging.setLevel(HttpLoggingInterceptor.Level.BODY);
+    public static synchronized OkHttpClient getHttpClient() {
+        if (httpClient != null) return httpClient;
 
-        OkHttpClient client = new OkHttpClient.Builder()
+        String pexelsHost = HttpUrl.get(BuildConfig.PEXELS_BASE_URL).host();
+
+        OkHttpClient.Builder builder = new OkHttpClient.Builder()
+                .dispatcher(newDispatcher("net-", MAX_REQUESTS, MAX_REQUESTS_PER_HOST))
+                .dns(DNS)
+                .eventListenerFactory(NetworkTracer.eventListenerFactory())
+                .addInterceptor(NetworkTracer.dispatchMarker())
                 .addInterceptor(chain -> {
+                    // API key chỉ gửi cho Pexels, không lộ sang flickr.com
+                    if (!pexelsHost.equals(chain.request().url().host())) {
+                        return chain.proceed(chain.request());
+                    }
                     Request req = chain.request().newBuilder()
                             .addHeader("Authorization", BuildConfig.PEXELS_API_KEY)
                             .build();
                     return chain.proceed(req);
-                })
-                .addInterceptor(logging)
-                .build();
+                });
+
+        if (appContext != null) {
+            cache = new Cache(new File(appContext.getCacheDir(), "http"), HTTP_CACHE_SIZE);
+            builder.cache(cache)
+                    // stale-while-revalidate / stale-if-error + bộ đếm HttpCacheStats
+                    .addInterceptor(new OfflineCacheInterceptor(appContext))
+                    // gán max-age cho curated/search/feed để được lưu vào cache
+                    .addNetworkInterceptor(new CacheControlInterceptor());
+        }
+
+        // Quota Pexels: nằm sau OfflineCacheInterceptor để request trả từ cache không tốn token
+        rateLimit = new RateLimitGovernor(pexelsHost);
+        builder.addInterceptor(rateLimit);
+
+        // Release: chỉ header; Debug: body được lấy mẫu theo NET_LOG_BODY_SAMPLE_RATE
+        builder.addInterceptor(new SampledLoggingInterceptor(
+                BuildConfig.DEBUG, BuildConfig.NET_LOG_BODY_SAMPLE_RATE));
+
+        httpClient = builder.build();
+        return httpClient;
+    }
+
+    /**
+     * OkHttpClient cho Glide: chung connection pool, DNS cache và tracing với {@link #getHttpClient()},
+     * nhưng không có interceptor của API (API key, cache offline, quota, logging) và không có
+     * HTTP cache (Glide có disk cache riêng).
+     */
+    public static synchronized OkHttpClient getImageClient() {
+        if (imageClient != null) return imageClient;
+
+        OkHttpClient.Builder builder = getHttpClient().newBuilder()
+                .dispatcher(newDispatcher("img-", MAX_IMAGE_REQUESTS, MAX_IMAGE_REQUESTS_PER_HOST))
+                .cache(null);
+        builder.interceptors().clear();
+        builder.networkInterceptors().clear();
+        builder.addInterceptor(NetworkTracer.dispatchMarker());
+
+        imageClient = builder.build();
+        return imageClient;
+    }
+
+    public static CachingDns getDns() {
+        return DNS;
+    }
+
+    /** Disk cache của OkHttp, null nếu chưa gọi {@link #init}. */
+    public static Cache getCache() {
+        return cache;
+    }
+
+    /** Quota Pexels còn lại (X-Ratelimit-*), số request bị chặn / retry. */
+    public static RateLimitGovernor getRateLimit() {
+        getHttpClient();
+        return rateLimit;
+    }
+
+    public static synchronized Retrofit getClient() {
+        if (retrofit != null) return retrofit;
 
         retrofit = new Retrofit.Builder()
                 .baseUrl(BuildConfig.PEXELS_BASE_URL)  // https://api.pexels.com/v1/
-                .client(client)
-                .addConverterFactory(GsonConverterFactory.create())
+                .client(getHttpClient())
+                // Chạy callback ngay trên thread của OkHttp: body @Streaming được đọc + parse
+                // ở background, FlickrRepo tự post kết quả về main thread;
+                // mọi endpoint trả ResponseBody (PhotoParser decode) nên không cần converter.
+                .callbackExecutor(Runnable::run)
                 .build();
 
         return retrofit;
     }
+
+    /** Retrofit cho Flickr public feed, dùng chung OkHttpClient (connection pool, cache, tracing). */
+    public static synchronized Retrofit getFeedClient() {
+        if (feedRetrofit != null) return feedRetrofit;
+
+        feedRetrofit = new Retrofit.Builder()
+                .baseUrl(FLICKR_FEED_BASE_URL)
+                .client(getHttpClient())
+                .callbackExecutor(Runnable::run)
+                .build();
+
+        return feedRetrofit;
+    }
+
+    private static Dispatcher newDispatcher(String threadPrefix, int maxRequests, int maxRequestsPerHost) {
+        AtomicInteger count = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                maxRequests, maxRequests, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                r -> {
+                    Thread t = new Thread(r, threadPrefix + count.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+        executor.allowCoreThreadTimeOut(true);
+        Dispatcher dispatcher = new Dispatcher(executor);
+        dispatcher.setMaxRequests(maxRequests);
+        dispatcher.setMaxRequestsPerHost(maxRequestsPerHost);
+        return dispatcher;
+    }
 }
@@ -0,0 +1,56 @@
+package vn.edu.usth.flickrbrowser.core.api;
+
+import androidx.annotation.NonNull;
+
+import java.io.IOException;
+import java.util.List;
+
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * Network interceptor: gán Cache-Control cho các trang {@code curated?page=N},
+ * {@code search?query=…} và Flickr public feed để OkHttp disk cache được phép lưu chúng.
+ *
+ * OkHttp không tự xử lý stale-while-revalidate / stale-if-error; hai directive này được ghi
+ * vào header cho đúng ngữ nghĩa, còn việc phục vụ bản cũ do {@link OfflineCacheInterceptor} làm.
+ */
+public class CacheControlInterceptor implements Interceptor {
+
+    // curated thay đổi chậm, search theo query còn ổn định hơn
+    static final int CURATED_MAX_AGE_S = 5 * 60;
+    static final int SEARCH_MAX_AGE_S = 10 * 60;
+    // feed "mới nhất" của Flickr đổi liên tục, chỉ giữ ngắn
+    static final int FEED_MAX_AGE_S = 2 * 60;
+    static final int STALE_WHILE_REVALIDATE_S = 60 * 60;
+    static final int STALE_IF_ERROR_S = 7 * 24 * 60 * 60;
+
+    @NonNull
+    @Override
+    public Response intercept(@NonNull Chain chain) throws IOException {
+        Request req = chain.request();
+        Response res = chain.proceed(req);
+
+        int maxAge = maxAgeFor(req);
+        if (maxAge <= 0 || (!res.isSuccessful() && res.code() != 304)) return res;
+
+        return res.newBuilder()
+                .removeHeader("Pragma")
+                .header("Cache-Control", "public, max-age=" + maxAge
+                        + ", stale-while-revalidate=" + STALE_WHILE_REVALIDATE_S
+                        + ", stale-if-error=" + STALE_IF_ERROR_S)
+                .build();
+    }
+
+    /** max-age (giây) cho một request feed, 0 nếu request không thuộc diện cache. */
+    static int maxAgeFor(Request req) {
+        if (!"GET".equals(req.method())) return 0;
+        List<String> segments = req.url().pathSegments();
+        String last = segments.isEmpty() ? "" : segments.get(segments.size() - 1);
+        if ("curated".equals(last)) return CURATED_MAX_AGE_S;
+        if ("search".equals(last) && req.url().queryParameter("query") != null) return SEARCH_MAX_AGE_S;
+        if ("photos_public.gne".equals(last)) return FEED_MAX_AGE_S;
+        return 0;
+    }
+}
@@ -0,0 +1,78 @@
+package vn.edu.usth.flickrbrowser.core.api;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.Dns;
+
+/**
+ * DNS cache trong bộ nhớ cho OkHttpClient dùng chung.
+ *
+ * - Kết quả resolve được giữ TTL ms; hết TTL thì resolve lại qua {@link Dns#SYSTEM}.
+ * - Resolve lỗi (mạng chập chờn) mà còn bản cũ chưa quá STALE_MS → dùng bản cũ.
+ * - {@link #prefetch} cho bước warm-up lúc khởi động.
+ */
+public class CachingDns implements Dns {
+
+    private static final String TAG = "CachingDns";
+    private static final long STALE_MS = TimeUnit.HOURS.toMillis(1);
+
+    private static final class Entry {
+        final List<InetAddress> addresses;
+        final long resolvedAt;
+
+        Entry(List<InetAddress> addresses, long resolvedAt) {
+            this.addresses = addresses;
+            this.resolvedAt = resolvedAt;
+        }
+    }
+
+    private final long ttlMs;
+    private final Map<String, Entry> cache = new ConcurrentHashMap<>();
+
+    public CachingDns(long ttl, @NonNull TimeUnit unit) {
+        this.ttlMs = unit.toMillis(ttl);
+    }
+
+    @NonNull
+    @Override
+    public List<InetAddress> lookup(@NonNull String hostname) throws UnknownHostException {
+        long now = System.currentTimeMillis();
+        Entry entry = cache.get(hostname);
+        if (entry != null && now - entry.resolvedAt < ttlMs) return entry.addresses;
+
+        try {
+            List<InetAddress> addresses = Collections.unmodifiableList(Dns.SYSTEM.lookup(hostname));
+            cache.put(hostname, new Entry(addresses, now));
+            return addresses;
+        } catch (UnknownHostException e) {
+            if (entry != null && now - entry.resolvedAt < STALE_MS) {
+                Log.w(TAG, "Lookup failed, using stale addresses for " + hostname);
+                return entry.addresses;
+            }
+            throw e;
+        }
+    }
+
+    /** Resolve trước (gọi trên background thread); lỗi chỉ được log. */
+    public void prefetch(@NonNull String hostname) {
+        try {
+            lookup(hostname);
+        } catch (UnknownHostException e) {
+            Log.w(TAG, "Prefetch failed for " + hostname, e);
+        }
+    }
+
+    public void clear() {
+        cache.clear();
+    }
+}
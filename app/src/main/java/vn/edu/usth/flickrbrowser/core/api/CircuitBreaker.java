@@ -0,0 +1,222 @@
+package vn.edu.usth.flickrbrowser.core.api;
+
+import androidx.annotation.NonNull;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Circuit breaker cho một backend (Pexels API, Flickr feed).
+ *
+ * - CLOSED: cho mọi request đi, ghi kết quả vào cửa sổ trượt WINDOW_SIZE request gần nhất.
+ *   Tỉ lệ lỗi (hoặc tỉ lệ request chậm) vượt ngưỡng khi đã có đủ MIN_CALLS mẫu → OPEN.
+ * - OPEN: từ chối request trong thời gian cooldown (tăng gấp đôi mỗi lần probe thất bại).
+ * - HALF_OPEN: hết cooldown, cho từng probe một đi qua; PROBE_SUCCESSES probe thành công
+ *   liên tiếp → CLOSED, một probe lỗi → OPEN lại.
+ *
+ * Mỗi {@link #allowRequest()} trả true phải được kết thúc bằng đúng một lần
+ * {@link #onSuccess}, {@link #onFailure} hoặc {@link #onIgnored}.
+ */
+public class CircuitBreaker {
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    /** Kết quả của một call đối với sức khoẻ backend. */
+    public enum Outcome { SUCCESS, FAILURE, IGNORED }
+
+    /** Nhận thông báo đổi trạng thái (gọi trên thread đã ghi kết quả, thường là thread mạng). */
+    public interface Listener {
+        void onStateChange(@NonNull CircuitBreaker breaker, @NonNull State from, @NonNull State to);
+    }
+
+    private static final int WINDOW_SIZE = 20;
+    private static final int MIN_CALLS = 5;
+    private static final double FAILURE_RATE_THRESHOLD = 0.5;
+    private static final double SLOW_RATE_THRESHOLD = 0.8;
+    private static final long BASE_COOLDOWN_MS = 15_000;
+    private static final long MAX_COOLDOWN_MS = 2 * 60_000;
+    private static final int PROBE_SUCCESSES = 2;
+
+    private final String name;
+    private final long slowCallMs;
+    private final LongSupplier clock; // ms, đơn điệu
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    // Cửa sổ trượt theo số request: mỗi ô là một kết quả
+    private final boolean[] failed = new boolean[WINDOW_SIZE];
+    private final boolean[] slow = new boolean[WINDOW_SIZE];
+    private int next = 0;
+    private int size = 0;
+
+    private State state = State.CLOSED;
+    private long openedAt;
+    private long cooldownMs = BASE_COOLDOWN_MS;
+    private boolean probeInFlight = false;
+    private int probeSuccesses = 0;
+
+    public CircuitBreaker(@NonNull String name, long slowCallMs) {
+        this(name, slowCallMs, CircuitBreaker::systemNow);
+    }
+
+    /** @param clock thời gian (ms, đơn điệu) cho cooldown; test dùng đồng hồ giả */
+    CircuitBreaker(@NonNull String name, long slowCallMs, @NonNull LongSupplier clock) {
+        this.name = name;
+        this.slowCallMs = slowCallMs;
+        this.clock = clock;
+    }
+
+    @NonNull
+    public String getName() {
+        return name;
+    }
+
+    @NonNull
+    public synchronized State getState() {
+        // OPEN hết cooldown được báo là HALF_OPEN dù chưa có probe nào
+        if (state == State.OPEN && now() - openedAt >= cooldownMs) return State.HALF_OPEN;
+        return state;
+    }
+
+    public void addListener(@NonNull Listener l) {
+        listeners.add(l);
+    }
+
+    public void removeListener(@NonNull Listener l) {
+        listeners.remove(l);
+    }
+
+    /** true nếu request được phép đi tới backend này. */
+    public boolean allowRequest() {
+        State from;
+        synchronized (this) {
+            if (state == State.CLOSED) return true;
+            if (state == State.OPEN) {
+                if (now() - openedAt < cooldownMs) return false;
+                from = state;
+                state = State.HALF_OPEN;
+                probeSuccesses = 0;
+                probeInFlight = true;
+            } else {
+                if (probeInFlight) return false;
+                probeInFlight = true;
+                return true;
+            }
+        }
+        notifyChange(from, State.HALF_OPEN);
+        return true;
+    }
+
+    /**
+     * Outcome của một response mạng theo HTTP status: 5xx là lỗi backend. 429 chỉ là hết quota
+     * (RateLimitGovernor đã retry / chặn) nên không tính, để một loạt 429 không mở breaker và
+     * đẩy traffic sang fallback. Các status khác: backend vẫn trả lời bình thường.
+     */
+    @NonNull
+    public static Outcome outcomeOf(int httpCode) {
+        if (httpCode >= 500) return Outcome.FAILURE;
+        if (httpCode == 429) return Outcome.IGNORED;
+        return Outcome.SUCCESS;
+    }
+
+    /** Ghi kết quả của một call đã được {@link #allowRequest()} cho qua. */
+    public void onOutcome(@NonNull Outcome outcome, long latencyMs) {
+        switch (outcome) {
+            case SUCCESS: onSuccess(latencyMs); break;
+            case FAILURE: onFailure(); break;
+            default:      onIgnored();
+        }
+    }
+
+    /** Backend trả lời bình thường sau {@code latencyMs}. */
+    public void onSuccess(long latencyMs) {
+        State from = null;
+        State to;
+        synchronized (this) {
+            if (state == State.HALF_OPEN) {
+                probeInFlight = false;
+                if (++probeSuccesses >= PROBE_SUCCESSES) {
+                    from = state;
+                    state = State.CLOSED;
+                    cooldownMs = BASE_COOLDOWN_MS;
+                    size = 0;
+                    next = 0;
+                }
+            } else if (state == State.CLOSED) {
+                from = record(false, latencyMs >= slowCallMs);
+            }
+            to = state;
+        }
+        if (from != null) notifyChange(from, to);
+    }
+
+    /** Backend lỗi: lỗi mạng, timeout hoặc 5xx. */
+    public void onFailure() {
+        State from = null;
+        State to;
+        synchronized (this) {
+            if (state == State.HALF_OPEN) {
+                // Probe lỗi → mở lại, cooldown dài hơn
+                probeInFlight = false;
+                cooldownMs = Math.min(MAX_COOLDOWN_MS, cooldownMs * 2);
+                from = open();
+            } else if (state == State.CLOSED) {
+                from = record(true, false);
+            }
+            to = state;
+        }
+        if (from != null) notifyChange(from, to);
+    }
+
+    /** Request bị huỷ, bị 429 hoặc trả từ cache: không nói gì về sức khoẻ backend, chỉ trả lại lượt probe. */
+    public synchronized void onIgnored() {
+        if (state == State.HALF_OPEN) probeInFlight = false;
+    }
+
+    @NonNull
+    @Override
+    public synchronized String toString() {
+        return name + "[" + getState() + ", window=" + size + "]";
+    }
+
+    // Ghi kết quả vào cửa sổ; trả trạng thái cũ nếu vừa chuyển sang OPEN
+    private State record(boolean isFailure, boolean isSlow) {
+        failed[next] = isFailure;
+        slow[next] = isSlow;
+        next = (next + 1) % WINDOW_SIZE;
+        if (size < WINDOW_SIZE) size++;
+        if (size < MIN_CALLS) return null;
+
+        int failures = 0;
+        int slowCalls = 0;
+        for (int i = 0; i < size; i++) {
+            if (failed[i]) failures++;
+            if (slow[i]) slowCalls++;
+        }
+        if (failures >= FAILURE_RATE_THRESHOLD * size || slowCalls >= SLOW_RATE_THRESHOLD * size) {
+            return open();
+        }
+        return null;
+    }
+
+    private State open() {
+        State from = state;
+        state = State.OPEN;
+        openedAt = now();
+        return from;
+    }
+
+    private void notifyChange(State from, State to) {
+        if (from == to) return;
+        for (Listener l : listeners) l.onStateChange(this, from, to);
+    }
+
+    private long now() {
+        return clock.getAsLong();
+    }
+
+    private static long systemNow() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime());
+    }
+}
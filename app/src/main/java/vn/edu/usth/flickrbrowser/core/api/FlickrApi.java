@@ -3,22 +3,37 @@ package vn.edu.usth.flickrbrowser.core.api;
 import okhttp3.ResponseBody;
 import retrofit2.Call;
 import retrofit2.http.GET;
+import retrofit2.http.Header;
 import retrofit2.http.Query;
+import retrofit2.http.Streaming;
+import retrofit2.http.Tag;
 
 public interface FlickrApi {
 
+    // @Streaming: không buffer cả body, FlickrRepo parse trực tiếp từ source của OkHttp
+    // @Tag: độ ưu tiên cho RateLimitGovernor (prefetch bị cắt trước khi quota cạn)
+    // Cache-Control: null → theo cache bình thường; "no-cache" khi refresh (conditional GET)
+    // ResponseBody thay vì Call<PexelsPage>: FlickrRepo cần header (ETag) của response để
+    // ParsedPageCache bỏ qua parse; body được decode vào PexelsPage bằng PhotoParser.readPexelsPage
+
     // Lấy ảnh mới nhất (Pexels: curated)
+    @Streaming
     @GET("curated")
     Call<ResponseBody> getRecent(
             @Query("page") int page,
-            @Query("per_page") int perPage
+            @Query("per_page") int perPage,
+            @Tag RequestPriority priority,
+            @Header("Cache-Control") String cacheControl
     );
 
     // Tìm kiếm ảnh (Pexels: search)
+    @Streaming
     @GET("search")
     Call<ResponseBody> search(
             @Query("query") String query,
             @Query("page") int page,
-            @Query("per_page") int perPage
+            @Query("per_page") int perPage,
+            @Tag RequestPriority priority,
+            @Header("Cache-Control") String cacheControl
     );
 }
@@ -0,0 +1,19 @@
+package vn.edu.usth.flickrbrowser.core.api;
+
+import okhttp3.ResponseBody;
+import retrofit2.Call;
+import retrofit2.http.GET;
+import retrofit2.http.Query;
+import retrofit2.http.Streaming;
+
+/** Flickr public feed (fallback khi Pexels không trả ảnh). Base URL: https://www.flickr.com/ */
+public interface FlickrFeedApi {
+
+    // Ảnh public mới nhất; tags = null → không lọc (Retrofit bỏ query null)
+    // Body được decode vào FlickrFeed bằng PhotoParser.readFlickrFeed (như FlickrApi)
+    @Streaming
+    @GET("services/feeds/photos_public.gne?format=json&nojsoncallback=1")
+    Call<ResponseBody> publicFeed(
+            @Query("tags") String tags
+    );
+}
@@ -2,24 +2,27 @@ package vn.edu.usth.flickrbrowser.core.api;
 
 import android.os.Handler;
 import android.os.Looper;
+import android.os.SystemClock;
 import android.util.Log;
 
-import org.json.JSONArray;
-import org.json.JSONObject;
-
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.net.HttpURLConnection;
-import java.net.URL;
-import java.net.URLEncoder;
+import java.net.SocketTimeoutException;
+import java.net.UnknownHostException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import okhttp3.ResponseBody;
 import retrofit2.Call;
 import retrofit2.Callback;
 import retrofit2.Response;
+import vn.edu.usth.flickrbrowser.core.api.CircuitBreaker.Outcome;
+import vn.edu.usth.flickrbrowser.core.db.FeedStore;
 import vn.edu.usth.flickrbrowser.core.model.PhotoItem;
 
 public class FlickrRepo {
@@ -27,102 +30,278 @@ public class FlickrRepo {
     public interface CB {
         void ok(List<PhotoItem> items);
         void err(Throwable e);
+
+        /** Con trỏ phân trang của trang sắp giao; gọi ngay trước {@code ok} (main thread). */
+        default void pageInfo(PageInfo info) {}
+    }
+
+    /**
+     * CB nhận trang theo từng đợt trong lúc body còn đang tải / parse (main thread).
+     * Các đợt {@code progress} nối lại luôn là phần đầu của List trong {@code ok}: caller chỉ cần
+     * append {@code items.subList(đãNhận, items.size())} khi {@code ok} tới. Trang dùng lại từ
+     * cache đã parse thì chỉ có {@code ok}. Body đứt sau vài đợt thì tới {@code err}: các đợt đã
+     * nhận không phải trang hoàn chỉnh.
+     */
+    public interface ProgressiveCB extends CB {
+        void progress(List<PhotoItem> batch);
     }
 
     private static final String TAG = "API";
     private static final Handler MAIN = new Handler(Looper.getMainLooper());
 
-    private static FlickrApi API;
+    // Lazy init an toàn giữa main thread và thread của OkHttp (fallback gọi feed() từ callback)
+    private static volatile FlickrApi API;
     private static FlickrApi api() {
-        if (API == null) {
-            API = ApiClient.getClient().create(FlickrApi.class);
+        FlickrApi api = API;
+        if (api == null) {
+            synchronized (FlickrRepo.class) {
+                api = API;
+                if (api == null) {
+                    api = API = ApiClient.getClient().create(FlickrApi.class);
+                }
+            }
         }
-        return API;
+        return api;
     }
 
-    private static Call<ResponseBody> inFlightSearch;
+    private static volatile FlickrFeedApi FEED;
+    private static FlickrFeedApi feed() {
+        FlickrFeedApi feed = FEED;
+        if (feed == null) {
+            synchronized (FlickrRepo.class) {
+                feed = FEED;
+                if (feed == null) {
+                    feed = FEED = ApiClient.getFeedClient().create(FlickrFeedApi.class);
+                }
+            }
+        }
+        return feed;
+    }
 
-    public static void cancelSearch() {
-        if (inFlightSearch != null && !inFlightSearch.isCanceled()) {
-            inFlightSearch.cancel();
+    // Các request đang chạy theo key endpoint+params; caller trùng key gắn vào call có sẵn
+    private static final Map<String, InFlight> IN_FLIGHT = new HashMap<>();
+    private static final AtomicLong ISSUED = new AtomicLong();
+    private static final AtomicLong COALESCED = new AtomicLong();
+
+    // Hedging: Pexels chưa có byte đầu tiên sau deadline (percentile TTFB gần đây) → gửi song song
+    // Flickr feed, kết quả dùng được đầu tiên thắng, call còn lại bị huỷ.
+    private static final long HEDGE_DEFAULT_DEADLINE_MS = 1500;
+    private static final long HEDGE_MIN_DEADLINE_MS = 300;
+    private static final long HEDGE_MAX_DEADLINE_MS = 4000;
+    private static final int HEDGE_MIN_SAMPLES = 8;
+    private static final LatencyTracker PEXELS_TTFB = new LatencyTracker(64);
+    private static final AtomicLong HEDGES_FIRED = new AtomicLong();
+    private static final AtomicLong HEDGES_WON = new AtomicLong();
+    private static volatile boolean hedgingEnabled = true;
+    private static volatile double hedgePercentile = 0.95;
+
+    // Circuit breaker cho từng backend: backend đang OPEN thì đi thẳng sang backend còn lại
+    private static final CircuitBreaker PEXELS_BREAKER = new CircuitBreaker("pexels", 3000);
+    private static final CircuitBreaker FEED_BREAKER = new CircuitBreaker("flickr-feed", 5000);
+    private static final AtomicLong ROUTED_TO_FEED = new AtomicLong();
+
+    static {
+        CircuitBreaker.Listener log = (b, from, to) -> Log.w(TAG, "breaker " + b.getName() + ": " + from + " -> " + to);
+        PEXELS_BREAKER.addListener(log);
+        FEED_BREAKER.addListener(log);
+    }
+
+    // Trang đã parse trong bộ nhớ, tra trước mọi network call (trừ refresh)
+    private static final PageMemoryCache PAGES = new PageMemoryCache(4L * 1024 * 1024, 10, TimeUnit.MINUTES);
+    // next_page của các trang Pexels đã parse, theo cùng key; dùng khi trang được lấy lại từ cache
+    private static final int MAX_CURSORS = 128;
+    private static final Map<String, PageInfo> CURSORS = new LinkedHashMap<String, PageInfo>(32, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, PageInfo> eldest) {
+            return size() > MAX_CURSORS;
         }
-        inFlightSearch = null;
+    };
+
+    // Refresh: OkHttp bỏ qua bản cache, gửi If-None-Match / If-Modified-Since nếu có validator;
+    // 304 → ParsedPageCache dùng lại List đã parse
+    private static final String REVALIDATE = "no-cache";
+
+    // Progressive: đợt đầu nhỏ để hàng ảnh đầu tiên hiện sớm, sau đó gom lớn hơn cho đỡ rebind
+    private static final int PROGRESS_FIRST_BATCH = 4;
+    private static final int PROGRESS_BATCH = 8;
+    private static final long PROGRESS_FLUSH_MS = 100;
+
+    private static final String RATE_LIMITED_MESSAGE = "Too many requests. Please try again later.";
+    private static final String UNAVAILABLE_MESSAGE = "Service temporarily unavailable. Please try again later.";
+
+    /** Số request thực sự được gửi đi. */
+    public static long getIssuedCount() { return ISSUED.get(); }
+
+    /** Số lần caller được gắn vào một request đang chạy thay vì gửi request mới. */
+    public static long getCoalescedCount() { return COALESCED.get(); }
+
+    /** Bật/tắt hedging Pexels ↔ Flickr feed. */
+    public static void setHedgingEnabled(boolean enabled) { hedgingEnabled = enabled; }
+
+    /** Percentile TTFB của Pexels (0.5..0.999) dùng làm deadline hedging, mặc định p95. */
+    public static void setHedgePercentile(double percentile) {
+        hedgePercentile = Math.max(0.5, Math.min(0.999, percentile));
+    }
+
+    /** Số lần Flickr feed được gửi song song vì Pexels chưa có byte đầu tiên trước deadline. */
+    public static long getHedgeFiredCount() { return HEDGES_FIRED.get(); }
+
+    /** Số lần request hedge (Flickr feed) về trước Pexels và được dùng. */
+    public static long getHedgeWonCount() { return HEDGES_WON.get(); }
+
+    /** Breaker của Pexels API; đăng ký {@link CircuitBreaker.Listener} để theo dõi chuyển trạng thái. */
+    public static CircuitBreaker getPexelsBreaker() { return PEXELS_BREAKER; }
+
+    /** Breaker của Flickr public feed. */
+    public static CircuitBreaker getFeedBreaker() { return FEED_BREAKER; }
+
+    /** Số request đi thẳng sang Flickr feed vì breaker của Pexels đang mở. */
+    public static long getRoutedToFeedCount() { return ROUTED_TO_FEED.get(); }
+
+    /** Cache trang trong bộ nhớ: hit ratio, số trang bị evict / hết hạn. */
+    public static PageMemoryCache getPageCache() { return PAGES; }
+
+    /** Deadline hiện tại: percentile TTFB gần đây của Pexels, mặc định khi chưa đủ mẫu. */
+    public static long getHedgeDeadlineMs() {
+        if (PEXELS_TTFB.count() < HEDGE_MIN_SAMPLES) return HEDGE_DEFAULT_DEADLINE_MS;
+        long p = PEXELS_TTFB.percentile(hedgePercentile);
+        return Math.max(HEDGE_MIN_DEADLINE_MS, Math.min(HEDGE_MAX_DEADLINE_MS, p));
     }
 
     // --------------------------------------
     // Pexels: getRecent -> curated
     // --------------------------------------
-    public static void getRecent(int page, int perPage, CB cb) {
-        page = Math.max(1, page);
-        perPage = Math.max(1, perPage);
+    public static RequestHandle getRecent(int page, int perPage, CB cb) {
+        return getRecent(page, perPage, RequestPriority.USER, cb);
+    }
 
-        api().getRecent(page, perPage).enqueue(new Callback<ResponseBody>() {
-            @Override
-            public void onResponse(Call<ResponseBody> call, Response<ResponseBody> r) {
-                try {
-                    String body = r.body() != null ? r.body().string()
-                            : (r.errorBody() != null ? r.errorBody().string() : "");
-                    Log.d(TAG, "getRecent code=" + r.code() + " body=" + body);
-
-                    if (r.isSuccessful()) {
-                        List<PhotoItem> out = parseToPhotos(body);
-                        if (!out.isEmpty()) {
-                            MAIN.post(() -> cb.ok(out));
-                        } else {
-                            getRecentFallback(cb);
-                        }
-                    } else {
-                        postError(cb, "Server returned error: " + r.code(), null);
-                    }
-                } catch (Exception e) {
-                    postError(cb, "Unexpected error while parsing data.", e);
-                }
-            }
+    /** {@code priority} = PREFETCH cho trang tải trước: bị cắt trước khi quota Pexels cạn. */
+    public static RequestHandle getRecent(int page, int perPage, RequestPriority priority, CB cb) {
+        return getRecent(page, perPage, priority, null, cb);
+    }
 
-            @Override
-            public void onFailure(Call<ResponseBody> call, Throwable t) {
-                Log.e(TAG, "getRecent failed: ", t);
-                postError(cb, "Failed to load photos. Please check your connection.", t);
-            }
-        });
+    /** Pull-to-refresh: bỏ qua cache (kể cả {@link PageMemoryCache}), gửi conditional GET (If-None-Match) tới Pexels. */
+    public static RequestHandle refreshRecent(int page, int perPage, CB cb) {
+        return getRecent(page, perPage, RequestPriority.USER, REVALIDATE, cb);
+    }
+
+    /** Như {@link #refreshRecent(int, int, CB)} cho request nền (job prefetch): PREFETCH bị cắt trước khi hết quota. */
+    public static RequestHandle refreshRecent(int page, int perPage, RequestPriority priority, CB cb) {
+        return getRecent(page, perPage, priority, REVALIDATE, cb);
+    }
+
+    private static RequestHandle getRecent(int page, int perPage, RequestPriority priority,
+                                           String cacheControl, CB cb) {
+        page = Math.max(1, page);
+        perPage = Math.max(1, perPage);
+        String key = PageMemoryCache.key("curated", null, page, perPage);
+        List<PhotoItem> cached = PAGES.get(key, cacheControl != null);
+        if (cached != null) return deliverCached(cached, cursorOf(key, page), cb);
+
+        Waiter waiter;
+        InFlight group;
+        synchronized (FlickrRepo.class) {
+            waiter = join(key, cb, true, null);
+            group = waiter.group;
+            if (group.primary != null) return waiter; // đã có request giống hệt đang chạy
+            group.priority = priority;
+            group.storeAs(FeedStore.FEED_CURATED, null, page, perPage);
+            group.primary = api().getRecent(page, perPage, priority, cacheControl);
+        }
+        group.start(new PexelsCallback(group, "getRecent",
+                "Unexpected error while parsing data.",
+                "Failed to load photos. Please check your connection."));
+        return waiter;
     }
 
     // --------------------------------------
-    // Fallback: Flickr public feed (JSON)
+    // Pexels: search
     // --------------------------------------
-    private static void getRecentFallback(CB cb) {
-        new Thread(() -> {
-            HttpURLConnection conn = null;
-            try {
-                URL url = new URL("https://www.flickr.com/services/feeds/photos_public.gne?format=json&nojsoncallback=1");
-                conn = (HttpURLConnection) url.openConnection();
-                conn.setRequestMethod("GET");
-                conn.setConnectTimeout(15000);
-                conn.setReadTimeout(15000);
-
-                int code = conn.getResponseCode();
-                if (code == 200) {
-                    BufferedReader reader = new BufferedReader(new InputStreamReader(conn.getInputStream()));
-                    StringBuilder response = new StringBuilder();
-                    String line;
-                    while ((line = reader.readLine()) != null) response.append(line);
-                    reader.close();
-
-                    List<PhotoItem> out = parseToPhotos(response.toString());
-                    MAIN.post(() -> cb.ok(out));
-                } else {
-                    postError(cb, "Server returned HTTP " + code, null);
-                }
-            } catch (java.net.SocketTimeoutException e) {
-                postError(cb, "Server not responding. Please try again later.", e);
-            } catch (java.net.UnknownHostException e) {
-                postError(cb, "No internet connection. Please check your network.", e);
-            } catch (Exception e) {
-                postError(cb, "Error while loading fallback data.", e);
-            } finally {
-                if (conn != null) conn.disconnect();
-            }
-        }).start();
+    public static RequestHandle search(String query, int page, int perPage, CB cb) {
+        return search(query, page, perPage, RequestPriority.USER, cb);
+    }
+
+    /**
+     * Các search độc lập (query khác nhau, nhiều màn hình) chạy song song; caller tự huỷ
+     * search cũ qua handle / {@link RequestScope} khi query đổi.
+     */
+    public static RequestHandle search(String query, int page, int perPage, RequestPriority priority, CB cb) {
+        return search(query, page, perPage, priority, null, cb);
+    }
+
+    /** Pull-to-refresh của Search: như {@link #refreshRecent}. */
+    public static RequestHandle refreshSearch(String query, int page, int perPage, CB cb) {
+        return search(query, page, perPage, RequestPriority.USER, REVALIDATE, cb);
+    }
+
+    private static RequestHandle search(String query, int page, int perPage, RequestPriority priority,
+                                        String cacheControl, CB cb) {
+        page = Math.max(1, page);
+        perPage = Math.max(1, perPage);
+        // "Sunset  Beach" và "sunset beach" là cùng một trang: chung cache, chung request
+        String q = PageMemoryCache.normalizeQuery(query);
+        String key = PageMemoryCache.key("search", q, page, perPage);
+        List<PhotoItem> cached = PAGES.get(key, cacheControl != null);
+        if (cached != null) return deliverCached(cached, cursorOf(key, page), cb);
+
+        Waiter waiter;
+        InFlight group;
+        synchronized (FlickrRepo.class) {
+            // Fallback qua Flickr feed: tags = các từ của query, nối bằng dấu phẩy
+            String tags = q.isEmpty() ? null : String.join(",", q.split("\\s+"));
+            waiter = join(key, cb, !q.isEmpty(), tags);
+            group = waiter.group;
+            if (group.primary != null) return waiter; // trang đang chạy → gắn vào
+            group.priority = priority;
+            group.storeAs(FeedStore.FEED_SEARCH, q, page, perPage);
+            group.primary = api().search(q, page, perPage, priority, cacheControl);
+        }
+        group.start(new PexelsCallback(group, "search",
+                "Unexpected error while searching.",
+                "Failed to search. Please check your connection."));
+        return waiter;
+    }
+
+    /** Trang có sẵn trong bộ nhớ: vẫn trả qua main thread như network call, huỷ được trước khi tới. */
+    private static RequestHandle deliverCached(List<PhotoItem> items, PageInfo info, CB cb) {
+        CachedResult result = new CachedResult(items, info, cb);
+        MAIN.post(result);
+        return result;
+    }
+
+    private static final class CachedResult implements RequestHandle, Runnable {
+        private final List<PhotoItem> items;
+        private final PageInfo info;
+        private final CB cb;
+        private volatile boolean cancelled, delivered;
+
+        CachedResult(List<PhotoItem> items, PageInfo info, CB cb) {
+            this.items = items;
+            this.info = info;
+            this.cb = cb;
+        }
+
+        @Override
+        public void run() {
+            if (cancelled) return;
+            delivered = true;
+            cb.pageInfo(info);
+            cb.ok(items);
+        }
+
+        @Override
+        public void cancel() { cancelled = true; }
+
+        @Override
+        public boolean isActive() { return !cancelled && !delivered; }
+    }
+
+    /** Con trỏ đã biết của trang {@code key}, hoặc không rõ. */
+    private static PageInfo cursorOf(String key, int page) {
+        synchronized (CURSORS) {
+            PageInfo info = CURSORS.get(key);
+            return info != null ? info : PageInfo.unknown(page);
+        }
     }
 
     private static void postError(CB cb, String userMessage, Throwable cause) {
@@ -131,157 +310,575 @@ public class FlickrRepo {
     }
 
     // --------------------------------------
-    // Pexels: search
+    // Coalescing: nhiều caller, một network call
     // --------------------------------------
-    public static void search(String query, int page, int perPage, CB cb) {
-        cancelSearch();
 
-        page = Math.max(1, page);
-        perPage = Math.max(1, perPage);
-        String q = (query == null ? "" : query.trim());
-
-        inFlightSearch = api().search(q, page, perPage);
-        inFlightSearch.enqueue(new Callback<ResponseBody>() {
-            @Override
-            public void onResponse(Call<ResponseBody> call, Response<ResponseBody> r) {
-                try {
-                    String body = r.body() != null ? r.body().string()
-                            : (r.errorBody() != null ? r.errorBody().string() : "");
-                    Log.d(TAG, "search code=" + r.code() + " body=" + body);
-
-                    if (r.isSuccessful()) {
-                        List<PhotoItem> out = parseToPhotos(body);
-                        if (!out.isEmpty()) {
-                            MAIN.post(() -> cb.ok(out));
-                        } else if (!q.isEmpty()) {
-                            searchFallback(q, cb);
-                        } else {
-                            postError(cb, "No results found.", null);
-                        }
-                    } else {
-                        postError(cb, "Server returned error: " + r.code(), null);
+    /**
+     * Gắn caller vào nhóm đang chạy cùng key, hoặc tạo nhóm mới (primary == null: caller phải
+     * tự gửi request). Gọi khi đang giữ lock FlickrRepo.class.
+     */
+    private static Waiter join(String key, CB cb, boolean hasFallback, String fallbackTags) {
+        InFlight group = IN_FLIGHT.get(key);
+        if (group != null) {
+            COALESCED.incrementAndGet();
+        } else {
+            group = new InFlight(key, hasFallback, fallbackTags);
+            IN_FLIGHT.put(key, group);
+            ISSUED.incrementAndGet();
+        }
+        Waiter waiter = new Waiter(group, cb);
+        group.waiters.add(waiter);
+        return waiter;
+    }
+
+    /** Handle của một caller trong nhóm; các field guarded by FlickrRepo.class. */
+    private static final class Waiter implements RequestHandle {
+        final InFlight group;
+        final CB cb;
+        boolean cancelled, delivered;
+        int progressed; // số ảnh đã giao qua ProgressiveCB.progress
+
+        Waiter(InFlight group, CB cb) {
+            this.group = group;
+            this.cb = cb;
+        }
+
+        @Override
+        public void cancel() {
+            synchronized (FlickrRepo.class) {
+                if (cancelled || delivered) return;
+                cancelled = true;
+                group.detach(this);
+            }
+        }
+
+        @Override
+        public boolean isActive() {
+            synchronized (FlickrRepo.class) {
+                return !cancelled && !delivered;
+            }
+        }
+    }
+
+    /**
+     * Một request đang chạy; khi xong, mọi caller nhận cùng một List đã parse (chỉ đọc).
+     *
+     * Nhóm có tối đa hai call: primary (Pexels) và secondary (Flickr feed). Secondary được gửi
+     * khi Pexels trả danh sách rỗng (fallback) hoặc khi Pexels quá deadline hedging, chỉ cho
+     * trang 1 người dùng đang chờ ({@link #fallbackAllowed()}). Kết quả
+     * dùng được đầu tiên thắng và huỷ call kia; lỗi chỉ được báo khi không còn call nào chạy.
+     * Nhóm chỉ bị huỷ (kể cả call mạng) khi caller cuối cùng huỷ handle của mình.
+     * Các field trạng thái guarded by FlickrRepo.class.
+     */
+    private static final class InFlight implements CB {
+        final String key;
+        final boolean hasFallback;
+        final String fallbackTags;
+        final List<Waiter> waiters = new ArrayList<>();
+        final Runnable hedgeTimer = this::hedge;
+
+        RequestPriority priority = RequestPriority.USER;
+        Call<ResponseBody> primary;
+        Call<ResponseBody> secondary;
+        long startedAt, secondaryStartedAt;
+        boolean primaryDone, secondaryDone, hedged, settled, cancelled;
+        // Call được breaker cho phép → kết quả của nó phải được báo lại cho breaker
+        boolean primaryPermitted, secondaryPermitted;
+        // Lỗi của call đã xong trong khi call kia còn chạy; null = call đó trả rỗng
+        String pendingMessage;
+        Throwable pendingCause;
+        // Progressive: backend đã giao ảnh cho caller thì thắng luôn, call kia bị huỷ
+        final List<PhotoItem> progress = new ArrayList<>();
+        boolean committed, committedPrimary;
+        // Vị trí của trang trong FeedStore (disk); feed null = không lưu
+        String storeFeed, storeQuery;
+        int storePage, storePerPage;
+        PageInfo info; // con trỏ của kết quả thắng; null = không rõ
+
+        InFlight(String key, boolean hasFallback, String fallbackTags) {
+            this.key = key;
+            this.hasFallback = hasFallback;
+            this.fallbackTags = fallbackTags;
+        }
+
+        void storeAs(String feed, String query, int page, int perPage) {
+            storeFeed = feed;
+            storeQuery = query;
+            storePage = page;
+            storePerPage = perPage;
+        }
+
+        /** Trang Pexels đầy đủ: nhớ trong bộ nhớ và ghi xuống disk cho lần mở app sau. */
+        void remember(List<PhotoItem> items, PageInfo cursor) {
+            PAGES.put(key, items);
+            if (cursor.isKnown()) {
+                synchronized (CURSORS) {
+                    CURSORS.put(key, cursor);
+                }
+            }
+            FeedStore store = FeedStore.get();
+            if (store != null && storeFeed != null) {
+                store.writePage(storeFeed, storeQuery, storePage, storePerPage, items, cursor);
+            }
+        }
+
+        /**
+         * Flickr feed không phân trang (luôn ~20 ảnh mới nhất): chỉ thay được trang 1 mà người
+         * dùng đang chờ. Trang sau / prefetch nhận ảnh feed sẽ bị nối vào giữa kết quả Pexels.
+         */
+        boolean fallbackAllowed() {
+            return hasFallback && storePage == 1 && priority == RequestPriority.USER;
+        }
+
+        void start(Callback<ResponseBody> callback) {
+            startedAt = System.nanoTime();
+            synchronized (FlickrRepo.class) {
+                if (cancelled) return;
+                primaryPermitted = PEXELS_BREAKER.allowRequest();
+                if (!primaryPermitted) {
+                    if (!fallbackAllowed()) {
+                        // Pexels đang OPEN, không có gì thay được → báo lỗi ngay, người gọi thử lại sau
+                        fail(UNAVAILABLE_MESSAGE, null);
+                        return;
+                    }
+                    // Đi thẳng Flickr feed; cả hai cùng OPEN thì vẫn thử Pexels
+                    if (startSecondary()) {
+                        ROUTED_TO_FEED.incrementAndGet();
+                        primaryDone = true;
+                        return;
                     }
-                } catch (Exception e) {
-                    postError(cb, "Unexpected error while searching.", e);
                 }
             }
+            // Timer phải có trước khi call chạy: onFirstByte sớm gỡ nó ra
+            if (hedgingEnabled && fallbackAllowed()) MAIN.postDelayed(hedgeTimer, getHedgeDeadlineMs());
+            primary.enqueue(callback);
+        }
 
-            @Override
-            public void onFailure(Call<ResponseBody> call, Throwable t) {
-                if (!call.isCanceled()) {
-                    postError(cb, "Failed to search. Please check your connection.", t);
+        /** Pexels đã có header (byte đầu tiên) → không cần hedge nữa. */
+        void onFirstByte(boolean fromNetwork) {
+            MAIN.removeCallbacks(hedgeTimer);
+            // Chỉ lấy mẫu response từ mạng, cache hit kéo percentile xuống quá thấp
+            if (fromNetwork) PEXELS_TTFB.add(elapsedMs());
+        }
+
+        private void hedge() {
+            synchronized (FlickrRepo.class) {
+                if (settled || cancelled || primaryDone || secondary != null) return;
+                if (!startSecondary()) return; // feed cũng đang OPEN → chờ Pexels
+                hedged = true;
+                HEDGES_FIRED.incrementAndGet();
+                Log.d(TAG, "hedge " + key + " after " + elapsedMs() + "ms");
+            }
+        }
+
+        /** Gửi Flickr feed nếu breaker của nó cho phép. */
+        private boolean startSecondary() {
+            if (!FEED_BREAKER.allowRequest()) return false;
+            secondaryPermitted = true;
+            secondaryStartedAt = System.nanoTime();
+            secondary = feed().publicFeed(fallbackTags);
+            secondary.enqueue(new FeedCallback(this));
+            return true;
+        }
+
+        /** Pexels trả danh sách rỗng: chuyển sang Flickr feed, hoặc chờ hedge đang chạy. */
+        void primaryEmpty() {
+            synchronized (FlickrRepo.class) {
+                if (settled || cancelled || isLoser(true)) return;
+                primaryDone = true;
+                if (!hasFallback) {
+                    fail("No results found.", null);
+                } else if (!fallbackAllowed()) {
+                    settle(new ArrayList<>()); // trang sau rỗng: hết dữ liệu
+                } else if (secondary == null) {
+                    // Feed đang OPEN → trả đúng kết quả rỗng của Pexels
+                    if (!startSecondary()) settle(new ArrayList<>());
+                } else if (secondaryDone) {
+                    // Hedge đã xong trước mà không có ảnh
+                    if (pendingMessage != null) fail(pendingMessage, pendingCause);
+                    else settle(new ArrayList<>());
                 }
             }
-        });
-    }
+        }
 
-    // --------------------------------------
-    // Fallback search via Flickr feed
-    // --------------------------------------
-    private static void searchFallback(String query, CB cb) {
-        new Thread(() -> {
-            HttpURLConnection conn = null;
-            try {
-                String tags = String.join(",", query.trim().split("\\s+"));
-                String encodedTags = URLEncoder.encode(tags, "UTF-8");
-                String urlStr = "https://www.flickr.com/services/feeds/photos_public.gne?format=json&nojsoncallback=1&tags=" + encodedTags;
-
-                URL url = new URL(urlStr);
-                conn = (HttpURLConnection) url.openConnection();
-                conn.setRequestMethod("GET");
-                conn.setConnectTimeout(15000);
-                conn.setReadTimeout(15000);
-
-                int code = conn.getResponseCode();
-                if (code == 200) {
-                    BufferedReader reader = new BufferedReader(new InputStreamReader(conn.getInputStream()));
-                    StringBuilder response = new StringBuilder();
-                    String line;
-                    while ((line = reader.readLine()) != null) response.append(line);
-                    reader.close();
-
-                    List<PhotoItem> photos = parseToPhotos(response.toString());
-                    MAIN.post(() -> cb.ok(photos));
+        void win(boolean fromPrimary, List<PhotoItem> items, PageInfo cursor) {
+            synchronized (FlickrRepo.class) {
+                if (settled || cancelled || isLoser(fromPrimary)) return;
+                info = cursor;
+                Call<ResponseBody> loser = fromPrimary ? secondary : primary;
+                if (loser != null) loser.cancel();
+                if (!fromPrimary && hedged) {
+                    HEDGES_WON.incrementAndGet();
+                    // Pexels thua: TTFB của nó ít nhất bằng thời gian đã chờ
+                    if (!primaryDone) PEXELS_TTFB.add(elapsedMs());
+                }
+                settle(items);
+            }
+        }
+
+        /** Call của một backend thất bại (hoặc hedge về rỗng); báo lỗi nếu call kia không còn chạy. */
+        void lose(boolean fromPrimary, String userMessage, Throwable cause) {
+            synchronized (FlickrRepo.class) {
+                if (settled || cancelled) return;
+                if (fromPrimary) primaryDone = true;
+                else secondaryDone = true;
+                boolean otherRunning = fromPrimary
+                        ? (secondary != null && !secondaryDone)
+                        : !primaryDone;
+                if (otherRunning) {
+                    pendingMessage = userMessage;
+                    pendingCause = cause;
+                    return;
+                }
+                fail(userMessage, cause);
+            }
+        }
+
+        /** Kết quả Flickr feed: hedge về rỗng trong khi Pexels còn chạy thì để Pexels quyết định. */
+        void secondaryResult(List<PhotoItem> items) {
+            synchronized (FlickrRepo.class) {
+                if (settled || cancelled) return;
+                if (!items.isEmpty()) {
+                    win(false, items, null);
+                } else if (!primaryDone) {
+                    secondaryDone = true;
+                    pendingMessage = null;
+                    pendingCause = null;
+                } else if (pendingMessage != null) {
+                    fail(pendingMessage, pendingCause); // Pexels lỗi, feed cũng không có ảnh
                 } else {
-                    postError(cb, "Server returned HTTP " + code, null);
+                    settle(items);
                 }
-            } catch (java.net.SocketTimeoutException e) {
-                postError(cb, "Server not responding. Please try again later.", e);
-            } catch (java.net.UnknownHostException e) {
-                postError(cb, "No internet connection. Please check your network.", e);
-            } catch (Exception e) {
-                postError(cb, "Error while loading fallback data.", e);
-            } finally {
-                if (conn != null) conn.disconnect();
             }
-        }).start();
-    }
+        }
 
-    // --------------------------------------
-    // Parser: prefer Pexels → fallback Flickr
-    // --------------------------------------
-    private static List<PhotoItem> parseToPhotos(String json) {
-        List<PhotoItem> out = new ArrayList<>();
-        try {
-            JSONObject root = new JSONObject(json);
-
-            // ===== Pexels schema =====
-            JSONArray pexelsPhotos = root.optJSONArray("photos");
-            if (pexelsPhotos != null) {
-                for (int i = 0; i < pexelsPhotos.length(); i++) {
-                    JSONObject o = pexelsPhotos.optJSONObject(i);
-                    if (o == null) continue;
-
-                    PhotoItem p = new PhotoItem();
-                    p.id = String.valueOf(o.optLong("id"));
-                    p.title = o.optString("alt", "");
-                    p.owner = o.optString("photographer", "");
-
-                    JSONObject src = o.optJSONObject("src");
-                    String thumb = src != null ? src.optString("medium", "") : "";
-                    String full = src != null ? src.optString("large2x", src.optString("large", "")) : "";
-
-                    p.thumbUrl = thumb;
-                    p.fullUrl = full.isEmpty() ? thumb : full;
-
-                    out.add(p);
+        /**
+         * Pexels hết quota (429 / bị RateLimitGovernor chặn): trang 1 người dùng đang chờ chuyển
+         * sang Flickr feed; trang sau / prefetch thì báo lỗi để người gọi thử lại sau.
+         */
+        void primaryUnavailable(String userMessage, Throwable cause) {
+            synchronized (FlickrRepo.class) {
+                if (settled || cancelled) return;
+                if (secondary == null && fallbackAllowed() && startSecondary()) {
+                    primaryDone = true;
+                    return;
+                }
+            }
+            lose(true, userMessage, cause);
+        }
+
+        /**
+         * Một đợt ảnh vừa decode từ {@code fromPrimary}. Đợt đầu tiên chốt backend đó: huỷ call
+         * còn lại và hedge timer, để kết quả cuối chắc chắn bắt đầu bằng các ảnh đã giao.
+         *
+         * @return false nếu không ai cần progress hoặc backend kia đã được chốt → ngừng gửi đợt
+         */
+        boolean emit(boolean fromPrimary, List<PhotoItem> batch) {
+            synchronized (FlickrRepo.class) {
+                if (settled || cancelled || isLoser(fromPrimary)) return false;
+                if (!committed) {
+                    if (!wantsProgress()) return false;
+                    committed = true;
+                    committedPrimary = fromPrimary;
+                    MAIN.removeCallbacks(hedgeTimer);
+                    if (fromPrimary) {
+                        if (secondary != null) secondary.cancel();
+                        secondaryDone = true;
+                    } else {
+                        if (hedged && !primaryDone) PEXELS_TTFB.add(elapsedMs());
+                        if (primary != null) primary.cancel();
+                        primaryDone = true;
+                    }
                 }
+                progress.addAll(batch);
+            }
+            MAIN.post(this::deliverProgress);
+            return true;
+        }
+
+        /** Main thread: giao cho mỗi ProgressiveCB phần ảnh nó chưa nhận. */
+        private void deliverProgress() {
+            List<ProgressiveCB> targets = new ArrayList<>();
+            List<List<PhotoItem>> batches = new ArrayList<>();
+            synchronized (FlickrRepo.class) {
+                if (cancelled) return;
+                int n = progress.size();
+                for (Waiter w : waiters) {
+                    if (!(w.cb instanceof ProgressiveCB) || w.progressed >= n) continue;
+                    targets.add((ProgressiveCB) w.cb);
+                    batches.add(Collections.unmodifiableList(new ArrayList<>(progress.subList(w.progressed, n))));
+                    w.progressed = n;
+                }
+            }
+            for (int i = 0; i < targets.size(); i++) targets.get(i).progress(batches.get(i));
+        }
+
+        private boolean wantsProgress() {
+            for (Waiter w : waiters) {
+                if (w.cb instanceof ProgressiveCB) return true;
+            }
+            return false;
+        }
+
+        /** Backend kia đã giao ảnh progressive → kết quả của backend này bị bỏ. */
+        private boolean isLoser(boolean fromPrimary) {
+            return committed && committedPrimary != fromPrimary;
+        }
+
+        /** Báo kết quả một call cho breaker của backend đó (mỗi call đúng một lần). */
+        void report(boolean fromPrimary, Outcome outcome) {
+            boolean permitted;
+            long latencyMs;
+            synchronized (FlickrRepo.class) {
+                permitted = fromPrimary ? primaryPermitted : secondaryPermitted;
+                if (fromPrimary) primaryPermitted = false;
+                else secondaryPermitted = false;
+                latencyMs = fromPrimary ? elapsedMs()
+                        : TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - secondaryStartedAt);
+            }
+            if (!permitted) return;
+            (fromPrimary ? PEXELS_BREAKER : FEED_BREAKER).onOutcome(outcome, latencyMs);
+        }
+
+        private void settle(List<PhotoItem> items) {
+            settled = true;
+            MAIN.removeCallbacks(hedgeTimer);
+            MAIN.post(() -> ok(items));
+        }
+
+        private void fail(String userMessage, Throwable cause) {
+            settled = true;
+            MAIN.removeCallbacks(hedgeTimer);
+            postError(this, userMessage, cause);
+        }
+
+        /** Caller huỷ handle; không còn ai chờ thì huỷ luôn call mạng (chưa settle). */
+        void detach(Waiter waiter) {
+            waiters.remove(waiter);
+            if (!waiters.isEmpty() || settled || cancelled) return;
+            if (IN_FLIGHT.get(key) == this) IN_FLIGHT.remove(key);
+            cancel();
+        }
+
+        private void cancel() {
+            cancelled = true;
+            MAIN.removeCallbacks(hedgeTimer);
+            if (primary != null) primary.cancel();
+            if (secondary != null) secondary.cancel();
+        }
+
+        private long elapsedMs() {
+            return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+        }
+
+        @Override
+        public void ok(List<PhotoItem> items) {
+            List<PhotoItem> shared = Collections.unmodifiableList(items);
+            PageInfo cursor = info != null ? info : PageInfo.unknown(storePage);
+            for (Waiter w : finish()) {
+                w.cb.pageInfo(cursor);
+                w.cb.ok(shared);
+            }
+        }
+
+        @Override
+        public void err(Throwable e) {
+            for (Waiter w : finish()) w.cb.err(e);
+        }
+
+        /** Chạy trên main thread; caller đã huỷ handle trước thời điểm này không nhận callback. */
+        private List<Waiter> finish() {
+            synchronized (FlickrRepo.class) {
+                if (IN_FLIGHT.get(key) == this) IN_FLIGHT.remove(key);
+                if (cancelled) return Collections.emptyList();
+                List<Waiter> out = new ArrayList<>(waiters);
+                waiters.clear();
+                for (Waiter w : out) w.delivered = true;
                 return out;
             }
+        }
+    }
 
-            // ===== Flickr fallback =====
-            JSONArray items = root.optJSONArray("items");
-            if (items != null) {
-                for (int i = 0; i < items.length(); i++) {
-                    JSONObject o = items.optJSONObject(i);
-                    if (o == null) continue;
+    /** Callback cho Pexels (curated / search): parse stream, rỗng → fallback Flickr feed. */
+    private static final class PexelsCallback implements Callback<ResponseBody> {
+        private final InFlight group;
+        private final String op;
+        private final String parseError;
+        private final String networkError;
+
+        PexelsCallback(InFlight group, String op, String parseError, String networkError) {
+            this.group = group;
+            this.op = op;
+            this.parseError = parseError;
+            this.networkError = networkError;
+        }
 
-                    PhotoItem p = new PhotoItem();
+        @Override
+        public void onResponse(Call<ResponseBody> call, Response<ResponseBody> r) {
+            group.onFirstByte(r.raw().networkResponse() != null);
+            Log.d(TAG, op + " code=" + r.code());
+            if (!r.isSuccessful()) {
+                group.report(true, outcomeOf(r));
+                closeQuietly(r.errorBody());
+                if (r.code() == 429) group.primaryUnavailable(RATE_LIMITED_MESSAGE, null);
+                else group.lose(true, "Server returned error: " + r.code(), null);
+                return;
+            }
+            ProgressSink sink = new ProgressSink(group, true);
+            List<PhotoItem> out;
+            try {
+                long t0 = System.nanoTime();
+                out = parseToPhotos(r, PhotoParser::parsePexels, sink);
+                NetworkTracer.recordParse(call.request(), System.nanoTime() - t0);
+            } catch (IOException e) {
+                // Body đứt / sai cú pháp: cả trang là lỗi, kể cả khi vài ảnh đầu đã hiện
+                group.report(true, bodyFailure(r));
+                Log.e(TAG, op + " body failed", e);
+                group.lose(true, networkError, e);
+                return;
+            } catch (RuntimeException e) {
+                group.report(true, bodyFailure(r));
+                group.lose(true, parseError, e);
+                return;
+            }
+            // Chỉ báo thành công cho breaker khi đã đọc hết body
+            group.report(true, outcomeOf(r));
+            // Body không parse lại (ETag / hash trùng) thì không có next_page → lấy con trỏ đã nhớ
+            PageInfo cursor = sink.info != null ? sink.info : cursorOf(group.key, group.storePage);
+            group.remember(out, cursor);
+            if (!out.isEmpty()) {
+                group.win(true, out, cursor);
+            } else {
+                group.primaryEmpty();
+            }
+        }
 
-                    String link = o.optString("link", "");
-                    if (!link.isEmpty()) {
-                        String[] parts = link.split("/");
-                        if (parts.length >= 5) p.id = "fallback_" + parts[4];
-                    }
+        @Override
+        public void onFailure(Call<ResponseBody> call, Throwable t) {
+            // Bị huỷ: mọi caller đã huỷ handle, hoặc hedge đã thắng
+            if (call.isCanceled()) {
+                group.report(true, Outcome.IGNORED);
+                return;
+            }
+            // Bị chặn trên máy, chưa tới Pexels → không tính vào breaker
+            if (t instanceof RateLimitedException) {
+                group.report(true, Outcome.IGNORED);
+                group.primaryUnavailable(RATE_LIMITED_MESSAGE, t);
+                return;
+            }
+            group.report(true, Outcome.FAILURE);
+            Log.e(TAG, op + " failed: ", t);
+            group.lose(true, networkError, t);
+        }
+    }
 
-                    JSONObject media = o.optJSONObject("media");
-                    String url = media != null ? media.optString("m", "") : "";
+    /** Callback chung cho Flickr feed: parse stream, map lỗi mạng sang thông báo cho người dùng. */
+    private static final class FeedCallback implements Callback<ResponseBody> {
+        private final InFlight group;
 
-                    if (p.id == null || p.id.isEmpty()) {
-                        p.id = "fallback_" + Math.abs(url.hashCode());
-                    }
+        FeedCallback(InFlight group) {
+            this.group = group;
+        }
 
-                    p.title = o.optString("title", "");
-                    p.owner = o.optString("author", "");
-                    p.thumbUrl = url;
-                    p.fullUrl = url.replace("_m.jpg", "_b.jpg");
+        @Override
+        public void onResponse(Call<ResponseBody> call, Response<ResponseBody> r) {
+            if (!r.isSuccessful()) {
+                group.report(false, outcomeOf(r));
+                closeQuietly(r.errorBody());
+                group.lose(false, "Server returned HTTP " + r.code(), null);
+                return;
+            }
+            List<PhotoItem> out;
+            try {
+                long t0 = System.nanoTime();
+                out = parseToPhotos(r, PhotoParser::parseFeed, new ProgressSink(group, false));
+                NetworkTracer.recordParse(call.request(), System.nanoTime() - t0);
+            } catch (IOException | RuntimeException e) {
+                group.report(false, bodyFailure(r));
+                group.lose(false, "Error while loading fallback data.", e);
+                return;
+            }
+            group.report(false, outcomeOf(r));
+            group.secondaryResult(out);
+        }
 
-                    out.add(p);
-                }
+        @Override
+        public void onFailure(Call<ResponseBody> call, Throwable t) {
+            if (call.isCanceled()) {
+                group.report(false, Outcome.IGNORED);
+                return;
+            }
+            group.report(false, Outcome.FAILURE);
+            if (t instanceof SocketTimeoutException) {
+                group.lose(false, "Server not responding. Please try again later.", t);
+            } else if (t instanceof UnknownHostException) {
+                group.lose(false, "No internet connection. Please check your network.", t);
+            } else {
+                group.lose(false, "Error while loading fallback data.", t);
+            }
+        }
+    }
+
+    /** Theo status ({@link CircuitBreaker#outcomeOf}); response trả từ cache không nói gì về sức khoẻ backend. */
+    private static Outcome outcomeOf(Response<?> r) {
+        if (r.raw().networkResponse() == null) return Outcome.IGNORED;
+        return CircuitBreaker.outcomeOf(r.code());
+    }
+
+    /** Header 2xx đã về nhưng body hỏng: lỗi của backend, trừ khi body đọc từ cache. */
+    private static Outcome bodyFailure(Response<?> r) {
+        return r.raw().networkResponse() == null ? Outcome.IGNORED : Outcome.FAILURE;
+    }
+
+    // --------------------------------------
+    // Parser: stream thẳng từ body vào DTO (xem PhotoParser); nội dung không đổi → dùng lại kết quả cũ
+    // --------------------------------------
+    /**
+     * Body đọc không hết (mạng đứt giữa chừng) hoặc sai cú pháp → IOException; các ảnh đã giao qua
+     * progress không được coi là một trang hoàn chỉnh (thiếu ảnh sẽ bị hiểu là trang cuối).
+     */
+    private static List<PhotoItem> parseToPhotos(Response<ResponseBody> r, PhotoParser.Decoder decoder,
+                                                 ProgressSink sink) throws IOException {
+        return ParsedPageCache.parse(r.raw(), r.body(), decoder, sink);
+    }
+
+    /** Gom ảnh đang decode thành đợt cho {@link InFlight#emit}; phần còn lại đi cùng ok(). */
+    private static final class ProgressSink implements PhotoParser.ItemListener {
+        private final InFlight group;
+        private final boolean fromPrimary;
+        private int decoded;
+        private List<PhotoItem> batch = new ArrayList<>();
+        private boolean open = true;
+        private long lastFlush = SystemClock.uptimeMillis();
+        PageInfo info; // next_page của trang Pexels vừa parse
+
+        ProgressSink(InFlight group, boolean fromPrimary) {
+            this.group = group;
+            this.fromPrimary = fromPrimary;
+        }
+
+        @Override
+        public void onItem(PhotoItem item) {
+            decoded++;
+            if (!open) return;
+            batch.add(item);
+            int target = decoded == batch.size() ? PROGRESS_FIRST_BATCH : PROGRESS_BATCH;
+            long now = SystemClock.uptimeMillis();
+            if (batch.size() >= target || now - lastFlush >= PROGRESS_FLUSH_MS) {
+                // Đợt bị từ chối → ngừng hẳn, nếu không các đợt sau sẽ không còn là phần đầu của trang
+                open = group.emit(fromPrimary, batch);
+                batch = new ArrayList<>();
+                lastFlush = now;
             }
-        } catch (Exception e) {
-            Log.e(TAG, "JSON parse error", e);
         }
-        return out;
+
+        @Override
+        public void onPageInfo(PageInfo info) {
+            this.info = info;
+        }
+    }
+
+    private static void closeQuietly(ResponseBody body) {
+        if (body != null) body.close();
     }
 }
@@ -0,0 +1,81 @@
+package vn.edu.usth.flickrbrowser.core.api;
+
+import androidx.annotation.NonNull;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import okhttp3.Response;
+
+/**
+ * Bộ đếm hiệu quả của HTTP cache cho các trang feed.
+ *
+ * - hit: trả từ cache, không chạm mạng
+ * - conditionalHit: gửi conditional GET, server trả 304, dùng lại body trong cache
+ * - miss: tải body mới từ mạng
+ * - staleServed: trả bản cũ (stale-while-revalidate / stale-if-error)
+ * - parseSkips: nội dung không đổi (304 / cùng ETag / cùng hash) nên dùng lại List đã parse,
+ *   xem {@link ParsedPageCache}
+ */
+public final class HttpCacheStats {
+
+    private static final AtomicLong HITS = new AtomicLong();
+    private static final AtomicLong CONDITIONAL_HITS = new AtomicLong();
+    private static final AtomicLong MISSES = new AtomicLong();
+    private static final AtomicLong STALE_SERVED = new AtomicLong();
+
+    private HttpCacheStats() {}
+
+    /** Phân loại response theo cacheResponse / networkResponse mà OkHttp gắn vào. */
+    static Response record(Response res) {
+        boolean fromCache = res.cacheResponse() != null;
+        Response network = res.networkResponse();
+        if (fromCache && network == null) {
+            HITS.incrementAndGet();
+        } else if (fromCache && network.code() == 304) {
+            CONDITIONAL_HITS.incrementAndGet();
+        } else {
+            MISSES.incrementAndGet();
+        }
+        return res;
+    }
+
+    static void hit() { HITS.incrementAndGet(); }
+
+    static void staleServed() { STALE_SERVED.incrementAndGet(); }
+
+    public static long getHits() { return HITS.get(); }
+    public static long getConditionalHits() { return CONDITIONAL_HITS.get(); }
+    public static long getMisses() { return MISSES.get(); }
+    public static long getStaleServed() { return STALE_SERVED.get(); }
+
+    public static long getParseSkips() { return ParsedPageCache.getReusedCount(); }
+
+    /** Byte body không phải tải lại nhờ 304 Not Modified. */
+    public static long getBytesSaved() { return ParsedPageCache.getBytesSaved(); }
+
+    /** Thời gian parse (ms) tiết kiệm được nhờ dùng lại kết quả cũ. */
+    public static long getParseMillisSaved() { return ParsedPageCache.getParseMillisSaved(); }
+
+    /** Tỉ lệ request không phải tải lại body (hit + 304 + stale) trên tổng số. */
+    public static double getHitRatio() {
+        long saved = getHits() + getConditionalHits() + getStaleServed();
+        long total = saved + getMisses();
+        return total == 0 ? 0d : (double) saved / total;
+    }
+
+    public static void reset() {
+        HITS.set(0);
+        CONDITIONAL_HITS.set(0);
+        MISSES.set(0);
+        STALE_SERVED.set(0);
+    }
+
+    @NonNull
+    public static String summary() {
+        return "hits=" + getHits() + " conditional=" + getConditionalHits()
+                + " misses=" + getMisses() + " stale=" + getStaleServed()
+                + " ratio=" + String.format(java.util.Locale.US, "%.2f", getHitRatio())
+                + " parseSkips=" + getParseSkips() + " bytesSaved=" + getBytesSaved()
+                + " parseMsSaved=" + getParseMillisSaved();
+    }
+}
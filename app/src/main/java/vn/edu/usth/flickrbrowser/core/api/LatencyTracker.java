@@ -0,0 +1,37 @@
+package vn.edu.usth.flickrbrowser.core.api;
+
+import java.util.Arrays;
+
+/**
+ * Giữ N mẫu độ trễ gần nhất (ms) và tính percentile trên cửa sổ đó.
+ * Dùng để đặt deadline hedging theo độ trễ thực tế thay vì một con số cố định.
+ */
+final class LatencyTracker {
+
+    private final long[] samples;
+    private int next = 0;
+    private int size = 0;
+
+    LatencyTracker(int capacity) {
+        samples = new long[capacity];
+    }
+
+    synchronized void add(long ms) {
+        samples[next] = Math.max(0, ms);
+        next = (next + 1) % samples.length;
+        if (size < samples.length) size++;
+    }
+
+    synchronized int count() {
+        return size;
+    }
+
+    /** Percentile {@code p} (0..1) của các mẫu hiện có, -1 nếu chưa có mẫu nào. */
+    synchronized long percentile(double p) {
+        if (size == 0) return -1;
+        long[] sorted = Arrays.copyOf(samples, size);
+        Arrays.sort(sorted);
+        int idx = (int) Math.ceil(Math.max(0d, Math.min(1d, p)) * size) - 1;
+        return sorted[Math.max(0, idx)];
+    }
+}
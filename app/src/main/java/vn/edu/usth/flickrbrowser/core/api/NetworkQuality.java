@@ -0,0 +1,154 @@
+package vn.edu.usth.flickrbrowser.core.api;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.Locale;
+
+/**
+ * Ước lượng chất lượng mạng hiện tại (băng thông + RTT) và chính sách chọn kích thước trang /
+ * biến thể ảnh theo đó.
+ *
+ * - RTT: từ lúc gửi request header đến byte đầu của response ({@link NetworkTracer}), chỉ
+ *   response đi qua mạng (cache hit không có các event này).
+ * - Băng thông: byte body / thời gian tải body, chỉ lấy mẫu body đủ lớn, gồm cả ảnh của Glide
+ *   (Glide tải qua OkHttp của ApiClient).
+ * - Cả hai là trung bình trượt (EWMA) nên một request chậm không đổi tier ngay.
+ *
+ * Chưa có mẫu nào thì coi là {@link Tier#GOOD} (giữ kích thước mặc định). {@link #pin} cố định
+ * tier để thử trên máy thật / test. Thread-safe.
+ */
+public final class NetworkQuality {
+
+    public enum Tier { POOR, MODERATE, GOOD, EXCELLENT }
+
+    /** Mức chất lượng ảnh theo tier; {@link #imageScale()} là hệ số kích thước tương ứng. */
+    public enum Variant { SMALL, MEDIUM, LARGE }
+
+    // Body nhỏ hơn thế này chủ yếu là RTT, không nói gì về băng thông
+    static final long MIN_BANDWIDTH_SAMPLE_BYTES = 16 * 1024;
+    private static final double EMA_ALPHA = 0.25;
+
+    // Ngưỡng theo kbps / ms, tương tự các mức 2G / 3G / 4G / Wi-Fi
+    private static final double POOR_KBPS = 150, MODERATE_KBPS = 550, GOOD_KBPS = 2000;
+    private static final double POOR_RTT_MS = 1400, MODERATE_RTT_MS = 600, GOOD_RTT_MS = 150;
+
+    private static double kbps = -1;
+    private static double rttMs = -1;
+    private static long samples;
+    @Nullable
+    private static Tier pinned;
+
+    private NetworkQuality() {}
+
+    // --------------------------------------
+    // Mẫu đo
+    // --------------------------------------
+
+    public static synchronized void onRtt(long ms) {
+        if (ms < 0) return;
+        rttMs = rttMs < 0 ? ms : rttMs * (1 - EMA_ALPHA) + ms * EMA_ALPHA;
+        samples++;
+    }
+
+    /** Một body / ảnh tải xong qua mạng: {@code bytes} trong {@code ms} mili giây. */
+    public static synchronized void onDownload(long bytes, long ms) {
+        if (bytes < MIN_BANDWIDTH_SAMPLE_BYTES || ms <= 0) return;
+        double sample = bytes * 8d / ms; // bit/ms = kbit/s
+        kbps = kbps < 0 ? sample : kbps * (1 - EMA_ALPHA) + sample * EMA_ALPHA;
+        samples++;
+    }
+
+    // --------------------------------------
+    // Tier
+    // --------------------------------------
+
+    /** Cố định tier (null = bỏ cố định, quay về ước lượng). */
+    public static synchronized void pin(@Nullable Tier tier) {
+        pinned = tier;
+    }
+
+    @NonNull
+    public static synchronized Tier getTier() {
+        if (pinned != null) return pinned;
+        if (kbps < 0 && rttMs < 0) return Tier.GOOD;
+        // Lấy mức thấp hơn giữa băng thông và RTT: RTT cao vẫn làm trang đầu chậm dù băng thông rộng
+        Tier byBandwidth = kbps < 0 ? Tier.EXCELLENT
+                : kbps < POOR_KBPS ? Tier.POOR
+                : kbps < MODERATE_KBPS ? Tier.MODERATE
+                : kbps < GOOD_KBPS ? Tier.GOOD
+                : Tier.EXCELLENT;
+        Tier byRtt = rttMs < 0 ? Tier.EXCELLENT
+                : rttMs > POOR_RTT_MS ? Tier.POOR
+                : rttMs > MODERATE_RTT_MS ? Tier.MODERATE
+                : rttMs > GOOD_RTT_MS ? Tier.GOOD
+                : Tier.EXCELLENT;
+        return byBandwidth.ordinal() < byRtt.ordinal() ? byBandwidth : byRtt;
+    }
+
+    // --------------------------------------
+    // Chính sách
+    // --------------------------------------
+
+    /**
+     * Số ảnh mỗi trang cho màn hình có kích thước mặc định {@code base}: mạng yếu → trang nhỏ
+     * để trang đầu về sớm, mạng nhanh → trang lớn để ít request hơn. Luôn chẵn (grid 2 cột).
+     */
+    public static int perPage(int base) {
+        int n;
+        switch (getTier()) {
+            case POOR:      n = base / 2;     break;
+            case MODERATE:  n = base * 3 / 4; break;
+            case EXCELLENT: n = base * 3 / 2; break;
+            default:        n = base;
+        }
+        n = Math.max(4, n);
+        return n + (n & 1);
+    }
+
+    /** Biến thể nên load cho ảnh lớn (ảnh thumbnail của grid luôn là bản nhỏ). */
+    @NonNull
+    public static Variant imageVariant() {
+        switch (getTier()) {
+            case POOR:     return Variant.SMALL;
+            case MODERATE: return Variant.MEDIUM;
+            default:       return Variant.LARGE;
+        }
+    }
+
+    /**
+     * Hệ số nhân kích thước ảnh cần tải so với kích thước view: mạng yếu → tải ảnh nhỏ hơn,
+     * Glide phóng lên cho vừa view.
+     */
+    public static float imageScale() {
+        switch (imageVariant()) {
+            case SMALL:  return 0.5f;
+            case MEDIUM: return 0.75f;
+            default:     return 1f;
+        }
+    }
+
+    // --------------------------------------
+    // Thống kê
+    // --------------------------------------
+
+    /** Băng thông ước lượng (kbps), -1 nếu chưa có mẫu. */
+    public static synchronized double getBandwidthKbps() { return kbps; }
+
+    /** RTT ước lượng (ms), -1 nếu chưa có mẫu. */
+    public static synchronized double getRttMs() { return rttMs; }
+
+    @NonNull
+    public static synchronized String summary() {
+        return String.format(Locale.US, "NetworkQuality{tier=%s%s, bandwidth=%.0fkbps, rtt=%.0fms, samples=%d}",
+                getTier(), pinned != null ? " (pinned)" : "", kbps, rttMs, samples);
+    }
+
+    /** Xoá mọi mẫu và bỏ cố định (test). */
+    static synchronized void reset() {
+        kbps = -1;
+        rttMs = -1;
+        samples = 0;
+        pinned = null;
+    }
+}
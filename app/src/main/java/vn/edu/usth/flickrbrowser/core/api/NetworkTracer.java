@@ -0,0 +1,229 @@
+package vn.edu.usth.flickrbrowser.core.api;
+
+import androidx.annotation.NonNull;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.Call;
+import okhttp3.EventListener;
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * Ghi thời gian từng request vào một ring buffer trong bộ nhớ để màn debug đọc lại.
+ *
+ * Các mốc đo cho mỗi call:
+ * - queue: từ lúc enqueue đến khi Dispatcher thực sự chạy call
+ * - ttfb: từ lúc chạy đến khi nhận byte đầu của response header (gồm DNS/connect/TLS)
+ * - download: từ cuối header đến khi đọc xong body
+ * - parse: FlickrRepo báo lại qua {@link #recordParse}. Body được parse dạng stream nên
+ *   download và parse chồng lên nhau, parse là thời gian thật của PhotoParser.
+ */
+public final class NetworkTracer {
+
+    private static final int CAPACITY = 64;
+
+    private static final Trace[] RING = new Trace[CAPACITY];
+    private static int next = 0;
+    private static int size = 0;
+
+    // Trace của các call đang chạy, xoá khi callEnd/callFailed
+    private static final Map<Call, Trace> ACTIVE = new ConcurrentHashMap<>();
+
+    private NetworkTracer() {}
+
+    /** Một dòng trong ring buffer. Thời gian tính bằng ms, -1 nếu không đo được. */
+    public static final class Trace {
+        public final String method;
+        public final String url;
+        public final long startedAt; // System.currentTimeMillis()
+        volatile int code = -1;
+        volatile long queueMs = -1;
+        volatile long ttfbMs = -1;
+        volatile long downloadMs = -1;
+        volatile long parseMs = -1;
+        volatile long bytes = -1;
+        volatile boolean failed;
+
+        // mốc nanoTime nội bộ
+        final Request request;
+        final long enqueuedNs;
+        volatile long dispatchedNs;
+        volatile long requestHeadersStartNs;
+        volatile long headersStartNs;
+        volatile long headersEndNs;
+
+        Trace(Request request) {
+            this.request = request;
+            this.method = request.method();
+            this.url = request.url().toString();
+            this.startedAt = System.currentTimeMillis();
+            this.enqueuedNs = System.nanoTime();
+        }
+
+        public int getCode() { return code; }
+        public long getQueueMs() { return queueMs; }
+        public long getTtfbMs() { return ttfbMs; }
+        public long getDownloadMs() { return downloadMs; }
+        public long getParseMs() { return parseMs; }
+        public long getBytes() { return bytes; }
+        public boolean isFailed() { return failed; }
+
+        @NonNull
+        @Override
+        public String toString() {
+            return method + " " + url + " code=" + code
+                    + " queue=" + queueMs + "ms ttfb=" + ttfbMs + "ms download=" + downloadMs
+                    + "ms parse=" + parseMs + "ms bytes=" + bytes + (failed ? " FAILED" : "");
+        }
+    }
+
+    // --------------------------------------
+    // Hook vào OkHttpClient (xem ApiClient)
+    // --------------------------------------
+
+    public static EventListener.Factory eventListenerFactory() {
+        return call -> new Listener(call);
+    }
+
+    /** Application interceptor đầu tiên: đánh dấu lúc call rời hàng đợi của Dispatcher. */
+    public static Interceptor dispatchMarker() {
+        return chain -> {
+            Trace t = ACTIVE.get(chain.call());
+            if (t != null && t.dispatchedNs == 0L) {
+                t.dispatchedNs = System.nanoTime();
+                t.queueMs = ms(t.dispatchedNs - t.enqueuedNs);
+            }
+            return chain.proceed(chain.request());
+        };
+    }
+
+    // --------------------------------------
+    // API cho FlickrRepo / màn debug
+    // --------------------------------------
+
+    /** Gắn thời gian parse cho request gốc (Call.request() của Retrofit). */
+    public static void recordParse(Request request, long parseNanos) {
+        if (request == null) return;
+        synchronized (RING) {
+            for (int i = 0; i < size; i++) {
+                Trace t = RING[(next - 1 - i + CAPACITY) % CAPACITY];
+                if (t.request == request) {
+                    t.parseMs = ms(parseNanos);
+                    return;
+                }
+            }
+        }
+        for (Trace t : ACTIVE.values()) {
+            if (t.request == request) {
+                t.parseMs = ms(parseNanos);
+                return;
+            }
+        }
+    }
+
+    /** Bản sao các trace gần nhất, mới nhất đứng đầu. */
+    public static List<Trace> snapshot() {
+        synchronized (RING) {
+            List<Trace> out = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                out.add(RING[(next - 1 - i + CAPACITY) % CAPACITY]);
+            }
+            return out;
+        }
+    }
+
+    public static void clear() {
+        synchronized (RING) {
+            for (int i = 0; i < CAPACITY; i++) RING[i] = null;
+            next = 0;
+            size = 0;
+        }
+    }
+
+    // ===== private helpers =====
+
+    private static void push(Trace t) {
+        synchronized (RING) {
+            RING[next] = t;
+            next = (next + 1) % CAPACITY;
+            if (size < CAPACITY) size++;
+        }
+    }
+
+    private static long ms(long nanos) {
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+
+    private static final class Listener extends EventListener {
+        private final Call call;
+
+        Listener(Call call) {
+            this.call = call;
+        }
+
+        @Override
+        public void callStart(@NonNull Call call) {
+            ACTIVE.put(call, new Trace(call.request()));
+        }
+
+        @Override
+        public void requestHeadersStart(@NonNull Call call) {
+            Trace t = ACTIVE.get(call);
+            if (t != null) t.requestHeadersStartNs = System.nanoTime();
+        }
+
+        @Override
+        public void responseHeadersStart(@NonNull Call call) {
+            Trace t = ACTIVE.get(call);
+            if (t == null) return;
+            t.headersStartNs = System.nanoTime();
+            long from = t.dispatchedNs != 0L ? t.dispatchedNs : t.enqueuedNs;
+            t.ttfbMs = ms(t.headersStartNs - from);
+            // RTT cho NetworkQuality: không tính DNS / connect / TLS của kết nối mới
+            if (t.requestHeadersStartNs != 0L) NetworkQuality.onRtt(ms(t.headersStartNs - t.requestHeadersStartNs));
+        }
+
+        @Override
+        public void responseHeadersEnd(@NonNull Call call, @NonNull Response response) {
+            Trace t = ACTIVE.get(call);
+            if (t == null) return;
+            t.headersEndNs = System.nanoTime();
+            t.code = response.code();
+        }
+
+        @Override
+        public void responseBodyEnd(@NonNull Call call, long byteCount) {
+            Trace t = ACTIVE.get(call);
+            if (t == null) return;
+            t.bytes = byteCount;
+            if (t.headersEndNs != 0L) {
+                t.downloadMs = ms(System.nanoTime() - t.headersEndNs);
+                NetworkQuality.onDownload(byteCount, t.downloadMs);
+            }
+        }
+
+        @Override
+        public void callEnd(@NonNull Call call) {
+            finish(false);
+        }
+
+        @Override
+        public void callFailed(@NonNull Call call, @NonNull IOException ioe) {
+            finish(true);
+        }
+
+        private void finish(boolean failed) {
+            Trace t = ACTIVE.remove(call);
+            if (t == null) return;
+            t.failed = failed;
+            push(t);
+        }
+    }
+}
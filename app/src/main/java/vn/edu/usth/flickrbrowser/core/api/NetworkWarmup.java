@@ -0,0 +1,76 @@
+package vn.edu.usth.flickrbrowser.core.api;
+
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import java.io.IOException;
+
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.HttpUrl;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import vn.edu.usth.flickrbrowser.BuildConfig;
+
+/**
+ * Warm-up mạng lúc khởi động, chạy song song với lúc UI inflate:
+ * resolve DNS rồi mở sẵn kết nối TCP + TLS tới Pexels API và host ảnh, để request
+ * {@code curated} đầu tiên và ảnh đầu tiên không phải trả lại chi phí đó.
+ *
+ * Kết nối được mở bằng một HEAD request nhỏ qua client của Glide ({@link ApiClient#getImageClient()}):
+ * không có interceptor của API nên HEAD không mang API key, không tốn token quota và không vào
+ * HTTP cache; client đó dùng chung connection pool nên kết nối vẫn sẵn cho request API.
+ */
+public final class NetworkWarmup {
+
+    private static final String TAG = "NetworkWarmup";
+    static final String IMAGES_HOST = "images.pexels.com";
+
+    private NetworkWarmup() {}
+
+    /** Chạy warm-up trên một background thread; trả về ngay. */
+    public static void start() {
+        Thread t = new Thread(NetworkWarmup::run, "net-warmup");
+        t.setDaemon(true);
+        t.setPriority(Thread.NORM_PRIORITY - 1);
+        t.start();
+    }
+
+    private static void run() {
+        long t0 = SystemClock.uptimeMillis();
+        HttpUrl api = HttpUrl.get(BuildConfig.PEXELS_BASE_URL);
+        HttpUrl images = new HttpUrl.Builder().scheme("https").host(IMAGES_HOST).build();
+
+        // Dựng cả hai client (class loading, SSL context) ngoài main thread
+        OkHttpClient client = ApiClient.getImageClient();
+        CachingDns dns = ApiClient.getDns();
+        dns.prefetch(api.host());
+        dns.prefetch(IMAGES_HOST);
+        Log.d(TAG, "DNS warmed in " + (SystemClock.uptimeMillis() - t0) + "ms");
+
+        preconnect(client, api.resolve("/"), t0);
+        preconnect(client, images, t0);
+    }
+
+    private static void preconnect(OkHttpClient client, HttpUrl url, long t0) {
+        Request req = new Request.Builder()
+                .url(url)
+                .head()
+                .build();
+        client.newCall(req).enqueue(new Callback() {
+            @Override
+            public void onResponse(@NonNull Call call, @NonNull Response response) {
+                response.close();
+                Log.d(TAG, "Connected " + url.host() + " in " + (SystemClock.uptimeMillis() - t0) + "ms");
+            }
+
+            @Override
+            public void onFailure(@NonNull Call call, @NonNull IOException e) {
+                Log.w(TAG, "Pre-connect failed for " + url.host(), e);
+            }
+        });
+    }
+}
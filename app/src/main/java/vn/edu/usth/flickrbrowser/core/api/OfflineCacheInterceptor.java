@@ -0,0 +1,147 @@
+package vn.edu.usth.flickrbrowser.core.api;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.Call;
+import okhttp3.CacheControl;
+import okhttp3.Callback;
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+import okio.Okio;
+import vn.edu.usth.flickrbrowser.core.util.NetUtils;
+
+/**
+ * Application interceptor cho các trang feed (xem {@link CacheControlInterceptor#maxAgeFor}):
+ *
+ * - stale-while-revalidate: nếu cache có bản cũ trong cửa sổ SWR thì trả ngay,
+ *   đồng thời revalidate (conditional GET) ở background để lần sau có bản mới.
+ * - stale-if-error: mất mạng, lỗi IO hoặc 5xx → trả bản cache cũ (tối đa STALE_IF_ERROR_S).
+ *
+ * Đồng thời đếm hit / miss / conditional hit vào {@link HttpCacheStats}.
+ * Request đã tự đặt Cache-Control (vd. revalidate nền) được cho đi thẳng.
+ */
+public class OfflineCacheInterceptor implements Interceptor {
+
+    private static final String TAG = "HttpCache";
+
+    private final Context appContext;
+
+    public OfflineCacheInterceptor(@NonNull Context context) {
+        this.appContext = context.getApplicationContext();
+    }
+
+    @NonNull
+    @Override
+    public Response intercept(@NonNull Chain chain) throws IOException {
+        Request req = chain.request();
+        // HEAD (warm-up kết nối) không liên quan tới cache
+        if (!"GET".equals(req.method())) return chain.proceed(req);
+        boolean refresh = req.cacheControl().noCache();
+        if (CacheControlInterceptor.maxAgeFor(req) <= 0 || (req.header("Cache-Control") != null && !refresh)) {
+            return HttpCacheStats.record(chain.proceed(req));
+        }
+
+        boolean online = NetUtils.hasNetwork(appContext);
+
+        // 1) Thử cache trước: bản tươi, hoặc bản cũ còn trong cửa sổ SWR (offline: stale-if-error).
+        //    Refresh (no-cache) bỏ bước này: đi mạng bằng conditional GET, lỗi thì vẫn stale-if-error.
+        if (!refresh) {
+            Response cached = cachedOrNull(chain, req, online);
+            if (cached != null) return cached;
+        }
+
+        // 2) Đi mạng (OkHttp tự gửi If-None-Match nếu có bản cache hết hạn)
+        Response res;
+        try {
+            res = chain.proceed(req);
+        } catch (IOException e) {
+            if (chain.call().isCanceled()) throw e;
+            Response stale = staleIfError(chain, req);
+            if (stale == null) throw e;
+            Log.w(TAG, "Serving stale page after network error: " + req.url(), e);
+            return stale;
+        }
+
+        if (res.code() >= 500) {
+            Response stale = staleIfError(chain, req);
+            if (stale != null) {
+                res.close();
+                return stale;
+            }
+        }
+        return HttpCacheStats.record(res);
+    }
+
+    /** Bản cache tươi, hoặc bản cũ trong cửa sổ SWR (kèm revalidate nền); null nếu không có. */
+    private Response cachedOrNull(Chain chain, Request req, boolean online) throws IOException {
+        Response cached = chain.proceed(onlyIfCached(req,
+                online ? CacheControlInterceptor.STALE_WHILE_REVALIDATE_S
+                       : CacheControlInterceptor.STALE_IF_ERROR_S));
+        if (cached.code() == 504) {
+            cached.close();
+            return null;
+        }
+        if (isStale(cached)) {
+            HttpCacheStats.staleServed();
+            if (online) revalidateInBackground(req);
+        } else {
+            HttpCacheStats.hit();
+        }
+        return cached;
+    }
+
+    private static Request onlyIfCached(Request req, int maxStaleSeconds) {
+        return req.newBuilder()
+                .cacheControl(new CacheControl.Builder()
+                        .onlyIfCached()
+                        .maxStale(maxStaleSeconds, TimeUnit.SECONDS)
+                        .build())
+                .build();
+    }
+
+    private static Response staleIfError(Chain chain, Request req) throws IOException {
+        Response stale = chain.proceed(onlyIfCached(req, CacheControlInterceptor.STALE_IF_ERROR_S));
+        if (stale.code() == 504) {
+            stale.close();
+            return null;
+        }
+        HttpCacheStats.staleServed();
+        return stale;
+    }
+
+    // OkHttp gắn "Warning: 110 ..." khi trả response đã quá max-age
+    private static boolean isStale(Response res) {
+        String warning = res.header("Warning");
+        return warning != null && warning.startsWith("110");
+    }
+
+    private static void revalidateInBackground(Request req) {
+        Request revalidate = req.newBuilder()
+                .cacheControl(new CacheControl.Builder().maxAge(0, TimeUnit.SECONDS).build())
+                .tag(RequestPriority.class, RequestPriority.PREFETCH)
+                .build();
+        ApiClient.getHttpClient().newCall(revalidate).enqueue(new Callback() {
+            @Override
+            public void onResponse(@NonNull Call call, @NonNull Response response) {
+                // Phải đọc hết body thì OkHttp mới ghi bản mới vào cache
+                try (Response r = response) {
+                    if (r.body() != null) r.body().source().readAll(Okio.blackhole());
+                } catch (IOException e) {
+                    Log.w(TAG, "Background revalidation aborted: " + call.request().url(), e);
+                }
+            }
+
+            @Override
+            public void onFailure(@NonNull Call call, @NonNull IOException e) {
+                Log.w(TAG, "Background revalidation failed: " + call.request().url(), e);
+            }
+        });
+    }
+}
@@ -0,0 +1,77 @@
+package vn.edu.usth.flickrbrowser.core.api;
+
+import androidx.annotation.NonNull;
+
+import java.util.Locale;
+
+import vn.edu.usth.flickrbrowser.core.api.dto.PexelsPage;
+
+/**
+ * Con trỏ phân trang của một trang ảnh: trang kế tiếp theo {@code next_page} của Pexels.
+ *
+ * Flickr feed (fallback) và các trang lưu từ trước khi có con trỏ không báo trang sau
+ * ({@link #isKnown()} = false); khi đó {@link #hasNext(int, int)} đoán theo số ảnh của trang.
+ */
+public final class PageInfo {
+
+    public static final int UNKNOWN = -1;
+
+    public final int page;
+    /** Trang kế tiếp; 0 = đây là trang cuối; {@link #UNKNOWN} = backend không báo. */
+    public final int nextPage;
+    /** Tổng số ảnh khớp query; {@link #UNKNOWN} nếu không rõ. */
+    public final int totalResults;
+
+    public PageInfo(int page, int nextPage, int totalResults) {
+        this.page = page;
+        this.nextPage = nextPage;
+        this.totalResults = totalResults;
+    }
+
+    @NonNull
+    public static PageInfo unknown(int page) {
+        return new PageInfo(page, UNKNOWN, UNKNOWN);
+    }
+
+    /** {@code next_page} là URL ("...?page=3&per_page=12"); lấy số trang trong đó, không được thì page + 1. */
+    @NonNull
+    public static PageInfo of(@NonNull PexelsPage p) {
+        int next = 0;
+        if (p.hasNextPage()) {
+            next = queryInt(p.nextPage, "page");
+            if (next <= p.page) next = p.page + 1;
+        }
+        return new PageInfo(p.page, next, p.totalResults);
+    }
+
+    public boolean isKnown() {
+        return nextPage != UNKNOWN;
+    }
+
+    /** Còn trang sau không; không có con trỏ thì coi trang thiếu ảnh là trang cuối. */
+    public boolean hasNext(int itemCount, int perPage) {
+        if (isKnown()) return nextPage > 0;
+        return itemCount >= perPage;
+    }
+
+    static int queryInt(String url, String name) {
+        int q = url.indexOf('?');
+        if (q < 0) return 0;
+        for (String pair : url.substring(q + 1).split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq <= 0 || !pair.substring(0, eq).equals(name)) continue;
+            try {
+                return Integer.parseInt(pair.substring(eq + 1));
+            } catch (NumberFormatException e) {
+                return 0;
+            }
+        }
+        return 0;
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return String.format(Locale.US, "PageInfo{page=%d, next=%d, total=%d}", page, nextPage, totalResults);
+    }
+}
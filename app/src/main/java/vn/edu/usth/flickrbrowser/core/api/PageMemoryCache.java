@@ -0,0 +1,216 @@
+package vn.edu.usth.flickrbrowser.core.api;
+
+import androidx.annotation.NonNull;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import vn.edu.usth.flickrbrowser.core.model.PhotoItem;
+
+/**
+ * Cache trong bộ nhớ cho các trang ảnh đã parse, được {@link FlickrRepo} tra trước mọi network call.
+ *
+ * - Key: endpoint + query đã chuẩn hoá ({@link #normalizeQuery}) + page + perPage.
+ * - Giới hạn theo số byte ước lượng của các PhotoItem; vượt giới hạn → bỏ trang dùng lâu nhất (LRU).
+ * - Trang quá TTL coi như không có (bị xoá khi tra tới hoặc khi dọn chỗ).
+ *
+ * List được lưu là bản chỉ đọc, trả nguyên cho mọi caller. Thread-safe.
+ */
+public class PageMemoryCache {
+
+    // Ước lượng kích thước: header object + các field tham chiếu của PhotoItem, mỗi String ~40 byte + 2 byte/ký tự
+    private static final int ITEM_OVERHEAD = 96;
+    private static final int STRING_OVERHEAD = 40;
+    private static final int ENTRY_OVERHEAD = 128;
+
+    private static final class Entry {
+        final List<PhotoItem> items;
+        final long bytes;
+        final long storedAt;
+
+        Entry(List<PhotoItem> items, long bytes, long storedAt) {
+            this.items = items;
+            this.bytes = bytes;
+            this.storedAt = storedAt;
+        }
+    }
+
+    private final long maxBytes;
+    private final long ttlMs;
+    private final LongSupplier clock; // ms, đơn điệu
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(32, 0.75f, true);
+    private long sizeBytes;
+
+    private long hits, misses, evictions, expirations;
+
+    public PageMemoryCache(long maxBytes, long ttl, @NonNull TimeUnit unit) {
+        this(maxBytes, ttl, unit, PageMemoryCache::systemNow);
+    }
+
+    /** @param clock thời gian (ms, đơn điệu) cho TTL; test dùng đồng hồ giả */
+    PageMemoryCache(long maxBytes, long ttl, @NonNull TimeUnit unit, @NonNull LongSupplier clock) {
+        this.maxBytes = maxBytes;
+        this.ttlMs = unit.toMillis(ttl);
+        this.clock = clock;
+    }
+
+    /** Key cho một trang: {@code endpoint|query chuẩn hoá|page|perPage}. */
+    @NonNull
+    public static String key(@NonNull String endpoint, String query, int page, int perPage) {
+        return endpoint + "|" + normalizeQuery(query) + "|" + page + "|" + perPage;
+    }
+
+    /** "  Sunset   Beach " → "sunset beach": trim, chữ thường, gộp khoảng trắng. */
+    @NonNull
+    public static String normalizeQuery(String query) {
+        if (query == null) return "";
+        String q = query.trim();
+        if (q.isEmpty()) return "";
+        return q.toLowerCase(Locale.ROOT).replaceAll("\\s+", " ");
+    }
+
+    /**
+     * Như {@link #get(String)}, nhưng refresh (pull-to-refresh) luôn trả null để caller đi network;
+     * không tính là miss. Trang mới sẽ thay trang cũ qua {@link #put}.
+     */
+    public List<PhotoItem> get(@NonNull String key, boolean refresh) {
+        return refresh ? null : get(key);
+    }
+
+    /** Trang còn hạn, hoặc null (tính là miss). */
+    public synchronized List<PhotoItem> get(@NonNull String key) {
+        Entry e = entries.get(key);
+        if (e != null && isExpired(e, now())) {
+            remove(key, e);
+            expirations++;
+            e = null;
+        }
+        if (e == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        return e.items;
+    }
+
+    /** Lưu trang (bỏ qua trang rỗng và trang lớn hơn cả cache). */
+    public synchronized void put(@NonNull String key, @NonNull List<PhotoItem> items) {
+        if (items.isEmpty()) return;
+        long bytes = estimateBytes(items);
+        if (bytes > maxBytes) return;
+
+        Entry old = entries.remove(key);
+        if (old != null) sizeBytes -= old.bytes;
+        entries.put(key, new Entry(items, bytes, now()));
+        sizeBytes += bytes;
+        trim();
+    }
+
+    public synchronized void invalidate(@NonNull String key) {
+        Entry e = entries.get(key);
+        if (e != null) remove(key, e);
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        sizeBytes = 0;
+    }
+
+    // --------------------------------------
+    // Thống kê
+    // --------------------------------------
+
+    public synchronized long getHitCount() { return hits; }
+
+    public synchronized long getMissCount() { return misses; }
+
+    /** hits / (hits + misses); 0 khi chưa có lần tra nào. */
+    public synchronized double getHitRatio() {
+        long total = hits + misses;
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    /** Số trang bị bỏ để giữ tổng kích thước dưới giới hạn. */
+    public synchronized long getEvictionCount() { return evictions; }
+
+    /** Số trang bị bỏ vì quá TTL. */
+    public synchronized long getExpiredCount() { return expirations; }
+
+    public synchronized long getSizeBytes() { return sizeBytes; }
+
+    public synchronized int getEntryCount() { return entries.size(); }
+
+    @NonNull
+    @Override
+    public synchronized String toString() {
+        return String.format(Locale.US,
+                "PageMemoryCache{entries=%d, size=%dKB/%dKB, hitRatio=%.2f, evictions=%d, expired=%d}",
+                entries.size(), sizeBytes / 1024, maxBytes / 1024, getHitRatio(), evictions, expirations);
+    }
+
+    // --------------------------------------
+    // Nội bộ
+    // --------------------------------------
+
+    /** Bỏ trang hết hạn trước, sau đó bỏ theo LRU tới khi đủ chỗ. */
+    private void trim() {
+        if (sizeBytes <= maxBytes) return;
+        long now = now();
+        for (Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator(); it.hasNext(); ) {
+            Entry e = it.next().getValue();
+            if (isExpired(e, now)) {
+                it.remove();
+                sizeBytes -= e.bytes;
+                expirations++;
+            }
+        }
+        for (Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+             it.hasNext() && sizeBytes > maxBytes; ) {
+            Entry e = it.next().getValue();
+            it.remove();
+            sizeBytes -= e.bytes;
+            evictions++;
+        }
+    }
+
+    private void remove(String key, Entry e) {
+        entries.remove(key);
+        sizeBytes -= e.bytes;
+    }
+
+    private boolean isExpired(Entry e, long now) {
+        return now - e.storedAt >= ttlMs;
+    }
+
+    /** Số byte ước lượng của một trang; FeedStore dùng lại để giới hạn dung lượng trên disk. */
+    public static long estimateBytes(List<PhotoItem> items) {
+        long bytes = ENTRY_OVERHEAD;
+        for (PhotoItem p : items) {
+            bytes += ITEM_OVERHEAD
+                    + stringBytes(p.id) + stringBytes(p.server) + stringBytes(p.secret)
+                    + stringBytes(p.title) + stringBytes(p.owner) + stringBytes(p.thumbUrl)
+                    + stringBytes(p.fullUrl) + stringBytes(p.pageUrl) + stringBytes(p.avgColor)
+                    // mediumUrl / large2xUrl là cùng String với thumbUrl / fullUrl
+                    + stringBytes(p.tinyUrl) + stringBytes(p.smallUrl) + stringBytes(p.largeUrl)
+                    + stringBytes(p.originalUrl);
+        }
+        return bytes;
+    }
+
+    private static long stringBytes(String s) {
+        return s == null ? 0 : STRING_OVERHEAD + 2L * s.length();
+    }
+
+    private long now() {
+        return clock.getAsLong();
+    }
+
+    private static long systemNow() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime());
+    }
+}
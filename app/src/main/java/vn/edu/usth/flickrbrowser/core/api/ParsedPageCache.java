@@ -0,0 +1,216 @@
+package vn.edu.usth.flickrbrowser.core.api;
+
+import androidx.annotation.NonNull;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import okhttp3.MediaType;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import okio.BufferedSource;
+import okio.ByteString;
+import okio.ForwardingSource;
+import okio.HashingSource;
+import okio.Okio;
+import okio.Source;
+import vn.edu.usth.flickrbrowser.core.model.PhotoItem;
+
+/**
+ * Nhớ kết quả parse của các trang feed theo URL + validator, để không parse lại nội dung
+ * không đổi.
+ *
+ * - Có ETag / Last-Modified: validator trùng với lần parse trước (304 qua conditional GET,
+ *   cache hit, hoặc 200 cùng ETag) → bỏ qua {@link PhotoParser}, dùng lại List cũ.
+ * - Không có validator: parse thẳng từ luồng tải, SHA-256 tính trên cùng luồng đó; hash trùng
+ *   → trả lại List cũ (không tiết kiệm thời gian parse, chỉ giữ nguyên trang).
+ *
+ * Thống kê byte không phải tải (304) và thời gian parse tiết kiệm được.
+ */
+final class ParsedPageCache {
+
+    private static final int MAX_ENTRIES = 64;
+
+    private static final class Entry {
+        final String validator;
+        final ByteString hash;
+        final List<PhotoItem> items;
+        final long bodyBytes;
+        final long parseNanos;
+
+        Entry(String validator, ByteString hash, List<PhotoItem> items, long bodyBytes, long parseNanos) {
+            this.validator = validator;
+            this.hash = hash;
+            this.items = items;
+            this.bodyBytes = bodyBytes;
+            this.parseNanos = parseNanos;
+        }
+    }
+
+    private static final Map<String, Entry> ENTRIES = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+
+    private static final AtomicLong REUSED = new AtomicLong();
+    private static final AtomicLong BYTES_SAVED = new AtomicLong();
+    private static final AtomicLong PARSE_NANOS_SAVED = new AtomicLong();
+
+    private ParsedPageCache() {}
+
+    /**
+     * Trả về danh sách ảnh của {@code raw}; body luôn được đóng.
+     * List trả về là bản chỉ đọc, có thể được chia sẻ giữa nhiều response.
+     * {@code listener} chỉ được gọi khi body thực sự được parse (không gọi khi dùng lại List cũ).
+     */
+    static List<PhotoItem> parse(@NonNull Response raw, ResponseBody body,
+                                 @NonNull PhotoParser.Decoder decoder,
+                                 PhotoParser.ItemListener listener) throws IOException {
+        if (body == null) return new ArrayList<>();
+        String key = raw.request().url().toString();
+        Entry previous = get(key);
+        String validator = validatorOf(raw);
+
+        try {
+            if (validator != null) {
+                if (previous != null && validator.equals(previous.validator)) {
+                    boolean notModified = raw.networkResponse() != null && raw.networkResponse().code() == 304;
+                    if (raw.networkResponse() != null && !notModified) {
+                        // 200 cùng ETag: body đã về, đọc hết để giữ kết nối + cache, chỉ bỏ parse
+                        body.source().readAll(Okio.blackhole());
+                    }
+                    return reuse(previous, notModified);
+                }
+                return parseStreaming(key, validator, body, decoder, listener);
+            }
+            return parseHashed(key, previous, body, decoder, listener);
+        } finally {
+            body.close();
+        }
+    }
+
+    private static List<PhotoItem> parseStreaming(String key, String validator, ResponseBody body,
+                                                  PhotoParser.Decoder decoder,
+                                                  PhotoParser.ItemListener listener) throws IOException {
+        CountingSource counting = new CountingSource(body.source());
+        long t0 = System.nanoTime();
+        List<PhotoItem> items = decode(Okio.buffer(counting), body, decoder, listener);
+        long parseNanos = System.nanoTime() - t0;
+        return put(key, new Entry(validator, null, freeze(items), counting.count, parseNanos));
+    }
+
+    /**
+     * Không có validator: parse ngay trong lúc tải (listener vẫn nhận item dần dần), SHA-256
+     * được tính trên chính luồng byte decoder đọc. Hash trùng lần trước → trả List cũ để phía
+     * gọi thấy đúng cùng một trang; thời gian parse không tiết kiệm được nên không tính vào
+     * thống kê.
+     */
+    private static List<PhotoItem> parseHashed(String key, Entry previous, ResponseBody body,
+                                               PhotoParser.Decoder decoder,
+                                               PhotoParser.ItemListener listener) throws IOException {
+        HashingSource hashing = HashingSource.sha256(body.source());
+        CountingSource counting = new CountingSource(hashing);
+        BufferedSource source = Okio.buffer(counting);
+        long t0 = System.nanoTime();
+        // JsonReader đóng cả chuỗi source khi xong → decoder nhận bản không đóng được
+        List<PhotoItem> items = decode(Okio.buffer(new KeepOpenSource(source)), body, decoder, listener);
+        long parseNanos = System.nanoTime() - t0;
+        // Decoder có thể dừng trước khi hết body (khoảng trắng cuối) → đọc nốt để hash đủ;
+        // byte còn nằm trong buffer của decoder đã đi qua HashingSource
+        source.readAll(Okio.blackhole());
+        ByteString hash = hashing.hash();
+        if (previous != null && hash.equals(previous.hash)) return previous.items;
+        return put(key, new Entry(null, hash, freeze(items), counting.count, parseNanos));
+    }
+
+    private static List<PhotoItem> decode(BufferedSource source, ResponseBody body,
+                                          PhotoParser.Decoder decoder,
+                                          PhotoParser.ItemListener listener) throws IOException {
+        return decoder.decode(new InputStreamReader(source.inputStream(), charset(body)), listener);
+    }
+
+    /** Đếm byte body đã đọc qua. */
+    private static final class CountingSource extends ForwardingSource {
+        long count;
+
+        CountingSource(Source delegate) { super(delegate); }
+
+        @Override
+        public long read(@NonNull Buffer sink, long byteCount) throws IOException {
+            long n = super.read(sink, byteCount);
+            if (n > 0) count += n;
+            return n;
+        }
+    }
+
+    /** Bỏ qua close() của decoder; body vẫn được đóng ở {@link #parse}. */
+    private static final class KeepOpenSource extends ForwardingSource {
+        KeepOpenSource(Source delegate) { super(delegate); }
+
+        @Override
+        public void close() {}
+    }
+
+    private static List<PhotoItem> reuse(Entry e, boolean notModified) {
+        REUSED.incrementAndGet();
+        PARSE_NANOS_SAVED.addAndGet(e.parseNanos);
+        if (notModified) BYTES_SAVED.addAndGet(e.bodyBytes);
+        return e.items;
+    }
+
+    private static String validatorOf(Response raw) {
+        String etag = raw.header("ETag");
+        if (etag != null && !etag.isEmpty()) return "etag:" + etag;
+        String lastModified = raw.header("Last-Modified");
+        if (lastModified != null && !lastModified.isEmpty()) return "lm:" + lastModified;
+        return null;
+    }
+
+    private static Charset charset(ResponseBody body) {
+        MediaType type = body.contentType();
+        Charset cs = type == null ? null : type.charset();
+        return cs != null ? cs : StandardCharsets.UTF_8;
+    }
+
+    private static List<PhotoItem> freeze(List<PhotoItem> items) {
+        return Collections.unmodifiableList(new ArrayList<>(items));
+    }
+
+    private static synchronized Entry get(String key) {
+        return ENTRIES.get(key);
+    }
+
+    private static synchronized List<PhotoItem> put(String key, Entry e) {
+        // Trang rỗng không được nhớ: FlickrRepo còn chuyển sang fallback cho trường hợp đó
+        if (!e.items.isEmpty()) ENTRIES.put(key, e);
+        return e.items;
+    }
+
+    // --------------------------------------
+    // Thống kê
+    // --------------------------------------
+
+    /** Số lần dùng lại List đã parse thay vì parse lại. */
+    static long getReusedCount() { return REUSED.get(); }
+
+    /** Byte body không phải tải nhờ 304 Not Modified. */
+    static long getBytesSaved() { return BYTES_SAVED.get(); }
+
+    /** Tổng thời gian parse (ms) tiết kiệm được. */
+    static long getParseMillisSaved() { return PARSE_NANOS_SAVED.get() / 1_000_000; }
+
+    static synchronized void clear() {
+        ENTRIES.clear();
+    }
+}
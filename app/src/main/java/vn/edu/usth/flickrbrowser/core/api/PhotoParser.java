@@ -0,0 +1,164 @@
+package vn.edu.usth.flickrbrowser.core.api;
+
+import com.google.gson.JsonParseException;
+import com.google.gson.stream.JsonReader;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+import vn.edu.usth.flickrbrowser.core.api.dto.ApiReaders;
+import vn.edu.usth.flickrbrowser.core.api.dto.FlickrFeed;
+import vn.edu.usth.flickrbrowser.core.api.dto.FlickrFeedItem;
+import vn.edu.usth.flickrbrowser.core.api.dto.PexelsPage;
+import vn.edu.usth.flickrbrowser.core.api.dto.PexelsPhoto;
+import vn.edu.usth.flickrbrowser.core.api.dto.PexelsSrc;
+import vn.edu.usth.flickrbrowser.core.image.ImageUrlResolver;
+import vn.edu.usth.flickrbrowser.core.model.PhotoItem;
+
+/**
+ * Streaming parser cho response của Pexels ({@link PexelsPage}) và Flickr public feed ({@link FlickrFeed}).
+ *
+ * Đọc thẳng từ Reader của ResponseBody vào DTO bằng reader viết tay ({@link ApiReaders}),
+ * không dựng String, cây JSONObject hay dùng reflection, rồi map DTO sang {@link PhotoItem}.
+ * Không gọi API Android nào nên chạy được trên JVM; phụ thuộc duy nhất ngoài core.api là
+ * {@link ImageUrlResolver#flickrSize} (thuần Java, dù class đó còn có hàm theo Context).
+ */
+public final class PhotoParser {
+
+    /**
+     * Decode body của một endpoint; FlickrRepo chọn theo call (Pexels / feed).
+     * {@code listener} (có thể null) nhận từng ảnh ngay khi decode xong, theo đúng thứ tự của List trả về.
+     */
+    public interface Decoder {
+        List<PhotoItem> decode(Reader in, ItemListener listener) throws IOException;
+    }
+
+    public interface ItemListener {
+        void onItem(PhotoItem item);
+
+        /** Gọi một lần sau ảnh cuối, khi trang có con trỏ phân trang (Pexels). */
+        default void onPageInfo(PageInfo info) {}
+    }
+
+    private PhotoParser() {}
+
+    /**
+     * Parse một trang Pexels ({@code curated} / {@code search}).
+     *
+     * @throws IOException nếu stream lỗi hoặc JSON sai cú pháp
+     */
+    public static List<PhotoItem> parsePexels(Reader in) throws IOException {
+        return parsePexels(in, null);
+    }
+
+    /** Như {@link #parsePexels(Reader)}, đồng thời đẩy từng ảnh cho {@code listener} khi stream còn đang đọc. */
+    public static List<PhotoItem> parsePexels(Reader in, ItemListener listener) throws IOException {
+        List<PhotoItem> out = new ArrayList<>();
+        PexelsPage page = readPexelsPage(in, photo -> emit(out, toPhoto(photo), listener));
+        if (listener != null) listener.onPageInfo(PageInfo.of(page));
+        return out;
+    }
+
+    /** Parse một trang Flickr public feed. */
+    public static List<PhotoItem> parseFeed(Reader in) throws IOException {
+        return parseFeed(in, null);
+    }
+
+    public static List<PhotoItem> parseFeed(Reader in, ItemListener listener) throws IOException {
+        List<PhotoItem> out = new ArrayList<>();
+        readFlickrFeed(in, item -> emit(out, toPhoto(item), listener));
+        return out;
+    }
+
+    public static PexelsPage readPexelsPage(Reader in) throws IOException {
+        return readPexelsPage(in, null);
+    }
+
+    private static PexelsPage readPexelsPage(Reader in, ApiReaders.ElementListener<PexelsPhoto> listener)
+            throws IOException {
+        try (JsonReader r = new JsonReader(in)) {
+            return ApiReaders.readPexelsPage(r, listener);
+        } catch (IllegalStateException | JsonParseException e) {
+            // JsonReader báo sai kiểu token bằng unchecked exception → gom về IOException
+            throw new IOException("Malformed photo page", e);
+        }
+    }
+
+    public static FlickrFeed readFlickrFeed(Reader in) throws IOException {
+        return readFlickrFeed(in, null);
+    }
+
+    private static FlickrFeed readFlickrFeed(Reader in, ApiReaders.ElementListener<FlickrFeedItem> listener)
+            throws IOException {
+        try (JsonReader r = new JsonReader(in)) {
+            return ApiReaders.readFlickrFeed(r, listener);
+        } catch (IllegalStateException | JsonParseException e) {
+            throw new IOException("Malformed photo page", e);
+        }
+    }
+
+    private static void emit(List<PhotoItem> out, PhotoItem item, ItemListener listener) {
+        out.add(item);
+        if (listener != null) listener.onItem(item);
+    }
+
+    // ===== Pexels schema =====
+    public static List<PhotoItem> toPhotos(PexelsPage page) {
+        List<PhotoItem> out = new ArrayList<>(page.photos.size());
+        for (PexelsPhoto photo : page.photos) out.add(toPhoto(photo));
+        return out;
+    }
+
+    private static PhotoItem toPhoto(PexelsPhoto photo) {
+        PhotoItem p = new PhotoItem();
+        p.id = String.valueOf(photo.id);
+        p.title = photo.alt;
+        p.owner = photo.photographer;
+        p.pageUrl = photo.url;
+        p.width = photo.width;
+        p.height = photo.height;
+        p.avgColor = photo.avgColor;
+
+        PexelsSrc src = photo.src;
+        p.tinyUrl = src.tiny;
+        p.smallUrl = src.small;
+        p.mediumUrl = src.medium;
+        p.largeUrl = src.large;
+        p.large2xUrl = src.large2x;
+        p.originalUrl = src.original;
+
+        String full = !src.large2x.isEmpty() ? src.large2x : src.large;
+        p.thumbUrl = src.medium;
+        p.fullUrl = full.isEmpty() ? src.medium : full;
+        return p;
+    }
+
+    // ===== Flickr fallback =====
+    public static List<PhotoItem> toPhotos(FlickrFeed feed) {
+        List<PhotoItem> out = new ArrayList<>(feed.items.size());
+        for (FlickrFeedItem item : feed.items) out.add(toPhoto(item));
+        return out;
+    }
+
+    private static PhotoItem toPhoto(FlickrFeedItem item) {
+        PhotoItem p = new PhotoItem();
+        String url = item.media;
+        p.title = item.title;
+        p.owner = item.author;
+
+        if (!item.link.isEmpty()) {
+            String[] parts = item.link.split("/");
+            if (parts.length >= 5) p.id = "fallback_" + parts[4];
+        }
+        if (p.id == null || p.id.isEmpty()) {
+            p.id = "fallback_" + Math.abs(url.hashCode());
+        }
+        p.width = item.width;
+        p.height = item.height;
+        p.thumbUrl = url;
+        p.fullUrl = ImageUrlResolver.flickrSize(url, ImageUrlResolver.FLICKR_LARGE);
+        return p;
+    }
+}
@@ -0,0 +1,247 @@
+package vn.edu.usth.flickrbrowser.core.api;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Date;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * Application interceptor giữ quota Pexels (X-Ratelimit-Limit / Remaining / Reset).
+ *
+ * - Token bucket: refill đều phần quota còn lại cho tới lúc reset (không chậm hơn giới hạn
+ *   theo giờ của Pexels). Request {@link RequestPriority#USER} luôn được đi khi quota còn;
+ *   {@link RequestPriority#PREFETCH} phải chừa lại USER_RESERVE token khi quota xuống thấp
+ *   và bị chặn hẳn khi gần cạn.
+ * - 429 / 5xx: chỉ request USER được retry (exponential backoff + jitter, tôn trọng Retry-After);
+ *   PREFETCH trả lỗi ngay, job nền sẽ thử lại sau.
+ *
+ * Request bị chặn nhận {@link RateLimitedException} (không đi mạng). Chỉ áp dụng cho host
+ * Pexels; request only-if-cached (không chạm mạng) được cho qua.
+ */
+public class RateLimitGovernor implements Interceptor {
+
+    private static final String TAG = "RateLimit";
+
+    private static final double BUCKET_CAPACITY = 20;
+    // Pexels: 200 request/giờ, 20 000 request/tháng
+    private static final double MIN_REFILL_PER_S = 200d / 3600d;
+    private static final double USER_RESERVE = 5;
+    private static final double LOW_QUOTA_FRACTION = 0.2;
+    private static final double PREFETCH_CUTOFF_FRACTION = 0.05;
+
+    private static final int USER_MAX_RETRIES = 2;
+    private static final int PREFETCH_MAX_RETRIES = 0;
+    private static final long BACKOFF_BASE_MS = 500;
+    // Backoff chiếm một thread của Dispatcher (8 thread): chờ lâu hơn thì trả lỗi cho fallback
+    private static final long MAX_RETRY_WAIT_MS = 2_000;
+    private static final long SLEEP_SLICE_MS = 100;
+
+    private final String host;
+    private final LongSupplier clock; // epoch ms, so với X-Ratelimit-Reset
+
+    // Trạng thái quota theo header gần nhất; -1 = chưa biết
+    private long limit = -1;
+    private long remaining = -1;
+    private long resetAtMs = -1;
+    private long blockedUntilMs = 0; // Retry-After
+    private double tokens = BUCKET_CAPACITY;
+    private long refilledAtMs;
+
+    private final AtomicLong denied = new AtomicLong();
+    private final AtomicLong retried = new AtomicLong();
+
+    public RateLimitGovernor(@NonNull String host) {
+        this(host, System::currentTimeMillis);
+    }
+
+    /** @param clock thời gian (epoch ms) cho bucket và Retry-After; test dùng đồng hồ giả */
+    RateLimitGovernor(@NonNull String host, @NonNull LongSupplier clock) {
+        this.host = host;
+        this.clock = clock;
+        this.refilledAtMs = now();
+    }
+
+    @NonNull
+    @Override
+    public Response intercept(@NonNull Chain chain) throws IOException {
+        Request req = chain.request();
+        if (!host.equals(req.url().host()) || req.cacheControl().onlyIfCached()) {
+            return chain.proceed(req);
+        }
+
+        RequestPriority priority = req.tag(RequestPriority.class);
+        if (priority == null) priority = RequestPriority.USER;
+        if (!tryAcquire(priority)) {
+            denied.incrementAndGet();
+            throw new RateLimitedException("Pexels rate limit budget exhausted (" + priority + ")");
+        }
+
+        Response res = chain.proceed(req);
+        update(res);
+
+        int maxRetries = priority == RequestPriority.USER ? USER_MAX_RETRIES : PREFETCH_MAX_RETRIES;
+        for (int attempt = 0; attempt < maxRetries && isRetryable(res); attempt++) {
+            long delay = retryDelayMs(res, attempt);
+            if (delay > MAX_RETRY_WAIT_MS) break; // chờ quá lâu → trả lỗi, để fallback xử lý
+            Log.w(TAG, "HTTP " + res.code() + ", retry #" + (attempt + 1) + " in " + delay + "ms: " + req.url());
+            res.close();
+            sleep(chain, delay);
+            retried.incrementAndGet();
+            res = chain.proceed(req);
+            update(res);
+        }
+        return res;
+    }
+
+    // --------------------------------------
+    // Budget
+    // --------------------------------------
+
+    private synchronized boolean tryAcquire(RequestPriority priority) {
+        long now = now();
+        refill(now);
+        if (now < blockedUntilMs) return false;
+        if (remaining == 0 && now < resetAtMs) return false;
+
+        if (priority == RequestPriority.USER) {
+            tokens = Math.max(0, tokens - 1);
+            return true;
+        }
+
+        double fraction = getRemainingFraction();
+        if (fraction < PREFETCH_CUTOFF_FRACTION) return false;
+        double reserve = fraction < LOW_QUOTA_FRACTION ? USER_RESERVE : 0;
+        if (tokens < 1 + reserve) return false;
+        tokens -= 1;
+        return true;
+    }
+
+    private void refill(long now) {
+        double perSecond = MIN_REFILL_PER_S;
+        if (remaining >= 0 && resetAtMs > now) {
+            perSecond = Math.max(perSecond, remaining / ((resetAtMs - now) / 1000d));
+        }
+        tokens = Math.min(BUCKET_CAPACITY, tokens + (now - refilledAtMs) / 1000d * perSecond);
+        refilledAtMs = now;
+    }
+
+    private synchronized void update(Response res) {
+        // Response trả từ cache mang header cũ → bỏ qua
+        if (res.networkResponse() == null) return;
+        long l = parseLong(res.header("X-Ratelimit-Limit"));
+        long r = parseLong(res.header("X-Ratelimit-Remaining"));
+        long reset = parseLong(res.header("X-Ratelimit-Reset"));
+        if (l >= 0) limit = l;
+        if (r >= 0) remaining = r;
+        if (reset >= 0) resetAtMs = TimeUnit.SECONDS.toMillis(reset);
+
+        if (res.code() == 429) {
+            long wait = retryAfterMs(res);
+            blockedUntilMs = now() + (wait >= 0 ? wait : BACKOFF_BASE_MS);
+        }
+    }
+
+    // --------------------------------------
+    // Retry
+    // --------------------------------------
+
+    private static boolean isRetryable(Response res) {
+        return "GET".equals(res.request().method()) && (res.code() == 429 || res.code() >= 500);
+    }
+
+    /** Retry-After nếu server gửi, ngược lại backoff luỹ thừa với jitter trong [base·2ⁿ/2, base·2ⁿ]. */
+    private long retryDelayMs(Response res, int attempt) {
+        long retryAfter = retryAfterMs(res);
+        if (retryAfter >= 0) return retryAfter;
+        long cap = BACKOFF_BASE_MS << attempt;
+        return cap / 2 + ThreadLocalRandom.current().nextLong(cap / 2 + 1);
+    }
+
+    /** Retry-After dạng số giây hoặc HTTP-date; -1 nếu không có. */
+    private long retryAfterMs(Response res) {
+        String value = res.header("Retry-After");
+        if (value == null) return -1;
+        long seconds = parseLong(value);
+        if (seconds >= 0) return TimeUnit.SECONDS.toMillis(seconds);
+        Date date = res.headers().getDate("Retry-After");
+        return date == null ? -1 : Math.max(0, date.getTime() - now());
+    }
+
+    /** Ngủ từng đoạn ngắn; call bị huỷ giữa chừng thì dừng ngay, trả thread về Dispatcher. */
+    private static void sleep(Chain chain, long ms) throws IOException {
+        long end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(ms);
+        for (long left = ms; left > 0; left = TimeUnit.NANOSECONDS.toMillis(end - System.nanoTime())) {
+            if (chain.call().isCanceled()) throw new IOException("Canceled");
+            try {
+                Thread.sleep(Math.min(left, SLEEP_SLICE_MS));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while backing off");
+            }
+        }
+        if (chain.call().isCanceled()) throw new IOException("Canceled");
+    }
+
+    private static long parseLong(String value) {
+        if (value == null) return -1;
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private long now() {
+        return clock.getAsLong();
+    }
+
+    // --------------------------------------
+    // Budget cho UI / metrics
+    // --------------------------------------
+
+    /** Số request còn lại trong kỳ quota theo header gần nhất, -1 nếu chưa biết. */
+    public synchronized long getRemaining() { return remaining; }
+
+    /** Quota của kỳ hiện tại, -1 nếu chưa biết. */
+    public synchronized long getLimit() { return limit; }
+
+    /** Thời điểm quota được reset (epoch ms), -1 nếu chưa biết. */
+    public synchronized long getResetAtMillis() { return resetAtMs; }
+
+    /** Phần quota còn lại (0..1); 1 khi chưa có header nào. */
+    public synchronized double getRemainingFraction() {
+        if (limit <= 0 || remaining < 0) return 1d;
+        return Math.min(1d, (double) remaining / limit);
+    }
+
+    /** Token còn trong bucket (có thể lẻ). */
+    public synchronized double getTokens() {
+        refill(now());
+        return tokens;
+    }
+
+    /** Số request bị chặn trên máy. */
+    public long getDeniedCount() { return denied.get(); }
+
+    /** Số lần retry vì 429 / 5xx. */
+    public long getRetriedCount() { return retried.get(); }
+
+    @NonNull
+    @Override
+    public synchronized String toString() {
+        return "remaining=" + remaining + "/" + limit + " tokens="
+                + String.format(java.util.Locale.US, "%.1f", tokens)
+                + " denied=" + getDeniedCount() + " retried=" + getRetriedCount();
+    }
+}
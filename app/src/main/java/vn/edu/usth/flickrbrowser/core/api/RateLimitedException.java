@@ -0,0 +1,11 @@
+package vn.edu.usth.flickrbrowser.core.api;
+
+import java.io.IOException;
+
+/** Request bị {@link RateLimitGovernor} chặn trên máy, chưa được gửi tới Pexels. */
+public class RateLimitedException extends IOException {
+
+    public RateLimitedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,25 @@
+package vn.edu.usth.flickrbrowser.core.api;
+
+/**
+ * Một request do {@link FlickrRepo} trả về cho caller.
+ *
+ * {@link #cancel()} chỉ gỡ caller này: callback của nó không còn được gọi, còn network call
+ * chỉ bị huỷ khi không còn caller nào khác (coalescing) đang chờ cùng kết quả.
+ */
+public interface RequestHandle {
+
+    /** Handle của request không được gửi (ví dụ mất mạng, đã báo lỗi ngay). */
+    RequestHandle NONE = new RequestHandle() {
+        @Override
+        public void cancel() {}
+
+        @Override
+        public boolean isActive() { return false; }
+    };
+
+    /** Huỷ request; gọi nhiều lần hoặc sau khi đã có kết quả cũng không sao. */
+    void cancel();
+
+    /** true khi request còn chạy: chưa có kết quả và chưa bị huỷ. */
+    boolean isActive();
+}
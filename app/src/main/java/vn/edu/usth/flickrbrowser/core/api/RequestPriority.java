@@ -0,0 +1,12 @@
+package vn.edu.usth.flickrbrowser.core.api;
+
+/**
+ * Độ ưu tiên của request, gắn vào OkHttp Request qua Retrofit {@code @Tag}.
+ * Request không có tag được coi là {@link #USER}.
+ */
+public enum RequestPriority {
+    /** Người dùng đang chờ kết quả (trang đầu, trang kế tiếp khi cuộn tới đáy). */
+    USER,
+    /** Tải trước / revalidate nền: bị cắt trước khi quota Pexels cạn. */
+    PREFETCH
+}
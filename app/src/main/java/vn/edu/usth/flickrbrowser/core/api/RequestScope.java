@@ -0,0 +1,59 @@
+package vn.edu.usth.flickrbrowser.core.api;
+
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Gom các {@link RequestHandle} của một màn hình để huỷ cùng lúc.
+ *
+ * - Fragment: {@link #cancelAll()} trong onDestroyView (scope dùng lại khi view được tạo lại).
+ * - ViewModel: {@link #close()} trong onCleared; request thêm vào sau đó bị huỷ ngay.
+ *
+ * Thread-safe; handle đã xong được dọn dần khi thêm handle mới.
+ */
+public final class RequestScope {
+
+    private final List<RequestHandle> handles = new ArrayList<>();
+    private boolean closed;
+
+    /** Theo dõi {@code handle}; trả lại chính nó để viết gọn {@code scope.add(FlickrRepo.search(...))}. */
+    public RequestHandle add(@Nullable RequestHandle handle) {
+        if (handle == null) return RequestHandle.NONE;
+        synchronized (this) {
+            if (!closed) {
+                for (Iterator<RequestHandle> it = handles.iterator(); it.hasNext(); ) {
+                    if (!it.next().isActive()) it.remove();
+                }
+                handles.add(handle);
+                return handle;
+            }
+        }
+        handle.cancel();
+        return handle;
+    }
+
+    /** Huỷ mọi request đang theo dõi; scope vẫn dùng tiếp được. */
+    public void cancelAll() {
+        List<RequestHandle> snapshot;
+        synchronized (this) {
+            snapshot = new ArrayList<>(handles);
+            handles.clear();
+        }
+        for (RequestHandle h : snapshot) h.cancel();
+    }
+
+    /** Huỷ mọi request và không nhận thêm request mới. */
+    public void close() {
+        synchronized (this) {
+            closed = true;
+        }
+        cancelAll();
+    }
+
+    public synchronized boolean isClosed() {
+        return closed;
+    }
+}
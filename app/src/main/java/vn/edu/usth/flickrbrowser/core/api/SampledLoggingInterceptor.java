@@ -0,0 +1,40 @@
+package vn.edu.usth.flickrbrowser.core.api;
+
+import androidx.annotation.NonNull;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+
+import okhttp3.Interceptor;
+import okhttp3.Response;
+import okhttp3.logging.HttpLoggingInterceptor;
+
+/**
+ * Log request theo build type.
+ *
+ * - Release: chỉ log header (Authorization bị ẩn), không bao giờ buffer body.
+ * - Debug: log header cho mọi request, log full body cho một tỉ lệ request được lấy mẫu
+ *   ({@code BuildConfig.NET_LOG_BODY_SAMPLE_RATE}) vì BODY buộc phải đọc hết response vào bộ nhớ.
+ */
+public class SampledLoggingInterceptor implements Interceptor {
+
+    private final HttpLoggingInterceptor headers = new HttpLoggingInterceptor();
+    private final HttpLoggingInterceptor body = new HttpLoggingInterceptor();
+    private final double bodySampleRate;
+
+    public SampledLoggingInterceptor(boolean debug, double bodySampleRate) {
+        headers.setLevel(HttpLoggingInterceptor.Level.HEADERS);
+        headers.redactHeader("Authorization");
+        body.setLevel(HttpLoggingInterceptor.Level.BODY);
+        body.redactHeader("Authorization");
+        this.bodySampleRate = debug ? Math.max(0d, Math.min(1d, bodySampleRate)) : 0d;
+    }
+
+    @NonNull
+    @Override
+    public Response intercept(@NonNull Chain chain) throws IOException {
+        boolean sampled = bodySampleRate > 0d
+                && ThreadLocalRandom.current().nextDouble() < bodySampleRate;
+        return (sampled ? body : headers).intercept(chain);
+    }
+}
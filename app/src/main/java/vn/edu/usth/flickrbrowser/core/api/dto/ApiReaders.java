@@ -0,0 +1,253 @@
+package vn.edu.usth.flickrbrowser.core.api.dto;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Đọc DTO của Pexels và Flickr feed thẳng từ JsonReader.
+ *
+ * Mỗi reader switch trên tên key nên đường parse không dùng reflection của Gson (quét field,
+ * Unsafe.allocateInstance, set từng field); chỉ dùng JsonReader streaming. Key lạ bị bỏ qua;
+ * giá trị sai kiểu / null được đưa về mặc định giống optString / optLong của org.json thay vì
+ * ném lỗi.
+ */
+public final class ApiReaders {
+
+    /** Nhận từng phần tử ngay khi decode xong, trước khi cả trang được đọc hết. */
+    public interface ElementListener<T> {
+        void onElement(T element);
+    }
+
+    private ApiReaders() {}
+
+    /** Đọc một trang Pexels; {@code listener} (có thể null) nhận từng ảnh theo thứ tự trong {@code photos[]}. */
+    public static PexelsPage readPexelsPage(JsonReader r, ElementListener<PexelsPhoto> listener) throws IOException {
+        PexelsPage page = new PexelsPage();
+        r.beginObject();
+        while (r.hasNext()) {
+            switch (r.nextName()) {
+                case "page":          page.page = (int) nextLong(r);              break;
+                case "per_page":      page.perPage = (int) nextLong(r);           break;
+                case "total_results": page.totalResults = (int) nextLong(r);      break;
+                case "next_page":     page.nextPage = nextString(r);              break;
+                case "prev_page":     page.prevPage = nextString(r);              break;
+                case "photos":        readPhotos(r, page.photos, listener);       break;
+                default:              r.skipValue();
+            }
+        }
+        r.endObject();
+        return page;
+    }
+
+    /** Đọc một trang Flickr feed; {@code listener} (có thể null) nhận từng item theo thứ tự. */
+    public static FlickrFeed readFlickrFeed(JsonReader r, ElementListener<FlickrFeedItem> listener) throws IOException {
+        FlickrFeed feed = new FlickrFeed();
+        r.beginObject();
+        while (r.hasNext()) {
+            switch (r.nextName()) {
+                case "title": feed.title = nextString(r); break;
+                case "link":  feed.link = nextString(r);  break;
+                case "items": readItems(r, feed.items, listener); break;
+                default:      r.skipValue();
+            }
+        }
+        r.endObject();
+        return feed;
+    }
+
+    // --------------------------------------
+    // Pexels
+    // --------------------------------------
+
+    private static void readPhotos(JsonReader r, List<PexelsPhoto> out,
+                                   ElementListener<PexelsPhoto> listener) throws IOException {
+        if (r.peek() != JsonToken.BEGIN_ARRAY) {
+            r.skipValue();
+            return;
+        }
+        r.beginArray();
+        while (r.hasNext()) {
+            if (r.peek() != JsonToken.BEGIN_OBJECT) {
+                r.skipValue();
+                continue;
+            }
+            PexelsPhoto photo = readPhoto(r);
+            out.add(photo);
+            if (listener != null) listener.onElement(photo);
+        }
+        r.endArray();
+    }
+
+    private static PexelsPhoto readPhoto(JsonReader r) throws IOException {
+        PexelsPhoto p = new PexelsPhoto();
+        r.beginObject();
+        while (r.hasNext()) {
+            switch (r.nextName()) {
+                case "id":               p.id = nextLong(r);               break;
+                case "width":            p.width = (int) nextLong(r);      break;
+                case "height":           p.height = (int) nextLong(r);     break;
+                case "url":              p.url = nextString(r);            break;
+                case "photographer":     p.photographer = nextString(r);   break;
+                case "photographer_url": p.photographerUrl = nextString(r); break;
+                case "photographer_id":  p.photographerId = nextLong(r);   break;
+                case "avg_color":        p.avgColor = nextString(r);       break;
+                case "alt":              p.alt = nextString(r);            break;
+                case "src":              readSrc(r, p.src);                break;
+                default:                 r.skipValue();
+            }
+        }
+        r.endObject();
+        return p;
+    }
+
+    private static void readSrc(JsonReader r, PexelsSrc src) throws IOException {
+        if (r.peek() != JsonToken.BEGIN_OBJECT) {
+            r.skipValue();
+            return;
+        }
+        r.beginObject();
+        while (r.hasNext()) {
+            switch (r.nextName()) {
+                case "original":  src.original = nextString(r);  break;
+                case "large2x":   src.large2x = nextString(r);   break;
+                case "large":     src.large = nextString(r);     break;
+                case "medium":    src.medium = nextString(r);    break;
+                case "small":     src.small = nextString(r);     break;
+                case "portrait":  src.portrait = nextString(r);  break;
+                case "landscape": src.landscape = nextString(r); break;
+                case "tiny":      src.tiny = nextString(r);      break;
+                default:          r.skipValue();
+            }
+        }
+        r.endObject();
+    }
+
+    // --------------------------------------
+    // Flickr public feed
+    // --------------------------------------
+
+    private static void readItems(JsonReader r, List<FlickrFeedItem> out,
+                                  ElementListener<FlickrFeedItem> listener) throws IOException {
+        if (r.peek() != JsonToken.BEGIN_ARRAY) {
+            r.skipValue();
+            return;
+        }
+        r.beginArray();
+        while (r.hasNext()) {
+            if (r.peek() != JsonToken.BEGIN_OBJECT) {
+                r.skipValue();
+                continue;
+            }
+            FlickrFeedItem item = readItem(r);
+            out.add(item);
+            if (listener != null) listener.onElement(item);
+        }
+        r.endArray();
+    }
+
+    private static FlickrFeedItem readItem(JsonReader r) throws IOException {
+        FlickrFeedItem item = new FlickrFeedItem();
+        r.beginObject();
+        while (r.hasNext()) {
+            switch (r.nextName()) {
+                case "title":      item.title = nextString(r);     break;
+                case "link":       item.link = nextString(r);      break;
+                case "media":      item.media = readMedia(r);      break;
+                case "date_taken": item.dateTaken = nextString(r); break;
+                case "published":  item.published = nextString(r); break;
+                case "author":     item.author = nextString(r);    break;
+                case "author_id":  item.authorId = nextString(r);  break;
+                case "tags":       item.tags = nextString(r);      break;
+                case "description": readImageSize(nextString(r), item); break;
+                default:           r.skipValue();
+            }
+        }
+        r.endObject();
+        return item;
+    }
+
+    // description là HTML: "<p>…</p> <p><a …><img src="…_m.jpg" width="240" height="160" alt="…" /></a></p>"
+    private static final Pattern IMG_WIDTH = Pattern.compile("<img[^>]*\\swidth=\"(\\d+)\"");
+    private static final Pattern IMG_HEIGHT = Pattern.compile("<img[^>]*\\sheight=\"(\\d+)\"");
+
+    /** Chỉ giữ kích thước ảnh (để dựng khung đúng tỉ lệ), không giữ cả chuỗi HTML. */
+    private static void readImageSize(String html, FlickrFeedItem item) {
+        Matcher w = IMG_WIDTH.matcher(html);
+        Matcher h = IMG_HEIGHT.matcher(html);
+        if (!w.find() || !h.find()) return;
+        try {
+            item.width = Integer.parseInt(w.group(1));
+            item.height = Integer.parseInt(h.group(1));
+        } catch (NumberFormatException e) {
+            item.width = 0;
+            item.height = 0;
+        }
+    }
+
+    private static String readMedia(JsonReader r) throws IOException {
+        if (r.peek() != JsonToken.BEGIN_OBJECT) {
+            r.skipValue();
+            return "";
+        }
+        String url = "";
+        r.beginObject();
+        while (r.hasNext()) {
+            if ("m".equals(r.nextName())) url = nextString(r);
+            else r.skipValue();
+        }
+        r.endObject();
+        return url;
+    }
+
+    // --------------------------------------
+    // helpers: null-safe giống optString/optLong của org.json
+    // --------------------------------------
+
+    private static String nextString(JsonReader r) throws IOException {
+        JsonToken t = r.peek();
+        if (t == JsonToken.NULL) {
+            r.nextNull();
+            return "";
+        }
+        if (t == JsonToken.BEGIN_OBJECT || t == JsonToken.BEGIN_ARRAY) {
+            r.skipValue();
+            return "";
+        }
+        if (t == JsonToken.BOOLEAN) {
+            return String.valueOf(r.nextBoolean());
+        }
+        return r.nextString();
+    }
+
+    private static long nextLong(JsonReader r) throws IOException {
+        JsonToken t = r.peek();
+        if (t == JsonToken.NUMBER) {
+            try {
+                return r.nextLong();
+            } catch (NumberFormatException e) {
+                // Số thực / quá lớn: JsonReader giữ lại token, đọc lại dạng double
+                return (long) r.nextDouble();
+            }
+        }
+        if (t != JsonToken.STRING) {
+            r.skipValue();
+            return 0L;
+        }
+        // nextString() tiêu thụ token kể cả khi không phải số hợp lệ
+        String raw = r.nextString();
+        try {
+            return Long.parseLong(raw);
+        } catch (NumberFormatException e) {
+            try {
+                return (long) Double.parseDouble(raw);
+            } catch (NumberFormatException ignored) {
+                return 0L;
+            }
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package vn.edu.usth.flickrbrowser.core.api.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/** Response của Flickr public feed ({@code photos_public.gne?format=json&nojsoncallback=1}). */
+public class FlickrFeed {
+    public String title = "";
+    public String link = "";
+    public List<FlickrFeedItem> items = new ArrayList<>();
+}
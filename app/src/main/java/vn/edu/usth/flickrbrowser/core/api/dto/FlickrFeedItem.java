@@ -0,0 +1,15 @@
+package vn.edu.usth.flickrbrowser.core.api.dto;
+
+/** Một phần tử của {@code items[]} trong Flickr public feed. */
+public class FlickrFeedItem {
+    public String title = "";
+    public String link = "";       // https://www.flickr.com/photos/{owner}/{id}/
+    public String media = "";      // media.m: ảnh cỡ _m
+    public String dateTaken = "";
+    public String published = "";
+    public String author = "";
+    public String authorId = "";
+    public String tags = "";       // các tag cách nhau bằng dấu cách
+    public int width;              // kích thước ảnh _m theo thẻ <img> trong description, 0 nếu không có
+    public int height;
+}
@@ -0,0 +1,18 @@
+package vn.edu.usth.flickrbrowser.core.api.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/** Response của Pexels {@code /v1/curated} và {@code /v1/search}. */
+public class PexelsPage {
+    public int page;
+    public int perPage;
+    public int totalResults;
+    public String nextPage = "";  // rỗng ở trang cuối
+    public String prevPage = "";
+    public List<PexelsPhoto> photos = new ArrayList<>();
+
+    public boolean hasNextPage() {
+        return nextPage != null && !nextPage.isEmpty();
+    }
+}
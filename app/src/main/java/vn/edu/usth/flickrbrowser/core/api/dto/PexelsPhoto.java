@@ -0,0 +1,15 @@
+package vn.edu.usth.flickrbrowser.core.api.dto;
+
+/** Một phần tử của {@code photos[]} trong response Pexels. */
+public class PexelsPhoto {
+    public long id;
+    public int width;
+    public int height;
+    public String url = "";              // trang ảnh trên pexels.com
+    public String photographer = "";
+    public String photographerUrl = "";
+    public long photographerId;
+    public String avgColor = "";         // "#RRGGBB"
+    public String alt = "";
+    public PexelsSrc src = new PexelsSrc();
+}
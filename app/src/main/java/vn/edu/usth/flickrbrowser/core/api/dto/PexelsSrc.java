@@ -0,0 +1,13 @@
+package vn.edu.usth.flickrbrowser.core.api.dto;
+
+/** Các biến thể kích thước của một ảnh Pexels ({@code src}). */
+public class PexelsSrc {
+    public String original = "";
+    public String large2x = "";    // 940w, dpr 2
+    public String large = "";      // 940w
+    public String medium = "";     // h=350
+    public String small = "";      // h=130
+    public String portrait = "";   // 800x1200 crop
+    public String landscape = "";  // 1200x627 crop
+    public String tiny = "";       // 280x200 crop
+}
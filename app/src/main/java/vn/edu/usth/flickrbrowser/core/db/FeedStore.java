@@ -0,0 +1,351 @@
+package vn.edu.usth.flickrbrowser.core.db;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import vn.edu.usth.flickrbrowser.core.api.PageInfo;
+import vn.edu.usth.flickrbrowser.core.api.PageMemoryCache;
+import vn.edu.usth.flickrbrowser.core.api.RequestHandle;
+import vn.edu.usth.flickrbrowser.core.model.PhotoItem;
+
+/**
+ * Lưu các trang ảnh đã tải (curated / search) vào SQLite để màn hình hiện ngay từ disk lúc mở app,
+ * kể cả khi không có mạng; network call chạy sau đó để làm mới (stale-while-revalidate).
+ *
+ * - Bảng {@code pages}: một dòng cho mỗi (feed, query chuẩn hoá, page, perPage), kèm thời điểm tải
+ *   và kích thước ước lượng.
+ * - Bảng {@code photos}: các ảnh của trang theo thứ tự, xoá theo trang (ON DELETE CASCADE).
+ * - Sau mỗi lần ghi: bỏ trang quá MAX_AGE, rồi bỏ trang cũ nhất tới khi tổng kích thước dưới MAX_BYTES.
+ *
+ * Mọi thao tác chạy trên một thread riêng; kết quả đọc được post về main thread.
+ */
+public final class FeedStore extends SQLiteOpenHelper {
+
+    public static final String FEED_CURATED = "curated";
+    public static final String FEED_SEARCH = "search";
+
+    /** Kết quả đọc; {@code page} null nếu chưa lưu trang đó. */
+    public interface ReadCallback {
+        void onRead(@Nullable StoredPage page);
+    }
+
+    /** Một trang đọc từ disk. */
+    public static final class StoredPage {
+        public final int page;
+        public final int perPage; // các trang sau phải tải cùng perPage để không trùng / hụt ảnh
+        public final List<PhotoItem> items;
+        public final PageInfo info;
+        public final long fetchedAt; // System.currentTimeMillis() lúc tải từ mạng
+
+        public StoredPage(int page, int perPage, List<PhotoItem> items, PageInfo info, long fetchedAt) {
+            this.page = page;
+            this.perPage = perPage;
+            this.items = items;
+            this.info = info;
+            this.fetchedAt = fetchedAt;
+        }
+    }
+
+    private static final String TAG = "FeedStore";
+    private static final String DB_NAME = "feed_store.db";
+    private static final int DB_VERSION = 3; // 2: con trỏ next_page / total_results; 3: biến thể ảnh
+    private static final long MAX_AGE_MS = TimeUnit.DAYS.toMillis(7);
+    private static final long MAX_BYTES = 8L * 1024 * 1024;
+
+    private static final Handler MAIN = new Handler(Looper.getMainLooper());
+    private static volatile FeedStore INSTANCE;
+
+    private final ExecutorService io = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "feed-store");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private FeedStore(@NonNull Context appCtx) {
+        super(appCtx, DB_NAME, null, DB_VERSION);
+    }
+
+    /** Gọi từ Application.onCreate(). */
+    public static void init(@NonNull Context context) {
+        if (INSTANCE == null) {
+            synchronized (FeedStore.class) {
+                if (INSTANCE == null) INSTANCE = new FeedStore(context.getApplicationContext());
+            }
+        }
+    }
+
+    /** null nếu chưa {@link #init} (ví dụ unit test JVM). */
+    @Nullable
+    public static FeedStore get() {
+        return INSTANCE;
+    }
+
+    @Override
+    public void onConfigure(SQLiteDatabase db) {
+        db.setForeignKeyConstraintsEnabled(true);
+    }
+
+    @Override
+    public void onCreate(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE pages ("
+                + "_id INTEGER PRIMARY KEY AUTOINCREMENT,"
+                + "feed TEXT NOT NULL,"
+                + "query TEXT NOT NULL,"
+                + "page INTEGER NOT NULL,"
+                + "per_page INTEGER NOT NULL,"
+                + "next_page INTEGER NOT NULL,"
+                + "total_results INTEGER NOT NULL,"
+                + "fetched_at INTEGER NOT NULL,"
+                + "bytes INTEGER NOT NULL,"
+                + "UNIQUE (feed, query, page, per_page))");
+        db.execSQL("CREATE INDEX pages_fetched_at ON pages (fetched_at)");
+        db.execSQL("CREATE TABLE photos ("
+                + "page_id INTEGER NOT NULL REFERENCES pages(_id) ON DELETE CASCADE,"
+                + "position INTEGER NOT NULL,"
+                + "photo_id TEXT NOT NULL,"
+                + "title TEXT, owner TEXT, thumb_url TEXT, full_url TEXT, page_url TEXT,"
+                + "width INTEGER, height INTEGER, avg_color TEXT,"
+                + "tiny_url TEXT, small_url TEXT, medium_url TEXT, large_url TEXT, large2x_url TEXT, original_url TEXT,"
+                + "PRIMARY KEY (page_id, position))");
+    }
+
+    @Override
+    public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        // Chỉ là cache: đổi schema thì bỏ hết
+        db.execSQL("DROP TABLE IF EXISTS photos");
+        db.execSQL("DROP TABLE IF EXISTS pages");
+        onCreate(db);
+    }
+
+    // --------------------------------------
+    // Đọc
+    // --------------------------------------
+
+    /**
+     * Đọc trang {@code page} mới nhất, với bất kỳ perPage nào (perPage đổi theo chất lượng mạng);
+     * caller tải tiếp với {@link StoredPage#perPage}.
+     */
+    public RequestHandle readPage(@NonNull String feed, @Nullable String query, int page,
+                                  @NonNull ReadCallback cb) {
+        String q = PageMemoryCache.normalizeQuery(query);
+        return read(cb, () -> queryPage("feed=? AND query=? AND page=?",
+                new String[]{feed, q, String.valueOf(page)}));
+    }
+
+    private interface Query {
+        StoredPage run();
+    }
+
+    private RequestHandle read(ReadCallback cb, Query query) {
+        PendingRead pending = new PendingRead(cb);
+        io.execute(() -> {
+            if (!pending.isActive()) return;
+            StoredPage result = null;
+            try {
+                result = query.run();
+            } catch (RuntimeException e) {
+                Log.w(TAG, "read failed", e);
+            }
+            StoredPage page = result;
+            MAIN.post(() -> pending.deliver(page));
+        });
+        return pending;
+    }
+
+    /** Trang mới nhất khớp điều kiện, hoặc null; trang quá MAX_AGE coi như không có. */
+    private StoredPage queryPage(String where, String[] args) {
+        SQLiteDatabase db = getReadableDatabase();
+        long minFetchedAt = System.currentTimeMillis() - MAX_AGE_MS;
+        long pageId;
+        PageInfo info;
+        long fetchedAt;
+        int perPage;
+        try (Cursor c = db.query("pages",
+                new String[]{"_id", "page", "per_page", "next_page", "total_results", "fetched_at"},
+                where + " AND fetched_at>=?", append(args, String.valueOf(minFetchedAt)),
+                null, null, "fetched_at DESC", "1")) {
+            if (!c.moveToFirst()) return null;
+            pageId = c.getLong(0);
+            perPage = c.getInt(2);
+            info = new PageInfo(c.getInt(1), c.getInt(3), c.getInt(4));
+            fetchedAt = c.getLong(5);
+        }
+
+        List<PhotoItem> items = new ArrayList<>();
+        try (Cursor c = db.query("photos",
+                new String[]{"photo_id", "title", "owner", "thumb_url", "full_url", "page_url",
+                        "width", "height", "avg_color", "tiny_url", "small_url", "medium_url", "large_url",
+                        "large2x_url", "original_url"},
+                "page_id=?", new String[]{String.valueOf(pageId)}, null, null, "position")) {
+            while (c.moveToNext()) {
+                PhotoItem p = new PhotoItem();
+                p.id = c.getString(0);
+                p.title = orEmpty(c.getString(1));
+                p.owner = orEmpty(c.getString(2));
+                p.thumbUrl = orEmpty(c.getString(3));
+                p.fullUrl = orEmpty(c.getString(4));
+                p.pageUrl = orEmpty(c.getString(5));
+                p.width = c.getInt(6);
+                p.height = c.getInt(7);
+                p.avgColor = orEmpty(c.getString(8));
+                p.tinyUrl = orEmpty(c.getString(9));
+                p.smallUrl = orEmpty(c.getString(10));
+                p.mediumUrl = orEmpty(c.getString(11));
+                p.largeUrl = orEmpty(c.getString(12));
+                p.large2xUrl = orEmpty(c.getString(13));
+                p.originalUrl = orEmpty(c.getString(14));
+                items.add(p);
+            }
+        }
+        if (items.isEmpty()) return null;
+        return new StoredPage(info.page, perPage, Collections.unmodifiableList(items), info, fetchedAt);
+    }
+
+    // --------------------------------------
+    // Ghi + dọn
+    // --------------------------------------
+
+    /** Ghi (thay) một trang; chạy nền, lỗi chỉ được log. */
+    public void writePage(@NonNull String feed, @Nullable String query, int page, int perPage,
+                          @NonNull List<PhotoItem> items, @NonNull PageInfo info) {
+        if (items.isEmpty()) return;
+        String q = PageMemoryCache.normalizeQuery(query);
+        List<PhotoItem> snapshot = new ArrayList<>(items);
+        io.execute(() -> {
+            try {
+                write(feed, q, page, perPage, snapshot, info);
+                evict();
+            } catch (RuntimeException e) {
+                Log.w(TAG, "write failed", e);
+            }
+        });
+    }
+
+    private void write(String feed, String q, int page, int perPage, List<PhotoItem> items, PageInfo info) {
+        SQLiteDatabase db = getWritableDatabase();
+        db.beginTransaction();
+        try {
+            // Xoá trang cũ (photos theo cascade) rồi ghi lại
+            db.delete("pages", "feed=? AND query=? AND page=? AND per_page=?",
+                    new String[]{feed, q, String.valueOf(page), String.valueOf(perPage)});
+
+            ContentValues pv = new ContentValues();
+            pv.put("feed", feed);
+            pv.put("query", q);
+            pv.put("page", page);
+            pv.put("per_page", perPage);
+            pv.put("next_page", info.nextPage);
+            pv.put("total_results", info.totalResults);
+            pv.put("fetched_at", System.currentTimeMillis());
+            pv.put("bytes", PageMemoryCache.estimateBytes(items));
+            long pageId = db.insertOrThrow("pages", null, pv);
+
+            ContentValues v = new ContentValues();
+            for (int i = 0; i < items.size(); i++) {
+                PhotoItem p = items.get(i);
+                v.clear();
+                v.put("page_id", pageId);
+                v.put("position", i);
+                v.put("photo_id", orEmpty(p.id));
+                v.put("title", p.title);
+                v.put("owner", p.owner);
+                v.put("thumb_url", p.thumbUrl);
+                v.put("full_url", p.fullUrl);
+                v.put("page_url", p.pageUrl);
+                v.put("width", p.width);
+                v.put("height", p.height);
+                v.put("avg_color", p.avgColor);
+                v.put("tiny_url", p.tinyUrl);
+                v.put("small_url", p.smallUrl);
+                v.put("medium_url", p.mediumUrl);
+                v.put("large_url", p.largeUrl);
+                v.put("large2x_url", p.large2xUrl);
+                v.put("original_url", p.originalUrl);
+                db.insertOrThrow("photos", null, v);
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    /** Bỏ trang quá hạn, rồi bỏ trang tải lâu nhất tới khi tổng kích thước dưới MAX_BYTES. */
+    private void evict() {
+        SQLiteDatabase db = getWritableDatabase();
+        int expired = db.delete("pages", "fetched_at<?",
+                new String[]{String.valueOf(System.currentTimeMillis() - MAX_AGE_MS)});
+
+        long total;
+        try (Cursor c = db.rawQuery("SELECT COALESCE(SUM(bytes), 0) FROM pages", null)) {
+            total = c.moveToFirst() ? c.getLong(0) : 0;
+        }
+        int evicted = 0;
+        if (total > MAX_BYTES) {
+            try (Cursor c = db.query("pages", new String[]{"_id", "bytes"},
+                    null, null, null, null, "fetched_at")) {
+                List<String> ids = new ArrayList<>();
+                while (total > MAX_BYTES && c.moveToNext()) {
+                    ids.add(String.valueOf(c.getLong(0)));
+                    total -= c.getLong(1);
+                }
+                for (String id : ids) evicted += db.delete("pages", "_id=?", new String[]{id});
+            }
+        }
+        if (expired > 0 || evicted > 0) {
+            Log.d(TAG, "evicted " + expired + " expired, " + evicted + " over size");
+        }
+    }
+
+    // --------------------------------------
+    // Helpers
+    // --------------------------------------
+
+    private static String orEmpty(String s) {
+        return s == null ? "" : s;
+    }
+
+    private static String[] append(String[] args, String extra) {
+        String[] out = new String[args.length + 1];
+        System.arraycopy(args, 0, out, 0, args.length);
+        out[args.length] = extra;
+        return out;
+    }
+
+    /** Handle của một lần đọc: huỷ trước khi kết quả về main thread thì callback không chạy. */
+    private static final class PendingRead implements RequestHandle {
+        private final ReadCallback cb;
+        private volatile boolean cancelled, delivered;
+
+        PendingRead(ReadCallback cb) {
+            this.cb = cb;
+        }
+
+        void deliver(StoredPage page) {
+            if (cancelled) return;
+            delivered = true;
+            cb.onRead(page);
+        }
+
+        @Override
+        public void cancel() { cancelled = true; }
+
+        @Override
+        public boolean isActive() { return !cancelled && !delivered; }
+    }
+}
@@ -0,0 +1,109 @@
+package vn.edu.usth.flickrbrowser.core.image;
+
+import android.app.ActivityManager;
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import com.bumptech.glide.Glide;
+import com.bumptech.glide.GlideBuilder;
+import com.bumptech.glide.Registry;
+import com.bumptech.glide.annotation.GlideModule;
+import com.bumptech.glide.integration.okhttp3.OkHttpUrlLoader;
+import com.bumptech.glide.load.DecodeFormat;
+import com.bumptech.glide.load.engine.bitmap_recycle.LruBitmapPool;
+import com.bumptech.glide.load.engine.cache.DiskCache;
+import com.bumptech.glide.load.engine.cache.LruResourceCache;
+import com.bumptech.glide.load.model.GlideUrl;
+import com.bumptech.glide.module.AppGlideModule;
+import com.bumptech.glide.request.RequestOptions;
+
+import java.io.File;
+import java.io.InputStream;
+
+import vn.edu.usth.flickrbrowser.core.api.ApiClient;
+
+/**
+ * Cấu hình Glide cho cả app.
+ *
+ * - Ảnh tải qua OkHttpClient của {@link ApiClient} ({@link ApiClient#getImageClient()}): chung
+ *   connection pool / DNS cache với API, và {@link vn.edu.usth.flickrbrowser.core.api.NetworkTracer}
+ *   đo được băng thông ảnh cho NetworkQuality.
+ * - Memory cache / bitmap pool theo memory class của máy; máy RAM thấp dùng một nửa và decode
+ *   mặc định RGB_565.
+ * - Disk cache hai tầng ({@link TieredDiskCache}): thumbnail và ảnh lớn có ngân sách riêng.
+ */
+@GlideModule
+public final class BrowserGlideModule extends AppGlideModule {
+
+    private static final String TAG = "BrowserGlideModule";
+
+    private static final long THUMB_DISK_BYTES = 64L * 1024 * 1024;
+    private static final long FULL_DISK_BYTES = 192L * 1024 * 1024;
+    private static final String THUMB_DIR = "glide_thumbs";
+    private static final String FULL_DIR = "glide_full";
+
+    // Phần heap của app dành cho memory cache / bitmap pool
+    private static final int MEMORY_CACHE_DIVISOR = 8;
+    private static final int BITMAP_POOL_DIVISOR = 16;
+
+    /** Kích thước memory cache của Glide (byte) trên máy này; preloader của grid chia ngân sách theo đó. */
+    public static long memoryCacheBytes(@NonNull Context context) {
+        return heapShare(context, MEMORY_CACHE_DIVISOR);
+    }
+
+    private static long heapShare(Context context, int divisor) {
+        ActivityManager am = context.getSystemService(ActivityManager.class);
+        long heap = (am != null ? am.getMemoryClass() : 64) * 1024L * 1024;
+        int shrink = isLowRam(context) ? 2 : 1;
+        return heap / divisor / shrink;
+    }
+
+    private static boolean isLowRam(Context context) {
+        ActivityManager am = context.getSystemService(ActivityManager.class);
+        return am != null && am.isLowRamDevice();
+    }
+
+    @Override
+    public void applyOptions(@NonNull Context context, @NonNull GlideBuilder builder) {
+        boolean lowRam = isLowRam(context);
+        long memoryCache = memoryCacheBytes(context);
+        long bitmapPool = heapShare(context, BITMAP_POOL_DIVISOR);
+
+        builder.setMemoryCache(new LruResourceCache(memoryCache))
+                .setBitmapPool(new LruBitmapPool(bitmapPool))
+                .setDiskCache(() -> {
+                    // Chạy trên thread disk của Glide, lần đầu cần tới cache
+                    File cacheDir = context.getCacheDir();
+                    deleteRecursively(new File(cacheDir, DiskCache.Factory.DEFAULT_DISK_CACHE_DIR));
+                    return new TieredDiskCache(new File(cacheDir, THUMB_DIR), THUMB_DISK_BYTES,
+                            new File(cacheDir, FULL_DIR), FULL_DISK_BYTES);
+                });
+        if (lowRam) {
+            builder.setDefaultRequestOptions(new RequestOptions().format(DecodeFormat.PREFER_RGB_565));
+        }
+        Log.d(TAG, "memoryCache=" + memoryCache / 1024 + "KB, bitmapPool=" + bitmapPool / 1024
+                + "KB, lowRam=" + lowRam);
+    }
+
+    @Override
+    public void registerComponents(@NonNull Context context, @NonNull Glide glide, @NonNull Registry registry) {
+        registry.replace(GlideUrl.class, InputStream.class, new OkHttpUrlLoader.Factory(ApiClient.getImageClient()));
+    }
+
+    @Override
+    public boolean isManifestParsingEnabled() {
+        return false;
+    }
+
+    /** Disk cache một tầng của bản trước (thư mục mặc định của Glide) không còn được dùng. */
+    private static void deleteRecursively(File f) {
+        if (!f.exists()) return;
+        File[] children = f.listFiles();
+        if (children != null) {
+            for (File c : children) deleteRecursively(c);
+        }
+        if (!f.delete()) Log.w(TAG, "cannot delete " + f);
+    }
+}
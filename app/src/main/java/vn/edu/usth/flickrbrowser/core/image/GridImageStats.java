@@ -0,0 +1,78 @@
+package vn.edu.usth.flickrbrowser.core.image;
+
+import android.graphics.drawable.Drawable;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.bumptech.glide.load.DataSource;
+import com.bumptech.glide.load.engine.GlideException;
+import com.bumptech.glide.request.RequestListener;
+import com.bumptech.glide.request.target.Target;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bộ đếm hiệu quả preload của các grid (Explore, Search).
+ *
+ * - binds: ảnh của một ô đã hiện (kể cả từ disk / mạng)
+ * - memoryHits: ảnh có sẵn trong memory cache khi bind → hiện ngay, không qua skeleton
+ * - preloads: request preload đã gửi ({@link vn.edu.usth.flickrbrowser.ui.common.GridImagePreloader})
+ *
+ * Logcat tag "GridImageStats", một dòng mỗi LOG_EVERY lần bind.
+ */
+public final class GridImageStats {
+
+    private static final String TAG = "GridImageStats";
+    private static final int LOG_EVERY = 100;
+
+    private static final AtomicLong BINDS = new AtomicLong();
+    private static final AtomicLong MEMORY_HITS = new AtomicLong();
+    private static final AtomicLong PRELOADS = new AtomicLong();
+
+    /** Gắn vào request ảnh lúc bind của grid. */
+    public static final RequestListener<Drawable> BIND_LISTENER = new RequestListener<Drawable>() {
+        @Override
+        public boolean onLoadFailed(@Nullable GlideException e, Object model,
+                                    @NonNull Target<Drawable> target, boolean isFirstResource) {
+            return false;
+        }
+
+        @Override
+        public boolean onResourceReady(@NonNull Drawable resource, @NonNull Object model, Target<Drawable> target,
+                                       @NonNull DataSource dataSource, boolean isFirstResource) {
+            onBind(dataSource == DataSource.MEMORY_CACHE);
+            return false;
+        }
+    };
+
+    private GridImageStats() {}
+
+    static void onBind(boolean memoryHit) {
+        long binds = BINDS.incrementAndGet();
+        if (memoryHit) MEMORY_HITS.incrementAndGet();
+        if (binds % LOG_EVERY == 0) Log.d(TAG, summary());
+    }
+
+    public static void onPreload() {
+        PRELOADS.incrementAndGet();
+    }
+
+    public static long getBinds() { return BINDS.get(); }
+    public static long getMemoryHits() { return MEMORY_HITS.get(); }
+    public static long getPreloads() { return PRELOADS.get(); }
+
+    /** Tỉ lệ bind có ảnh ngay từ memory cache; 0 khi chưa có bind nào. */
+    public static double getMemoryHitRatio() {
+        long binds = BINDS.get();
+        return binds == 0 ? 0 : (double) MEMORY_HITS.get() / binds;
+    }
+
+    @NonNull
+    public static String summary() {
+        return String.format(Locale.US, "binds=%d, memoryHits=%d (%.0f%%), preloads=%d",
+                getBinds(), getMemoryHits(), getMemoryHitRatio() * 100, getPreloads());
+    }
+}
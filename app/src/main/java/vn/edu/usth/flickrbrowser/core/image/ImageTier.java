@@ -0,0 +1,36 @@
+package vn.edu.usth.flickrbrowser.core.image;
+
+import androidx.annotation.NonNull;
+
+import com.bumptech.glide.load.DecodeFormat;
+import com.bumptech.glide.load.Key;
+import com.bumptech.glide.request.RequestOptions;
+import com.bumptech.glide.signature.ObjectKey;
+
+/**
+ * Hai tầng ảnh của Glide: thumbnail (grid, bản nhỏ LQIP) và ảnh lớn (feed Home, Detail).
+ *
+ * Request thumbnail mang {@link #THUMB}: signature riêng để {@link TieredDiskCache} xếp vào
+ * disk cache thumbnail, và decode RGB_565 (nửa bộ nhớ, ô nhỏ không thấy khác). Mọi nơi load
+ * cùng một URL thumbnail (grid, LQIP, job tải nền) phải cùng apply {@link #THUMB} thì mới
+ * trúng cache của nhau.
+ */
+public final class ImageTier {
+
+    static final String THUMB_TAG = "disk-tier:thumb";
+
+    public static final RequestOptions THUMB = new RequestOptions()
+            .signature(new ObjectKey(THUMB_TAG))
+            .format(DecodeFormat.PREFER_RGB_565)
+            .lock();
+
+    private ImageTier() {}
+
+    /**
+     * Key của disk cache (DataCacheKey / ResourceCacheKey) không lộ signature ra ngoài,
+     * nhưng toString() có in signature → nhận tầng theo tag.
+     */
+    static boolean isThumb(@NonNull Key key) {
+        return key.toString().contains(THUMB_TAG);
+    }
+}
@@ -0,0 +1,196 @@
+package vn.edu.usth.flickrbrowser.core.image;
+
+import android.content.Context;
+import android.util.DisplayMetrics;
+
+import androidx.annotation.NonNull;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import vn.edu.usth.flickrbrowser.core.api.NetworkQuality;
+import vn.edu.usth.flickrbrowser.core.model.PhotoItem;
+
+/**
+ * Chọn URL ảnh theo kích thước (pixel) của view thay vì luôn dùng thumbUrl / fullUrl.
+ *
+ * - Pexels: biến thể nhỏ nhất trong {@code src} vẫn đủ phủ view; nếu biến thể đó vẫn lớn
+ *   hơn nhiều so với cần (hoặc không có biến thể nào đủ) thì dựng URL resize phía server từ
+ *   bản gốc với {@code w} / {@code h} / {@code auto=compress}, làm tròn lên theo bậc để các
+ *   view gần bằng nhau dùng chung URL (và chung cache).
+ * - Flickr: hậu tố kích thước (_t, _m, _n, _z, _c, _b…) nhỏ nhất đủ cạnh dài.
+ * - Không có thông tin gì (favorites lưu từ bản cũ…): thumbUrl cho ô nhỏ, fullUrl cho ô lớn.
+ *
+ * {@link #resolve} thuần Java (test được trên JVM); các hàm theo Context còn thu kích thước
+ * theo {@link NetworkQuality#imageScale()}.
+ */
+public final class ImageUrlResolver {
+
+    /** Cách view hiển thị ảnh. */
+    public enum Fit {
+        /** fitCenter / adjustViewBounds: ảnh nằm trong khung, chỉ cần đủ cạnh bị giới hạn. */
+        INSIDE,
+        /** centerCrop: ảnh phủ kín khung, cần đủ cả hai cạnh. */
+        CROP
+    }
+
+    public static final String FLICKR_THUMB = "t";
+    public static final String FLICKR_LARGE = "b";
+
+    // Hậu tố Flickr dùng được với secret của feed, theo cạnh dài (px); "" = 500px
+    private static final String[] FLICKR_SUFFIX = {"t", "m", "n", "", "z", "c", "b"};
+    private static final int[] FLICKR_LONG_EDGE = {100, 240, 320, 500, 640, 800, 1024};
+    private static final Pattern FLICKR_URL =
+            Pattern.compile("^(.*/\\d+_[0-9a-f]+)(?:_[a-z0-9])?\\.(jpg|png|gif)$");
+
+    // Hộp của các biến thể Pexels (imgix, fit=clip): h=130, h=350, 940x650, dpr=2 của 940x650
+    private static final int PEXELS_SMALL_H = 130, PEXELS_MEDIUM_H = 350;
+    private static final int PEXELS_LARGE_W = 940, PEXELS_LARGE_H = 650;
+    private static final int PEXELS_TINY_W = 280, PEXELS_TINY_H = 200; // crop cố định
+
+    // Ảnh nhỏ hơn cần tới 10% vẫn coi là đủ (Glide phóng lên không thấy khác)
+    private static final double UPSCALE_TOLERANCE = 0.9;
+    // Biến thể rộng hơn cần quá hệ số này (~2 lần số pixel) thì resize phía server
+    private static final double OVERSIZE_LIMIT = 1.4;
+    private static final int SIZE_STEP_PX = 100;
+    // Thiếu kích thước gốc thì giả định ảnh ngang 3:2 cỡ máy ảnh
+    private static final int ASSUMED_W = 6000, ASSUMED_H = 4000;
+    private static final int FALLBACK_THUMB_MAX_PX = 600;
+
+    private ImageUrlResolver() {}
+
+    // --------------------------------------
+    // Theo màn hình
+    // --------------------------------------
+
+    /** Ô rộng 1/{@code columns} màn hình (Home: 1 cột INSIDE; grid: ô vuông CROP). */
+    @NonNull
+    public static String forColumns(@NonNull Context context, @NonNull PhotoItem p, int columns, @NonNull Fit fit) {
+        DisplayMetrics dm = context.getResources().getDisplayMetrics();
+        int w = dm.widthPixels / Math.max(1, columns);
+        return forSize(p, w, fit == Fit.CROP ? w : 0, fit);
+    }
+
+    /** Ảnh phủ toàn màn hình (Detail). */
+    @NonNull
+    public static String forScreen(@NonNull Context context, @NonNull PhotoItem p) {
+        DisplayMetrics dm = context.getResources().getDisplayMetrics();
+        return forSize(p, dm.widthPixels, dm.heightPixels, Fit.CROP);
+    }
+
+    /** Như {@link #resolve}, kích thước thu nhỏ theo chất lượng mạng hiện tại. */
+    @NonNull
+    public static String forSize(@NonNull PhotoItem p, int widthPx, int heightPx, @NonNull Fit fit) {
+        float k = NetworkQuality.imageScale();
+        return resolve(p, Math.round(widthPx * k), Math.round(heightPx * k), fit);
+    }
+
+    // --------------------------------------
+    // Chọn URL
+    // --------------------------------------
+
+    /**
+     * URL nhỏ nhất đủ cho view {@code widthPx} x {@code heightPx}; {@code heightPx} = 0 với
+     * {@link Fit#INSIDE} nghĩa là chiều cao theo tỉ lệ ảnh.
+     */
+    @NonNull
+    public static String resolve(@NonNull PhotoItem p, int widthPx, int heightPx, @NonNull Fit fit) {
+        int tw = Math.max(1, widthPx);
+        int th = Math.max(0, heightPx);
+        if (notEmpty(p.originalUrl)) return pexels(p, tw, th, fit);
+
+        Matcher m = FLICKR_URL.matcher(orEmpty(p.getThumbUrl()));
+        if (m.matches()) return flickr(m, p, tw, th, fit);
+
+        String thumb = orEmpty(p.getThumbUrl());
+        String full = orEmpty(p.getFullUrl());
+        boolean small = Math.max(tw, th) <= FALLBACK_THUMB_MAX_PX;
+        if (small && !thumb.isEmpty()) return thumb;
+        return !full.isEmpty() ? full : thumb;
+    }
+
+    private static String pexels(PhotoItem p, int tw, int th, Fit fit) {
+        boolean knownSize = p.width > 0 && p.height > 0;
+        int w = knownSize ? p.width : ASSUMED_W;
+        int h = knownSize ? p.height : ASSUMED_H;
+
+        double need = Math.min(neededWidth(tw, th, (double) w / h, fit), w); // không phóng to quá bản gốc
+
+        if (fit == Fit.CROP && notEmpty(p.tinyUrl)
+                && tw * UPSCALE_TOLERANCE <= PEXELS_TINY_W && th * UPSCALE_TOLERANCE <= PEXELS_TINY_H) {
+            return p.tinyUrl;
+        }
+
+        // Các biến thể giữ tỉ lệ, từ nhỏ tới lớn
+        String[] urls = {p.smallUrl, p.mediumUrl, p.largeUrl, p.large2xUrl};
+        double[] widths = {
+                w * Math.min(1, (double) PEXELS_SMALL_H / h),
+                w * Math.min(1, (double) PEXELS_MEDIUM_H / h),
+                w * Math.min(1, Math.min((double) PEXELS_LARGE_W / w, (double) PEXELS_LARGE_H / h)),
+                w * Math.min(1, Math.min(2.0 * PEXELS_LARGE_W / w, 2.0 * PEXELS_LARGE_H / h)),
+        };
+        for (int i = 0; i < urls.length; i++) {
+            if (!notEmpty(urls[i]) || widths[i] < need * UPSCALE_TOLERANCE) continue;
+            if (widths[i] <= need * OVERSIZE_LIMIT) return urls[i];
+            break; // biến thể đủ nhỏ nhất vẫn quá lớn → resize phía server
+        }
+        return pexelsSized(p.originalUrl, tw, th, (int) Math.ceil(need), w, fit);
+    }
+
+    /** URL resize phía server từ bản gốc: {@code w} (INSIDE) hoặc {@code w}+{@code h}+{@code fit=crop}. */
+    private static String pexelsSized(String original, int tw, int th, int need, int maxW, Fit fit) {
+        int q = original.indexOf('?');
+        String base = q < 0 ? original : original.substring(0, q);
+        StringBuilder sb = new StringBuilder(base).append("?auto=compress&cs=tinysrgb");
+        if (fit == Fit.CROP && th > 0) {
+            sb.append("&w=").append(roundUp(tw)).append("&h=").append(roundUp(th)).append("&fit=crop");
+        } else {
+            sb.append("&w=").append(Math.min(roundUp(need), maxW));
+        }
+        return sb.toString();
+    }
+
+    private static String flickr(Matcher m, PhotoItem p, int tw, int th, Fit fit) {
+        // Tỉ lệ theo bản _m trong description; không có thì coi là ảnh ngang 4:3
+        double aspect = p.width > 0 && p.height > 0 ? (double) p.width / p.height : 4 / 3.0;
+        double width = neededWidth(tw, th, aspect, fit);
+        double need = aspect >= 1 ? width : width / aspect; // hậu tố Flickr tính theo cạnh dài
+        String suffix = FLICKR_LARGE;
+        for (int i = 0; i < FLICKR_SUFFIX.length; i++) {
+            if (FLICKR_LONG_EDGE[i] >= need * UPSCALE_TOLERANCE) {
+                suffix = FLICKR_SUFFIX[i];
+                break;
+            }
+        }
+        return withSuffix(m, suffix);
+    }
+
+    /** Đổi hậu tố kích thước của URL ảnh Flickr ({@code ""} = 500px); URL lạ thì giữ nguyên. */
+    @NonNull
+    public static String flickrSize(@NonNull String url, @NonNull String suffix) {
+        Matcher m = FLICKR_URL.matcher(url);
+        return m.matches() ? withSuffix(m, suffix) : url;
+    }
+
+    private static String withSuffix(Matcher m, String suffix) {
+        return m.group(1) + (suffix.isEmpty() ? "" : "_" + suffix) + "." + m.group(2);
+    }
+
+    /** Chiều rộng ảnh (tỉ lệ {@code aspect} = rộng / cao) cần có để vừa / phủ khung tw x th. */
+    private static double neededWidth(int tw, int th, double aspect, Fit fit) {
+        if (th == 0) return tw;
+        return fit == Fit.CROP ? Math.max(tw, th * aspect) : Math.min(tw, th * aspect);
+    }
+
+    private static int roundUp(double px) {
+        return (int) Math.ceil(px / SIZE_STEP_PX) * SIZE_STEP_PX;
+    }
+
+    private static boolean notEmpty(String s) {
+        return s != null && !s.isEmpty();
+    }
+
+    private static String orEmpty(String s) {
+        return s != null ? s : "";
+    }
+}
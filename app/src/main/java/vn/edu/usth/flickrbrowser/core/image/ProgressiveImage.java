@@ -0,0 +1,85 @@
+package vn.edu.usth.flickrbrowser.core.image;
+
+import android.content.Context;
+import android.graphics.drawable.Drawable;
+
+import androidx.annotation.NonNull;
+
+import com.bumptech.glide.Glide;
+import com.bumptech.glide.RequestBuilder;
+import com.bumptech.glide.RequestManager;
+import com.bumptech.glide.load.resource.drawable.DrawableTransitionOptions;
+import com.bumptech.glide.request.transition.DrawableCrossFadeFactory;
+
+import vn.edu.usth.flickrbrowser.core.model.PhotoItem;
+
+/**
+ * Tải ảnh lớn theo kiểu LQIP: hiện ngay một bản nhỏ, mờ (phóng lên từ vài chục pixel), rồi
+ * crossfade sang ảnh đích khi decode xong.
+ *
+ * Bản nhỏ lấy theo thứ tự:
+ * 1. URL mà grid / feed đã load cho ảnh này, chỉ từ cache của Glide (không tạo request mạng
+ *    mới, trùng với thứ đã tải);
+ * 2. biến thể nhỏ nhất qua mạng (Pexels {@code small}, Flickr {@code _t}).
+ *
+ * Ảnh đích đã có trong memory cache thì Glide trả ngay, bỏ qua bản nhỏ.
+ */
+public final class ProgressiveImage {
+
+    // Decode bản nhỏ ở cỡ này; ImageView phóng lên có lọc nên tự mờ, không tốn bitmap lớn
+    private static final int LQIP_DECODE_PX = 48;
+    private static final int CROSS_FADE_MS = 250;
+    // Grid của Explore / Search / Favorites
+    private static final int GRID_COLUMNS = 2;
+
+    // Ảnh đích phủ lên bản nhỏ (không tắt bản nhỏ trước) → không chớp về placeholder
+    private static final DrawableTransitionOptions CROSS_FADE = DrawableTransitionOptions.with(
+            new DrawableCrossFadeFactory.Builder(CROSS_FADE_MS).setCrossFadeEnabled(true).build());
+
+    private ProgressiveImage() {}
+
+    /** Request cho {@code url} kèm bản nhỏ; caller thêm placeholder / error / into như thường. */
+    @NonNull
+    public static RequestBuilder<Drawable> load(@NonNull Context context, @NonNull PhotoItem p, @NonNull String url) {
+        RequestManager glide = Glide.with(context);
+        return glide.load(url)
+                .thumbnail(lowRes(glide, context, p, url))
+                .transition(CROSS_FADE);
+    }
+
+    private static RequestBuilder<Drawable> lowRes(RequestManager glide, Context context, PhotoItem p, String url) {
+        // Bước cuối: biến thể nhỏ nhất qua mạng
+        RequestBuilder<Drawable> chain = glide.load(smallestUrl(p))
+                .apply(ImageTier.THUMB)
+                .override(LQIP_DECODE_PX);
+
+        // URL các màn hình khác có thể đã load, chỉ đọc cache; nối bằng error() nên URL thêm sau được
+        // thử trước. Grid nằm ở tầng thumbnail của disk cache, feed Home ở tầng ảnh lớn.
+        chain = fromCache(glide, ImageUrlResolver.forColumns(context, p, GRID_COLUMNS, ImageUrlResolver.Fit.CROP),
+                true, url, chain);
+        chain = fromCache(glide, ImageUrlResolver.forColumns(context, p, 1, ImageUrlResolver.Fit.INSIDE),
+                false, url, chain);
+        return chain;
+    }
+
+    private static RequestBuilder<Drawable> fromCache(RequestManager glide, String cachedUrl, boolean thumb,
+                                                      String url, RequestBuilder<Drawable> orElse) {
+        if (cachedUrl.isEmpty() || cachedUrl.equals(url)) return orElse;
+        RequestBuilder<Drawable> r = glide.load(cachedUrl);
+        if (thumb) r = r.apply(ImageTier.THUMB);
+        return r.onlyRetrieveFromCache(true)
+                .override(LQIP_DECODE_PX)
+                .error(orElse);
+    }
+
+    /** Biến thể nhỏ nhất giữ nguyên tỉ lệ ảnh (tiny của Pexels bị crop nên không dùng). */
+    @NonNull
+    static String smallestUrl(@NonNull PhotoItem p) {
+        if (p.smallUrl != null && !p.smallUrl.isEmpty()) return p.smallUrl;
+        String thumb = p.getThumbUrl() != null ? p.getThumbUrl() : "";
+        if (p.originalUrl == null || p.originalUrl.isEmpty()) {
+            return ImageUrlResolver.flickrSize(thumb, ImageUrlResolver.FLICKR_THUMB);
+        }
+        return thumb;
+    }
+}
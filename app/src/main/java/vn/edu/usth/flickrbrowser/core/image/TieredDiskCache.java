@@ -0,0 +1,51 @@
+package vn.edu.usth.flickrbrowser.core.image;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.bumptech.glide.load.Key;
+import com.bumptech.glide.load.engine.cache.DiskCache;
+import com.bumptech.glide.load.engine.cache.DiskLruCacheWrapper;
+
+import java.io.File;
+
+/**
+ * Disk cache của Glide chia hai thư mục, mỗi thư mục một ngân sách: ảnh lớn của Detail / Home
+ * chỉ đẩy nhau ra, không đẩy thumbnail của grid (và ngược lại). Tầng theo {@link ImageTier}.
+ */
+final class TieredDiskCache implements DiskCache {
+
+    private final DiskCache thumbs;
+    private final DiskCache full;
+
+    TieredDiskCache(@NonNull File thumbDir, long thumbBytes, @NonNull File fullDir, long fullBytes) {
+        this.thumbs = DiskLruCacheWrapper.create(thumbDir, thumbBytes);
+        this.full = DiskLruCacheWrapper.create(fullDir, fullBytes);
+    }
+
+    private DiskCache tier(Key key) {
+        return ImageTier.isThumb(key) ? thumbs : full;
+    }
+
+    @Nullable
+    @Override
+    public File get(Key key) {
+        return tier(key).get(key);
+    }
+
+    @Override
+    public void put(Key key, Writer writer) {
+        tier(key).put(key, writer);
+    }
+
+    @Override
+    public void delete(Key key) {
+        tier(key).delete(key);
+    }
+
+    @Override
+    public void clear() {
+        thumbs.clear();
+        full.clear();
+    }
+}
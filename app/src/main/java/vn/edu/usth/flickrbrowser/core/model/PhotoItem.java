@@ -18,6 +18,18 @@ public class PhotoItem implements Serializable {
     public String thumbUrl = "";
     public String fullUrl = "";
     public String pageUrl = ""; // link trang ảnh trên Pexels
+    public int width;            // kích thước gốc (Pexels) / của bản _m (Flickr feed), 0 nếu không rõ
+    public int height;
+    public String avgColor = ""; // màu trung bình "#RRGGBB" (Pexels), rỗng nếu không có
+
+    // ====== Các biến thể kích thước của Pexels (src), rỗng với Flickr ======
+    // thumbUrl / fullUrl = medium / large2x; chọn theo kích thước view: ImageUrlResolver
+    public String tinyUrl = "";      // 280x200 crop
+    public String smallUrl = "";     // h=130
+    public String mediumUrl = "";    // h=350
+    public String largeUrl = "";     // trong khung 940x650
+    public String large2xUrl = "";   // trong khung 1880x1300
+    public String originalUrl = "";  // bản gốc, gắn thêm w/h để resize phía server
 
 
     // ====== Lấy ảnh thumbnail ======
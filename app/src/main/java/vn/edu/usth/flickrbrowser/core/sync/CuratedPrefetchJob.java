@@ -0,0 +1,192 @@
+package vn.edu.usth.flickrbrowser.core.sync;
+
+import android.app.job.JobInfo;
+import android.app.job.JobParameters;
+import android.app.job.JobScheduler;
+import android.app.job.JobService;
+import android.content.ComponentName;
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import com.bumptech.glide.Glide;
+import com.bumptech.glide.RequestBuilder;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import vn.edu.usth.flickrbrowser.core.api.FlickrRepo;
+import vn.edu.usth.flickrbrowser.core.api.PageInfo;
+import vn.edu.usth.flickrbrowser.core.api.RequestHandle;
+import vn.edu.usth.flickrbrowser.core.api.RequestPriority;
+import vn.edu.usth.flickrbrowser.core.image.ImageTier;
+import vn.edu.usth.flickrbrowser.core.image.ImageUrlResolver;
+import vn.edu.usth.flickrbrowser.core.model.PhotoItem;
+
+/**
+ * Tải nền các trang curated đầu tiên + ảnh của chúng khi máy rảnh, đang sạc và dùng mạng
+ * không tính cước, để lần cold start sau Home / Explore hiện ngay từ FeedStore và Glide disk cache.
+ *
+ * - Trang đi qua FlickrRepo (conditional GET, độ ưu tiên PREFETCH) nên tự được ghi vào FeedStore.
+ * - Ảnh được tải bằng Glide vào disk cache đúng URL mà màn hình sẽ load; dừng khi tổng byte ảnh
+ *   chạm MAX_BYTES_PER_RUN (vài trang JSON không đáng kể so với ảnh).
+ * - Hệ thống dừng job (mất Wi-Fi, rút sạc…) → huỷ request đang chạy, lên lịch lại.
+ *
+ * Kết quả mỗi lần chạy và tỉ lệ được hiện: {@link PrefetchStats}.
+ */
+public class CuratedPrefetchJob extends JobService {
+
+    private static final String TAG = "CuratedPrefetchJob";
+    private static final int JOB_ID = 0x5046; // "PF"
+    private static final long PERIOD_MS = TimeUnit.HOURS.toMillis(6);
+
+    // Kích thước mặc định của Home / Explore; FeedStore đọc trang lưu với mọi per_page
+    private static final int HOME_PER_PAGE = 10;
+    private static final int HOME_PAGES = 3;
+    private static final int EXPLORE_PER_PAGE = 12;
+    private static final int EXPLORE_PAGES = 1;
+    // Phải khớp grid của ExploreFragment để URL ảnh tải trước trùng URL màn hình load
+    private static final int EXPLORE_COLUMNS = 2;
+
+    private static final long MAX_BYTES_PER_RUN = 12L * 1024 * 1024;
+    private static final long PAGE_TIMEOUT_S = 30;
+    private static final long IMAGE_TIMEOUT_S = 30;
+
+    private volatile boolean stopped;
+    private final AtomicReference<RequestHandle> current = new AtomicReference<>(RequestHandle.NONE);
+
+    /** Gọi từ Application.onCreate(); không làm gì nếu job đã được lên lịch. */
+    public static void schedule(@NonNull Context context) {
+        JobScheduler scheduler = context.getSystemService(JobScheduler.class);
+        if (scheduler == null || scheduler.getPendingJob(JOB_ID) != null) return;
+        JobInfo job = new JobInfo.Builder(JOB_ID, new ComponentName(context, CuratedPrefetchJob.class))
+                .setRequiredNetworkType(JobInfo.NETWORK_TYPE_UNMETERED)
+                .setRequiresCharging(true)
+                .setRequiresDeviceIdle(true)
+                .setPeriodic(PERIOD_MS)
+                .setPersisted(true)
+                .build();
+        int result = scheduler.schedule(job);
+        Log.d(TAG, "schedule -> " + (result == JobScheduler.RESULT_SUCCESS ? "ok" : "failed"));
+    }
+
+    @Override
+    public boolean onStartJob(JobParameters params) {
+        stopped = false;
+        Thread worker = new Thread(() -> {
+            run();
+            // Bị dừng thì onStopJob đã trả lời hệ thống
+            if (!stopped) jobFinished(params, false);
+        }, "curated-prefetch");
+        worker.start();
+        return true;
+    }
+
+    @Override
+    public boolean onStopJob(JobParameters params) {
+        stopped = true;
+        current.getAndSet(RequestHandle.NONE).cancel();
+        return true; // thử lại lần sau khi đủ điều kiện
+    }
+
+    private void run() {
+        long startedAt = System.currentTimeMillis();
+        int pages = 0;
+        List<String> homeImages = new ArrayList<>();
+        List<String> exploreImages = new ArrayList<>();
+
+        for (int page = 1; page <= HOME_PAGES && !stopped; page++) {
+            List<PhotoItem> items = fetchPage(page, HOME_PER_PAGE);
+            if (items.isEmpty()) break;
+            pages++;
+            // Cùng URL mà HomeAdapter / ExploreAdapter sẽ chọn cho màn hình này
+            for (PhotoItem p : items) {
+                homeImages.add(ImageUrlResolver.forColumns(this, p, 1, ImageUrlResolver.Fit.INSIDE));
+            }
+        }
+        for (int page = 1; page <= EXPLORE_PAGES && !stopped; page++) {
+            List<PhotoItem> items = fetchPage(page, EXPLORE_PER_PAGE);
+            if (items.isEmpty()) break;
+            pages++;
+            for (PhotoItem p : items) {
+                exploreImages.add(ImageUrlResolver.forColumns(this, p, EXPLORE_COLUMNS, ImageUrlResolver.Fit.CROP));
+            }
+        }
+
+        // Xen kẽ hai màn hình để cap byte không dồn hết cho ảnh lớn của Home
+        int images = 0;
+        long bytes = 0;
+        List<List<String>> queues = Arrays.asList(homeImages, exploreImages);
+        for (int i = 0; i < Math.max(homeImages.size(), exploreImages.size()); i++) {
+            for (List<String> urls : queues) {
+                if (stopped || bytes >= MAX_BYTES_PER_RUN || i >= urls.size()) continue;
+                // Grid của Explore đọc ảnh ở tầng thumbnail của Glide
+                long size = fetchImage(urls.get(i), urls == exploreImages);
+                if (size > 0) {
+                    images++;
+                    bytes += size;
+                }
+            }
+        }
+        PrefetchStats.onRun(startedAt, System.currentTimeMillis(), pages, images, bytes);
+    }
+
+    /** Tải một trang curated (chặn worker thread tới khi xong); lỗi → danh sách rỗng. */
+    private List<PhotoItem> fetchPage(int page, int perPage) {
+        CountDownLatch done = new CountDownLatch(1);
+        AtomicReference<List<PhotoItem>> result = new AtomicReference<>(Collections.emptyList());
+        RequestHandle handle = FlickrRepo.refreshRecent(page, perPage, RequestPriority.PREFETCH, new FlickrRepo.CB() {
+            boolean fromPexels;
+
+            @Override
+            public void pageInfo(PageInfo info) {
+                fromPexels = info.isKnown();
+            }
+
+            @Override
+            public void ok(List<PhotoItem> items) {
+                // Kết quả fallback Flickr feed không được lưu vào FeedStore → không tải ảnh của nó
+                if (items != null && fromPexels) result.set(items);
+                done.countDown();
+            }
+
+            @Override
+            public void err(Throwable e) {
+                Log.d(TAG, "page " + page + " failed: " + e.getMessage());
+                done.countDown();
+            }
+        });
+        current.set(handle);
+        try {
+            if (!done.await(PAGE_TIMEOUT_S, TimeUnit.SECONDS)) handle.cancel();
+        } catch (InterruptedException e) {
+            handle.cancel();
+            Thread.currentThread().interrupt();
+        }
+        current.set(RequestHandle.NONE);
+        return stopped ? Collections.emptyList() : result.get();
+    }
+
+    /** Tải ảnh vào Glide disk cache (tầng thumbnail / ảnh lớn); trả về số byte của file, 0 nếu lỗi. */
+    private long fetchImage(String url, boolean thumb) {
+        if (url == null || url.isEmpty()) return 0;
+        try {
+            RequestBuilder<File> request = Glide.with(getApplicationContext())
+                    .downloadOnly()
+                    .load(url);
+            if (thumb) request = request.apply(ImageTier.THUMB);
+            File file = request.submit().get(IMAGE_TIMEOUT_S, TimeUnit.SECONDS);
+            return file != null ? file.length() : 0;
+        } catch (Exception e) {
+            Log.d(TAG, "image failed: " + url, e);
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package vn.edu.usth.flickrbrowser.core.sync;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import java.util.Locale;
+
+/**
+ * Thống kê của {@link CuratedPrefetchJob}: số lần chạy, byte đã tải, và bao nhiêu lần nội dung
+ * tải nền thực sự được hiện (trang lấy từ FeedStore có fetched_at nằm trong một lần chạy).
+ *
+ * Lưu trong SharedPreferences để cộng dồn qua các process; xem Logcat tag "PrefetchStats".
+ */
+public final class PrefetchStats {
+
+    private static final String TAG = "PrefetchStats";
+    private static final String PREFS_NAME = "prefetch_stats";
+
+    private static final String KEY_RUNS = "runs";
+    private static final String KEY_RUNS_SHOWN = "runs_shown";
+    private static final String KEY_PAGES = "pages";
+    private static final String KEY_IMAGES = "images";
+    private static final String KEY_BYTES = "bytes";
+    private static final String KEY_PAGES_SHOWN = "pages_shown";
+    private static final String KEY_LAST_START = "last_start";
+    private static final String KEY_LAST_END = "last_end";
+    private static final String KEY_LAST_SHOWN = "last_shown";
+
+    private static volatile SharedPreferences prefs;
+
+    private PrefetchStats() {}
+
+    /** Gọi từ Application.onCreate(). */
+    public static void init(@NonNull Context context) {
+        prefs = context.getApplicationContext().getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+    }
+
+    /** Một lần chạy của job đã xong (kể cả bị dừng giữa chừng). */
+    static synchronized void onRun(long startedAt, long endedAt, int pages, int images, long bytes) {
+        SharedPreferences p = prefs;
+        if (p == null) return;
+        p.edit()
+                .putLong(KEY_RUNS, p.getLong(KEY_RUNS, 0) + 1)
+                .putLong(KEY_PAGES, p.getLong(KEY_PAGES, 0) + pages)
+                .putLong(KEY_IMAGES, p.getLong(KEY_IMAGES, 0) + images)
+                .putLong(KEY_BYTES, p.getLong(KEY_BYTES, 0) + bytes)
+                .putLong(KEY_LAST_START, startedAt)
+                .putLong(KEY_LAST_END, endedAt)
+                .putBoolean(KEY_LAST_SHOWN, false)
+                .apply();
+        Log.i(TAG, String.format(Locale.US, "run: %d pages, %d images, %dKB | %s",
+                pages, images, bytes / 1024, summary()));
+    }
+
+    /**
+     * Màn hình vừa hiện một trang lưu trên disk tải lúc {@code fetchedAt}
+     * (System.currentTimeMillis()); chỉ tính khi trang đó do lần chạy gần nhất của job tải.
+     */
+    public static synchronized void onStoredPageShown(long fetchedAt) {
+        SharedPreferences p = prefs;
+        if (p == null) return;
+        long start = p.getLong(KEY_LAST_START, 0);
+        long end = p.getLong(KEY_LAST_END, 0);
+        if (start == 0 || fetchedAt < start || fetchedAt > end) return;
+
+        SharedPreferences.Editor e = p.edit().putLong(KEY_PAGES_SHOWN, p.getLong(KEY_PAGES_SHOWN, 0) + 1);
+        if (!p.getBoolean(KEY_LAST_SHOWN, false)) {
+            e.putLong(KEY_RUNS_SHOWN, p.getLong(KEY_RUNS_SHOWN, 0) + 1).putBoolean(KEY_LAST_SHOWN, true);
+        }
+        e.apply();
+    }
+
+    /** Tỉ lệ lần chạy có nội dung được hiện ít nhất một lần; 0 khi chưa chạy lần nào. */
+    public static double getShownRatio() {
+        SharedPreferences p = prefs;
+        if (p == null) return 0;
+        long runs = p.getLong(KEY_RUNS, 0);
+        return runs == 0 ? 0 : (double) p.getLong(KEY_RUNS_SHOWN, 0) / runs;
+    }
+
+    @NonNull
+    public static String summary() {
+        SharedPreferences p = prefs;
+        if (p == null) return "n/a";
+        return String.format(Locale.US,
+                "runs=%d, shown=%d (%.0f%%), pages=%d, pagesShown=%d, images=%d, total=%dKB",
+                p.getLong(KEY_RUNS, 0), p.getLong(KEY_RUNS_SHOWN, 0), getShownRatio() * 100,
+                p.getLong(KEY_PAGES, 0), p.getLong(KEY_PAGES_SHOWN, 0),
+                p.getLong(KEY_IMAGES, 0), p.getLong(KEY_BYTES, 0) / 1024);
+    }
+}
@@ -0,0 +1,78 @@
+package vn.edu.usth.flickrbrowser.core.util;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.Process;
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.util.Locale;
+
+import vn.edu.usth.flickrbrowser.BuildConfig;
+
+/**
+ * Đo time-to-content của trang đầu: từ lúc process khởi động tới khi Home hiển thị ảnh.
+ *
+ * Bản debug xen kẽ bật / tắt network warm-up theo từng lần cold start và cộng dồn trung bình
+ * của hai nhóm vào SharedPreferences, để so sánh trực tiếp trên máy thật (xem Logcat tag
+ * "StartupMetrics"). Bản release luôn bật warm-up.
+ */
+public final class StartupMetrics {
+
+    private static final String TAG = "StartupMetrics";
+    private static final String PREFS_NAME = "startup_metrics";
+    private static final String KEY_LAST_WARMUP = "last_warmup";
+    // Bỏ các mẫu bất thường (đứng ở màn hình đăng nhập, app bị đẩy xuống nền…)
+    private static final long MAX_SAMPLE_MS = 30_000;
+
+    private static long processStart;
+    private static boolean warmupEnabled = true;
+    private static boolean reported;
+
+    private StartupMetrics() {}
+
+    /** Gọi từ Application.onCreate(); trả về true nếu lần khởi động này nên chạy warm-up. */
+    public static boolean onAppStart(Context context) {
+        processStart = Process.getStartUptimeMillis();
+        if (BuildConfig.DEBUG) {
+            SharedPreferences prefs = prefs(context);
+            warmupEnabled = !prefs.getBoolean(KEY_LAST_WARMUP, false);
+            prefs.edit().putBoolean(KEY_LAST_WARMUP, warmupEnabled).apply();
+        }
+        return warmupEnabled;
+    }
+
+    /** Gọi khi trang đầu tiên được hiển thị; chỉ lần đầu trong process được tính. */
+    public static void onFirstContent(Context context) {
+        if (reported || processStart == 0 || context == null) return;
+        reported = true;
+
+        long ttc = SystemClock.uptimeMillis() - processStart;
+        if (ttc > MAX_SAMPLE_MS) return;
+
+        String bucket = warmupEnabled ? "warm" : "cold";
+        SharedPreferences prefs = prefs(context);
+        long n = prefs.getLong(bucket + "_n", 0) + 1;
+        long sum = prefs.getLong(bucket + "_sum", 0) + ttc;
+        prefs.edit().putLong(bucket + "_n", n).putLong(bucket + "_sum", sum).apply();
+
+        Log.i(TAG, String.format(Locale.US,
+                "first page TTC=%dms (warm-up %s) | avg warm-up on=%s, off=%s",
+                ttc, warmupEnabled ? "on" : "off",
+                average(prefs, "warm"), average(prefs, "cold")));
+    }
+
+    public static boolean isWarmupEnabled() {
+        return warmupEnabled;
+    }
+
+    private static String average(SharedPreferences prefs, String bucket) {
+        long n = prefs.getLong(bucket + "_n", 0);
+        if (n == 0) return "n/a";
+        return (prefs.getLong(bucket + "_sum", 0) / n) + "ms (n=" + n + ")";
+    }
+
+    private static SharedPreferences prefs(Context context) {
+        return context.getApplicationContext().getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+    }
+}
@@ -0,0 +1,49 @@
+package vn.edu.usth.flickrbrowser.ui.common;
+
+import android.content.Context;
+import android.util.AttributeSet;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.appcompat.widget.AppCompatImageView;
+
+/**
+ * ImageView có chiều cao = chiều rộng × tỉ lệ ảnh, biết trước khi bitmap về (từ width / height
+ * trong metadata) nên row không đổi chiều cao khi ảnh load xong.
+ * Chưa có tỉ lệ thì đo như ImageView thường (adjustViewBounds theo bitmap).
+ */
+public class AspectRatioImageView extends AppCompatImageView {
+
+    private float ratio; // cao / rộng; 0 = chưa biết
+
+    public AspectRatioImageView(@NonNull Context context) {
+        super(context);
+    }
+
+    public AspectRatioImageView(@NonNull Context context, @Nullable AttributeSet attrs) {
+        super(context, attrs);
+    }
+
+    public AspectRatioImageView(@NonNull Context context, @Nullable AttributeSet attrs, int defStyleAttr) {
+        super(context, attrs, defStyleAttr);
+    }
+
+    /** Kích thước ảnh (bất kỳ đơn vị nào, chỉ dùng tỉ lệ); 0 = không rõ. */
+    public void setAspectRatio(int width, int height) {
+        float r = width > 0 && height > 0 ? (float) height / width : 0f;
+        if (r != ratio) {
+            ratio = r;
+            requestLayout();
+        }
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        if (ratio <= 0 || MeasureSpec.getMode(widthMeasureSpec) != MeasureSpec.EXACTLY) {
+            super.onMeasure(widthMeasureSpec, heightMeasureSpec);
+            return;
+        }
+        int w = MeasureSpec.getSize(widthMeasureSpec);
+        setMeasuredDimension(w, Math.round(w * ratio));
+    }
+}
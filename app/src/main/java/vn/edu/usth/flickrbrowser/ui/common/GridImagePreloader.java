@@ -0,0 +1,177 @@
+package vn.edu.usth.flickrbrowser.ui.common;
+
+import android.graphics.drawable.Drawable;
+import android.os.SystemClock;
+import android.view.View;
+
+import androidx.annotation.IdRes;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.recyclerview.widget.GridLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.bumptech.glide.Glide;
+import com.bumptech.glide.Priority;
+import com.bumptech.glide.RequestBuilder;
+import com.bumptech.glide.RequestManager;
+import com.bumptech.glide.request.target.Target;
+
+import java.util.ArrayDeque;
+
+import vn.edu.usth.flickrbrowser.core.image.BrowserGlideModule;
+import vn.edu.usth.flickrbrowser.core.image.GridImageStats;
+
+/**
+ * Preload thumbnail cho grid (Explore, Search): theo hướng cuộn, gửi trước request của N ô
+ * kế tiếp với đúng kích thước ô, để lúc bind ảnh đã nằm trong memory cache.
+ *
+ * - Request preload là đúng request lúc bind ({@link RequestProvider}) + kích thước ô đo từ
+ *   ImageView đang hiển thị → cùng key memory cache.
+ * - N theo tốc độ cuộn (đủ cho LOOKAHEAD_MS), tối thiểu 2 hàng, và không quá một phần memory
+ *   cache của Glide (byte mỗi ảnh RGB_565 = rộng × cao × 2).
+ * - Đổi hướng cuộn thì huỷ các preload còn đang chạy của hướng cũ.
+ *
+ * Tỉ lệ bind trúng memory: {@link GridImageStats}. Chạy trên main thread.
+ */
+public class GridImagePreloader extends RecyclerView.OnScrollListener {
+
+    /** Request ảnh của ô ở {@code position} như lúc bind; null nếu ô đó không phải ảnh (footer loading). */
+    public interface RequestProvider {
+        @Nullable
+        RequestBuilder<Drawable> request(int position);
+    }
+
+    private static final int MAX_PRELOAD = 24;
+    // Preload đủ số ô sẽ lướt qua trong khoảng này
+    private static final long LOOKAHEAD_MS = 1200;
+    // Phần memory cache được phép dùng cho ảnh preload chưa hiện
+    private static final int MEMORY_BUDGET_DIVISOR = 4;
+    private static final int BYTES_PER_PIXEL = 2; // RGB_565 của ImageTier.THUMB
+    private static final long VELOCITY_SAMPLE_MS = 100;
+    private static final long VELOCITY_IDLE_MS = 500;
+    private static final double EMA_ALPHA = 0.3;
+
+    private final GridLayoutManager lm;
+    @IdRes
+    private final int imageViewId;
+    private final RequestProvider provider;
+    private final RequestManager glide;
+    private final long memoryBudget;
+
+    private final ArrayDeque<Target<Drawable>> targets = new ArrayDeque<>();
+    private boolean forward = true;
+    private int preloadedUpTo = -1;           // forward: đã preload tới vị trí này (gồm)
+    private int preloadedDownTo = Integer.MAX_VALUE; // backward: đã preload xuống tới vị trí này
+
+    private int lastPosition = -1;
+    private long lastPositionAt = 0;
+    private double itemsPerSec = 0;
+
+    /**
+     * @param imageViewId id của ImageView trong item (đo kích thước ô)
+     */
+    public GridImagePreloader(@NonNull RecyclerView rv, @NonNull GridLayoutManager lm, @IdRes int imageViewId,
+                              @NonNull RequestProvider provider) {
+        this.lm = lm;
+        this.imageViewId = imageViewId;
+        this.provider = provider;
+        this.glide = Glide.with(rv);
+        this.memoryBudget = BrowserGlideModule.memoryCacheBytes(rv.getContext()) / MEMORY_BUDGET_DIVISOR;
+    }
+
+    /** Danh sách được thay (refresh, query mới): huỷ preload cũ, bắt đầu lại từ đầu. */
+    public void reset() {
+        cancelAll();
+        forward = true;
+        preloadedUpTo = -1;
+        preloadedDownTo = Integer.MAX_VALUE;
+        lastPosition = -1;
+        itemsPerSec = 0;
+    }
+
+    @Override
+    public void onScrolled(@NonNull RecyclerView rv, int dx, int dy) {
+        int first = lm.findFirstVisibleItemPosition();
+        int last = lm.findLastVisibleItemPosition();
+        if (first == RecyclerView.NO_POSITION || last == RecyclerView.NO_POSITION) return;
+        trackVelocity(dy >= 0 ? last : first);
+
+        // dy == 0: layout lần đầu / sau khi thêm trang → coi như đang đi xuống
+        boolean down = dy >= 0;
+        if (down != forward) {
+            cancelAll();
+            forward = down;
+            preloadedUpTo = -1;
+            preloadedDownTo = Integer.MAX_VALUE;
+        }
+
+        int[] size = cellSize(first, last);
+        if (size == null) return;
+        int n = preloadCount(size[0], size[1]);
+        int total = lm.getItemCount();
+
+        if (forward) {
+            int from = Math.max(last + 1, preloadedUpTo + 1);
+            int to = Math.min(total - 1, last + n);
+            for (int pos = from; pos <= to; pos++) preload(pos, size, n);
+            if (to >= from) preloadedUpTo = to;
+        } else {
+            int from = Math.min(first - 1, preloadedDownTo - 1);
+            int to = Math.max(0, first - n);
+            for (int pos = from; pos >= to; pos--) preload(pos, size, n);
+            if (from >= to) preloadedDownTo = to;
+        }
+    }
+
+    private void preload(int position, int[] size, int maxTargets) {
+        RequestBuilder<Drawable> request = provider.request(position);
+        if (request == null) return;
+        // Giữ tối đa maxTargets preload; cái cũ nhất (đã lướt qua) bị huỷ nếu chưa xong
+        while (targets.size() >= maxTargets) glide.clear(targets.pollFirst());
+        targets.addLast(request.priority(Priority.LOW).preload(size[0], size[1]));
+        GridImageStats.onPreload();
+    }
+
+    /** Kích thước ImageView của một ô đang hiển thị; null nếu chưa layout xong. */
+    @Nullable
+    private int[] cellSize(int first, int last) {
+        for (int pos = first; pos <= last; pos++) {
+            View item = lm.findViewByPosition(pos);
+            View image = item != null ? item.findViewById(imageViewId) : null;
+            if (image != null && image.getWidth() > 0 && image.getHeight() > 0) {
+                return new int[]{image.getWidth(), image.getHeight()};
+            }
+        }
+        return null;
+    }
+
+    /** N theo tốc độ cuộn, trong khoảng [2 hàng, MAX_PRELOAD] và ngân sách memory cache. */
+    private int preloadCount(int width, int height) {
+        int span = Math.max(1, lm.getSpanCount());
+        int byVelocity = (int) Math.ceil(itemsPerSec * LOOKAHEAD_MS / 1000d);
+        long bytesPerImage = Math.max(1L, (long) width * height * BYTES_PER_PIXEL);
+        int byMemory = (int) Math.min(MAX_PRELOAD, memoryBudget / bytesPerImage);
+        int n = Math.max(2 * span, Math.min(byVelocity, MAX_PRELOAD));
+        return Math.max(span, Math.min(n, byMemory));
+    }
+
+    private void cancelAll() {
+        while (!targets.isEmpty()) glide.clear(targets.pollFirst());
+    }
+
+    private void trackVelocity(int position) {
+        long now = SystemClock.uptimeMillis();
+        if (lastPosition < 0) {
+            lastPosition = position;
+            lastPositionAt = now;
+            return;
+        }
+        long dt = now - lastPositionAt;
+        if (dt < VELOCITY_SAMPLE_MS) return;
+        if (dt > VELOCITY_IDLE_MS) itemsPerSec = 0;
+        double sample = Math.abs(position - lastPosition) * 1000d / dt;
+        itemsPerSec = itemsPerSec * (1 - EMA_ALPHA) + sample * EMA_ALPHA;
+        lastPosition = position;
+        lastPositionAt = now;
+    }
+}
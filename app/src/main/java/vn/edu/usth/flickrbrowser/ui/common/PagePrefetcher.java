@@ -0,0 +1,279 @@
+package vn.edu.usth.flickrbrowser.ui.common;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import vn.edu.usth.flickrbrowser.core.api.FlickrRepo;
+import vn.edu.usth.flickrbrowser.core.api.PageInfo;
+import vn.edu.usth.flickrbrowser.core.api.RequestHandle;
+import vn.edu.usth.flickrbrowser.core.api.RequestPriority;
+import vn.edu.usth.flickrbrowser.core.model.PhotoItem;
+
+/**
+ * Prefetch nhiều trang cho các màn hình cuộn vô tận (Home, Explore, Search).
+ *
+ * Thay cho ngưỡng "còn N item thì tải trang sau" cố định ở từng màn hình:
+ * - đo tốc độ cuộn (item/giây) và độ trễ trung bình của một trang,
+ * - giữ một cửa sổ 1–3 trang phía trước được tải song song (cuộn càng nhanh / mạng càng chậm
+ *   thì cửa sổ càng rộng),
+ * - trang về sớm được giữ lại, chỉ giao cho adapter theo đúng thứ tự khi người dùng cuộn tới,
+ * - dừng ở trang cuối theo con trỏ {@code next_page} ({@link PageInfo}) của từng trang.
+ *
+ * Mọi method chạy trên main thread (FlickrRepo post callback về main thread).
+ */
+public class PagePrefetcher {
+
+    /**
+     * Tải một trang; thường là {@code FlickrRepo::getRecent} hoặc search theo query hiện tại.
+     * Trang kế tiếp người dùng sẽ cần là USER, các trang xa hơn trong cửa sổ là PREFETCH.
+     * Handle trả về bị huỷ khi prefetcher dừng; không gửi request thì trả {@link RequestHandle#NONE}.
+     */
+    public interface PageLoader {
+        RequestHandle load(int page, int perPage, RequestPriority priority, FlickrRepo.CB cb);
+    }
+
+    public interface Listener {
+        /** Trang {@code page} tới lượt hiển thị: append vào adapter. */
+        void onPage(int page, @NonNull List<PhotoItem> items);
+
+        /** true khi người dùng đã chạm đáy mà trang kế tiếp chưa về (hiện footer loading). */
+        void onWaiting(boolean waiting);
+
+        /** Lỗi khi tải trang người dùng đang chờ; trang sau đó được thử lại sau RETRY_DELAY_MS. */
+        void onError(int page, Throwable e);
+    }
+
+    private static final int MIN_WINDOW = 1;
+    private static final int MAX_WINDOW = 3;
+    private static final long DEFAULT_LATENCY_MS = 800;
+    static final long RETRY_DELAY_MS = 3000;
+    // Lấy mẫu vận tốc theo khoảng >= 100ms, ngừng cuộn quá 500ms coi như vận tốc về 0
+    private static final long VELOCITY_SAMPLE_MS = 100;
+    private static final long VELOCITY_IDLE_MS = 500;
+    private static final double EMA_ALPHA = 0.3;
+
+    private int perPage;
+    private final int prefetchDistance; // còn ít hơn ngần này item phía dưới thì giao / tải trang kế tiếp
+    private final int maxWindow;
+    private final long retryDelayMs;
+    private final PageLoader loader;
+    private final Listener listener;
+
+    private final Map<Integer, List<PhotoItem>> ready = new HashMap<>();
+    private final Map<Integer, RequestHandle> inFlight = new HashMap<>();
+
+    private boolean started = false;
+    private int generation = 0;           // tăng khi reset/stop → bỏ callback của phiên cũ
+    private int nextPage;                 // trang kế tiếp sẽ giao cho adapter
+    private int endPage = Integer.MAX_VALUE; // trang đầu tiên không còn dữ liệu
+    private int lastRemaining = Integer.MAX_VALUE;
+    private boolean waiting = false;
+    private long retryAt = 0;
+
+    private int lastPosition = -1;
+    private long lastPositionAt = 0;
+    private double itemsPerSec = 0;
+    private double latencyMs = DEFAULT_LATENCY_MS;
+
+    public PagePrefetcher(int perPage, @NonNull PageLoader loader, @NonNull Listener listener) {
+        this(perPage, perPage, MAX_WINDOW, loader, listener);
+    }
+
+    /**
+     * @param prefetchDistance số item còn lại phía dưới thì bắt đầu giao / tải trang kế tiếp
+     * @param maxWindow        số trang tối đa được tải trước cùng lúc
+     */
+    public PagePrefetcher(int perPage, int prefetchDistance, int maxWindow,
+                          @NonNull PageLoader loader, @NonNull Listener listener) {
+        this(perPage, prefetchDistance, maxWindow, RETRY_DELAY_MS, loader, listener);
+    }
+
+    /** @param retryDelayMs chờ bao lâu sau một trang lỗi mới gửi lại (test dùng 0) */
+    PagePrefetcher(int perPage, int prefetchDistance, int maxWindow, long retryDelayMs,
+                   @NonNull PageLoader loader, @NonNull Listener listener) {
+        this.perPage = Math.max(1, perPage);
+        this.prefetchDistance = Math.max(1, prefetchDistance);
+        this.maxWindow = Math.max(MIN_WINDOW, maxWindow);
+        this.retryDelayMs = Math.max(0, retryDelayMs);
+        this.loader = loader;
+        this.listener = listener;
+    }
+
+    /** Bắt đầu phiên mới sau khi trang đầu đã hiển thị; {@code nextPage} là trang sẽ prefetch đầu tiên. */
+    public void reset(int nextPage) {
+        reset(nextPage, perPage);
+    }
+
+    /** Như {@link #reset(int)}, với perPage của phiên này (trang đầu tải theo chất lượng mạng). */
+    public void reset(int nextPage, int perPage) {
+        stop();
+        this.started = true;
+        this.nextPage = nextPage;
+        this.perPage = Math.max(1, perPage);
+    }
+
+    /** Dừng prefetch (refresh, query mới, view bị huỷ); các trang đang tải bị huỷ. */
+    public void stop() {
+        generation++;
+        started = false;
+        ready.clear();
+        List<RequestHandle> pending = new ArrayList<>(inFlight.values());
+        inFlight.clear();
+        for (RequestHandle h : pending) {
+            if (h != null) h.cancel();
+        }
+        endPage = Integer.MAX_VALUE;
+        lastRemaining = Integer.MAX_VALUE;
+        retryAt = 0;
+        lastPosition = -1;
+        itemsPerSec = 0;
+        setWaiting(false);
+    }
+
+    /** Đánh dấu {@code lastPage} là trang cuối (trang đầu không còn next_page). */
+    public void markEnd(int lastPage) {
+        endPage = Math.min(endPage, lastPage + 1);
+        for (Iterator<Integer> it = ready.keySet().iterator(); it.hasNext(); ) {
+            if (it.next() >= endPage) it.remove();
+        }
+        if (isEndReached()) setWaiting(false);
+    }
+
+    public boolean isEndReached() {
+        return nextPage >= endPage;
+    }
+
+    /** Gọi từ OnScrollListener với vị trí item cuối đang thấy và tổng số item của adapter. */
+    public void onScrolled(int lastVisible, int totalItems) {
+        if (!started || totalItems <= 0 || lastVisible < 0) return;
+        trackVelocity(lastVisible);
+
+        lastRemaining = totalItems - 1 - lastVisible;
+        if (lastRemaining < prefetchDistance) deliverNext();
+
+        int window = windowSize();
+        if (lastRemaining < prefetchDistance + (window - 1) * perPage) fill(window);
+
+        if (lastRemaining <= 0 && !isEndReached() && !ready.containsKey(nextPage)) {
+            setWaiting(true);
+        }
+    }
+
+    /** OnScrollListener chuyển vị trí cuộn của {@code lm} vào prefetcher này. */
+    public RecyclerView.OnScrollListener scrollListener(@NonNull LinearLayoutManager lm) {
+        return new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView rv, int dx, int dy) {
+                super.onScrolled(rv, dx, dy);
+                if (dy < 0) return; // cuộn lên không cần thêm trang
+                PagePrefetcher.this.onScrolled(lm.findLastVisibleItemPosition(), lm.getItemCount());
+            }
+        };
+    }
+
+    // --------------------------------------
+    // Cửa sổ prefetch
+    // --------------------------------------
+
+    /** Số trang cần có sẵn phía trước: đủ để phủ quãng cuộn trong thời gian tải một trang, +1 dự phòng. */
+    private int windowSize() {
+        double itemsDuringFetch = itemsPerSec * latencyMs / 1000d;
+        int pages = 1 + (int) Math.ceil(itemsDuringFetch / perPage);
+        return Math.max(MIN_WINDOW, Math.min(maxWindow, pages));
+    }
+
+    private void fill(int window) {
+        for (int page = nextPage; page < nextPage + window && page < endPage; page++) {
+            if (ready.containsKey(page) || inFlight.containsKey(page)) continue;
+            if (retryAt > 0 && now() < retryAt) return;
+            issue(page);
+        }
+    }
+
+    private void issue(int page) {
+        final int gen = generation;
+        final long t0 = now();
+        inFlight.put(page, null); // loader có thể gọi err() ngay trong load()
+        RequestPriority priority = page == nextPage ? RequestPriority.USER : RequestPriority.PREFETCH;
+        RequestHandle handle = loader.load(page, perPage, priority, new FlickrRepo.CB() {
+            PageInfo cursor;
+
+            @Override
+            public void pageInfo(PageInfo info) {
+                cursor = info;
+            }
+
+            @Override
+            public void ok(List<PhotoItem> items) {
+                if (gen != generation) return;
+                inFlight.remove(page);
+                latencyMs = latencyMs * (1 - EMA_ALPHA) + (now() - t0) * EMA_ALPHA;
+                if (items == null || items.isEmpty()) {
+                    markEnd(page - 1);
+                    return;
+                }
+                ready.put(page, items);
+                PageInfo info = cursor != null ? cursor : PageInfo.unknown(page);
+                if (!info.hasNext(items.size(), perPage)) markEnd(page);
+                if (lastRemaining < prefetchDistance) deliverNext();
+            }
+
+            @Override
+            public void err(Throwable e) {
+                if (gen != generation) return;
+                inFlight.remove(page);
+                retryAt = now() + retryDelayMs;
+                // Lỗi của trang chưa tới lượt thì im lặng thử lại, chỉ báo khi người dùng đang chờ nó
+                if (page == nextPage) {
+                    setWaiting(false);
+                    listener.onError(page, e);
+                }
+            }
+        });
+        if (gen == generation && inFlight.containsKey(page)) inFlight.put(page, handle);
+    }
+
+    private void deliverNext() {
+        List<PhotoItem> items = ready.remove(nextPage);
+        if (items == null) return;
+        int page = nextPage++;
+        setWaiting(false);
+        // Trang giao xong → item còn lại tăng thêm một trang
+        lastRemaining += items.size();
+        listener.onPage(page, items);
+    }
+
+    private void setWaiting(boolean value) {
+        if (waiting == value) return;
+        waiting = value;
+        listener.onWaiting(value);
+    }
+
+    private void trackVelocity(int lastVisible) {
+        long now = now();
+        if (lastPosition < 0) {
+            lastPosition = lastVisible;
+            lastPositionAt = now;
+            return;
+        }
+        long dt = now - lastPositionAt;
+        if (dt < VELOCITY_SAMPLE_MS) return;
+        if (dt > VELOCITY_IDLE_MS) itemsPerSec = 0;
+        double sample = Math.max(0, lastVisible - lastPosition) * 1000d / dt;
+        itemsPerSec = itemsPerSec * (1 - EMA_ALPHA) + sample * EMA_ALPHA;
+        lastPosition = lastVisible;
+        lastPositionAt = now;
+    }
+
+    private static long now() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime());
+    }
+}
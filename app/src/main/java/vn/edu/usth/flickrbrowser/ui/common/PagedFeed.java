@@ -0,0 +1,290 @@
+package vn.edu.usth.flickrbrowser.ui.common;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import vn.edu.usth.flickrbrowser.core.api.FlickrRepo;
+import vn.edu.usth.flickrbrowser.core.api.NetworkQuality;
+import vn.edu.usth.flickrbrowser.core.api.PageInfo;
+import vn.edu.usth.flickrbrowser.core.api.RequestHandle;
+import vn.edu.usth.flickrbrowser.core.api.RequestPriority;
+import vn.edu.usth.flickrbrowser.core.api.RequestScope;
+import vn.edu.usth.flickrbrowser.core.db.FeedStore;
+import vn.edu.usth.flickrbrowser.core.model.PhotoItem;
+import vn.edu.usth.flickrbrowser.core.sync.PrefetchStats;
+
+/**
+ * Pipeline phân trang dùng chung cho Home, Explore và Search.
+ *
+ * - Trang đầu: có {@link LocalSource} (FeedStore) thì hiện trang lưu trên disk ngay rồi tải lại
+ *   từ mạng, chỉ thay khi ảnh khác đi; không có thì tải từ mạng và hiện dần theo từng đợt.
+ * - Các trang sau: {@link PagePrefetcher} tải trước theo tốc độ cuộn, dừng ở trang cuối theo
+ *   con trỏ {@code next_page} ({@link PageInfo}) thay vì đoán bằng số ảnh.
+ * - Trang đầu đứt giữa chừng sau khi đã hiện vài ảnh: báo lỗi trang, prefetcher tải lại chính
+ *   trang đó và bỏ các ảnh đã hiện, thay vì coi phần đã hiện là trang cuối.
+ * - {@link #load} / {@link #stop} huỷ mọi request của lần tải trước.
+ *
+ * Mọi method và callback chạy trên main thread.
+ */
+public class PagedFeed {
+
+    /** Tải một trang từ mạng; {@code refresh} = pull-to-refresh (bỏ qua cache, conditional GET). */
+    public interface Source {
+        RequestHandle load(int page, int perPage, RequestPriority priority, boolean refresh, FlickrRepo.CB cb);
+    }
+
+    /**
+     * Cache cục bộ được đọc trước mạng cho trang đầu; FlickrRepo tự ghi trang mới vào đó.
+     * Trang đọc được có thể có perPage khác; phiên đó tải tiếp với perPage của trang lưu.
+     */
+    public interface LocalSource {
+        RequestHandle read(int page, @NonNull FeedStore.ReadCallback cb);
+    }
+
+    public interface Listener {
+        /** Thay toàn bộ danh sách (trang đầu, hoặc trang đầu đã đổi sau khi revalidate). */
+        void onFirstPage(@NonNull List<PhotoItem> items);
+
+        /** Nối vào cuối danh sách: các đợt sau của trang đầu, hoặc trang kế tiếp. */
+        void onAppend(@NonNull List<PhotoItem> items);
+
+        /** Trang đầu không có ảnh nào. */
+        void onEmpty();
+
+        /** Trang đầu lỗi và không có gì để hiện. */
+        void onError(Throwable e);
+
+        /** Trang đầu đã xong (kể cả revalidate, lỗi) → tắt spinner pull-to-refresh. */
+        void onSettled();
+
+        /** Người dùng đã chạm đáy mà trang kế tiếp chưa về (footer loading). */
+        void onWaiting(boolean waiting);
+
+        /** Lỗi của trang sau mà người dùng đang chờ. */
+        void onPageError(int page, Throwable e);
+    }
+
+    private final int basePerPage;
+    private int perPage; // của phiên hiện tại: theo NetworkQuality, hoặc theo trang lưu trên disk
+    private final Source source;
+    @Nullable
+    private final LocalSource local;
+    private final Listener listener;
+    private final PagePrefetcher prefetcher;
+    // Trang đầu (disk + mạng); các trang sau do prefetcher tự huỷ
+    private final RequestScope requests = new RequestScope();
+    private int firstPage = 1;
+    // Trang đầu chỉ hiện được một phần: id các ảnh đã hiện, lọc khỏi lần tải lại trang đó
+    private int partialPage = 0;
+    @Nullable
+    private Set<String> partialIds;
+
+    public PagedFeed(int perPage, @NonNull Source source, @Nullable LocalSource local,
+                     @NonNull Listener listener) {
+        this(perPage, perPage, source, local, listener);
+    }
+
+    /**
+     * @param perPage          kích thước trang mặc định; mỗi lần {@link #load} chỉnh theo {@link NetworkQuality}
+     * @param prefetchDistance số item còn lại phía dưới thì bắt đầu tải trang kế tiếp
+     */
+    public PagedFeed(int perPage, int prefetchDistance, @NonNull Source source, @Nullable LocalSource local,
+                     @NonNull Listener listener) {
+        this(perPage, prefetchDistance, PagePrefetcher.RETRY_DELAY_MS, source, local, listener);
+    }
+
+    /** @param retryDelayMs chờ trước khi tải lại trang sau bị lỗi (test dùng 0) */
+    PagedFeed(int perPage, int prefetchDistance, long retryDelayMs, @NonNull Source source,
+              @Nullable LocalSource local, @NonNull Listener listener) {
+        this.basePerPage = Math.max(1, perPage);
+        this.perPage = basePerPage;
+        this.source = source;
+        this.local = local;
+        this.listener = listener;
+        this.prefetcher = new PagePrefetcher(basePerPage, prefetchDistance, 3, retryDelayMs,
+                (page, pp, priority, cb) -> source.load(page, pp, priority, false, cb),
+                new PagePrefetcher.Listener() {
+                    @Override
+                    public void onPage(int page, @NonNull List<PhotoItem> items) {
+                        if (page == partialPage) items = withoutShown(items);
+                        if (!items.isEmpty()) listener.onAppend(items);
+                    }
+
+                    @Override
+                    public void onWaiting(boolean waiting) {
+                        listener.onWaiting(waiting);
+                    }
+
+                    @Override
+                    public void onError(int page, Throwable e) {
+                        listener.onPageError(page, e);
+                    }
+                });
+    }
+
+    /** Tải lại từ trang {@code page}: lần mở đầu (đọc disk trước) hoặc pull-to-refresh. */
+    public void load(int page, boolean refresh) {
+        stop();
+        firstPage = Math.max(1, page);
+        perPage = NetworkQuality.perPage(basePerPage);
+        if (!refresh && local != null) {
+            int requested = firstPage;
+            requests.add(local.read(requested, stored -> {
+                if (stored == null) fetchFirst(requested, false);
+                else showStored(stored);
+            }));
+            return;
+        }
+        fetchFirst(firstPage, refresh);
+    }
+
+    /** Trang đầu đang hiện. */
+    public int getFirstPage() {
+        return firstPage;
+    }
+
+    /** Huỷ mọi request (query mới, view / ViewModel bị huỷ). */
+    public void stop() {
+        prefetcher.stop();
+        requests.cancelAll();
+        partialPage = 0;
+        partialIds = null;
+    }
+
+    public void onScrolled(int lastVisible, int totalItems) {
+        prefetcher.onScrolled(lastVisible, totalItems);
+    }
+
+    @NonNull
+    public RecyclerView.OnScrollListener scrollListener(@NonNull LinearLayoutManager lm) {
+        return prefetcher.scrollListener(lm);
+    }
+
+    // --------------------------------------
+    // Trang đầu
+    // --------------------------------------
+
+    private void fetchFirst(int page, boolean refresh) {
+        // Progressive: các ảnh đầu hiện ngay khi decode xong, không chờ hết body
+        requests.add(source.load(page, perPage, RequestPriority.USER, refresh, new FlickrRepo.ProgressiveCB() {
+            final List<PhotoItem> shown = new ArrayList<>();
+            PageInfo cursor;
+
+            @Override
+            public void progress(List<PhotoItem> batch) {
+                if (shown.isEmpty()) listener.onFirstPage(batch);
+                else listener.onAppend(batch);
+                shown.addAll(batch);
+            }
+
+            @Override
+            public void pageInfo(PageInfo info) {
+                cursor = info;
+            }
+
+            @Override
+            public void ok(List<PhotoItem> items) {
+                listener.onSettled();
+                if (items == null || items.isEmpty()) {
+                    if (shown.isEmpty()) listener.onEmpty();
+                    return;
+                }
+                if (shown.isEmpty()) listener.onFirstPage(items);
+                else if (items.size() > shown.size()) listener.onAppend(items.subList(shown.size(), items.size()));
+                startPaging(page, items.size(), cursor);
+            }
+
+            @Override
+            public void err(Throwable e) {
+                listener.onSettled();
+                if (shown.isEmpty()) {
+                    listener.onError(e);
+                    return;
+                }
+                // Đã hiện một phần trang: giữ nguyên, tải lại trang này khi người dùng cuộn tới
+                listener.onPageError(page, e);
+                resumePartial(page, shown);
+            }
+        }));
+    }
+
+    private void resumePartial(int page, List<PhotoItem> shownItems) {
+        prefetcher.reset(page, perPage);
+        partialPage = page;
+        partialIds = new HashSet<>();
+        for (PhotoItem p : shownItems) partialIds.add(p.id);
+    }
+
+    private List<PhotoItem> withoutShown(List<PhotoItem> items) {
+        Set<String> shown = partialIds;
+        partialPage = 0;
+        partialIds = null;
+        if (shown == null) return items;
+        List<PhotoItem> out = new ArrayList<>(items.size());
+        for (PhotoItem p : items) {
+            if (!shown.contains(p.id)) out.add(p);
+        }
+        return out;
+    }
+
+    /**
+     * Đang hiện trang từ disk: tải lại đúng trang đó, chỉ thay khi danh sách ảnh khác đi.
+     * Lỗi mạng thì giữ nội dung cũ. Kết quả fallback Flickr feed (không có con trỏ) không
+     * được thay trang Pexels đã lưu.
+     */
+    private void showStored(FeedStore.StoredPage stored) {
+        firstPage = stored.page;
+        perPage = stored.perPage;
+        listener.onFirstPage(stored.items);
+        PrefetchStats.onStoredPageShown(stored.fetchedAt);
+        requests.add(source.load(stored.page, perPage, RequestPriority.PREFETCH, false, new FlickrRepo.CB() {
+            PageInfo cursor;
+
+            @Override
+            public void pageInfo(PageInfo info) {
+                cursor = info;
+            }
+
+            @Override
+            public void ok(List<PhotoItem> items) {
+                listener.onSettled();
+                boolean fresh = items != null && !items.isEmpty() && cursor != null && cursor.isKnown();
+                if (!fresh) {
+                    startPaging(stored.page, stored.items.size(), stored.info);
+                    return;
+                }
+                if (!sameIds(stored.items, items)) listener.onFirstPage(items);
+                startPaging(stored.page, items.size(), cursor);
+            }
+
+            @Override
+            public void err(Throwable e) {
+                listener.onSettled();
+                startPaging(stored.page, stored.items.size(), stored.info);
+            }
+        }));
+    }
+
+    /** Hai trang có cùng ảnh theo cùng thứ tự (so id) → revalidate không cần vẽ lại. */
+    private static boolean sameIds(@NonNull List<PhotoItem> a, @NonNull List<PhotoItem> b) {
+        if (a.size() != b.size()) return false;
+        for (int i = 0; i < a.size(); i++) {
+            String x = a.get(i).id;
+            if (x == null || !x.equals(b.get(i).id)) return false;
+        }
+        return true;
+    }
+
+    private void startPaging(int page, int itemCount, @Nullable PageInfo cursor) {
+        prefetcher.reset(page + 1, perPage);
+        PageInfo info = cursor != null ? cursor : PageInfo.unknown(page);
+        if (!info.hasNext(itemCount, perPage)) prefetcher.markEnd(page);
+    }
+}
@@ -0,0 +1,32 @@
+package vn.edu.usth.flickrbrowser.ui.common;
+
+import android.content.Context;
+import android.graphics.Color;
+import android.graphics.drawable.ColorDrawable;
+import android.graphics.drawable.Drawable;
+
+import androidx.annotation.DrawableRes;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.core.content.ContextCompat;
+
+import vn.edu.usth.flickrbrowser.core.model.PhotoItem;
+
+/** Placeholder của ảnh khi chưa load: màu trung bình (avg_color của Pexels), không có thì drawable mặc định. */
+public final class PhotoPlaceholder {
+
+    private PhotoPlaceholder() {}
+
+    @Nullable
+    public static Drawable of(@NonNull Context context, @NonNull PhotoItem p, @DrawableRes int fallback) {
+        String color = p.avgColor;
+        if (color != null && !color.isEmpty()) {
+            try {
+                return new ColorDrawable(Color.parseColor(color));
+            } catch (IllegalArgumentException ignored) {
+                // màu sai định dạng → fallback
+            }
+        }
+        return ContextCompat.getDrawable(context, fallback);
+    }
+}
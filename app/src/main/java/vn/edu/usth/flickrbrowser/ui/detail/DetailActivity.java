@@ -24,8 +24,11 @@ import java.util.ArrayList;
 import java.util.List;
 
 import vn.edu.usth.flickrbrowser.R;
+import vn.edu.usth.flickrbrowser.core.image.ImageUrlResolver;
+import vn.edu.usth.flickrbrowser.core.image.ProgressiveImage;
 import vn.edu.usth.flickrbrowser.core.model.PhotoItem;
 import vn.edu.usth.flickrbrowser.core.util.HapticUtil;
+import vn.edu.usth.flickrbrowser.ui.common.PhotoPlaceholder;
 import vn.edu.usth.flickrbrowser.ui.favorites.FavoritesViewModel;
 
 public class DetailActivity extends AppCompatActivity {
@@ -45,6 +48,8 @@ public class DetailActivity extends AppCompatActivity {
 
     private ArrayList<PhotoItem> photos = new ArrayList<>();
     private int startIndex = 0;
+    // Tải + decode trước ảnh các trang bên cạnh
+    private DetailPrefetcher prefetcher;
 
     // ViewModel làm nguồn dữ liệu chung
     private FavoritesViewModel favVM;
@@ -117,6 +122,9 @@ public class DetailActivity extends AppCompatActivity {
                 updateMetaAndFavorite(getCurrent());
             }
         });
+        prefetcher = new DetailPrefetcher(viewPager, photos);
+        viewPager.registerOnPageChangeCallback(prefetcher);
+        prefetcher.onPageSelected(startIndex); // callback đăng ký sau setCurrentItem
 
         // ====== Click handlers
         btnFavorite.setOnClickListener(v -> {
@@ -350,13 +358,18 @@ public class DetailActivity extends AppCompatActivity {
         @Override
         public void onBindViewHolder(@NonNull PhotoVH holder, int position) {
             PhotoItem item = items.get(position);
-            String url = (item != null) ? item.getFullUrl() : null;
-            Glide.with(holder.image.getContext())
-                    .load(url)
-                    .placeholder(R.drawable.placeholder_grey)
+            if (item == null) {
+                Glide.with(holder.image.getContext()).clear(holder.image);
+                holder.image.setImageResource(R.drawable.placeholder_grey);
+                return;
+            }
+            // Ảnh grid / feed đã tải (hoặc biến thể nhỏ nhất) hiện trước, crossfade sang ảnh toàn màn hình
+            String url = ImageUrlResolver.forScreen(holder.image.getContext(), item);
+            ProgressiveImage.load(holder.image.getContext(), item, url)
+                    .placeholder(PhotoPlaceholder.of(holder.image.getContext(), item, R.drawable.placeholder_grey))
                     .error(R.drawable.placeholder_grey)
                     .into(holder.image);
-            holder.image.setContentDescription(item != null && item.title != null ? item.title : "photo");
+            holder.image.setContentDescription(item.title != null ? item.title : "photo");
         }
 
         @Override public int getItemCount() { return items != null ? items.size() : 0; }
@@ -409,4 +422,10 @@ public class DetailActivity extends AppCompatActivity {
         try { unregisterReceiver(favChangedReceiver); } catch (Exception ignored) {}
         super.onStop();
     }
+
+    @Override
+    protected void onDestroy() {
+        if (prefetcher != null) prefetcher.release();
+        super.onDestroy();
+    }
 }
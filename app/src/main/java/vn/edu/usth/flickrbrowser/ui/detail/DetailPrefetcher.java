@@ -0,0 +1,187 @@
+package vn.edu.usth.flickrbrowser.ui.detail;
+
+import android.annotation.SuppressLint;
+import android.content.Context;
+import android.graphics.drawable.Drawable;
+import android.util.DisplayMetrics;
+import android.view.MotionEvent;
+import android.view.View;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.viewpager2.widget.ViewPager2;
+
+import com.bumptech.glide.Glide;
+import com.bumptech.glide.Priority;
+import com.bumptech.glide.RequestBuilder;
+import com.bumptech.glide.RequestManager;
+import com.bumptech.glide.request.target.Target;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import vn.edu.usth.flickrbrowser.core.api.NetworkQuality;
+import vn.edu.usth.flickrbrowser.core.image.BrowserGlideModule;
+import vn.edu.usth.flickrbrowser.core.image.ImageUrlResolver;
+import vn.edu.usth.flickrbrowser.core.model.PhotoItem;
+
+/**
+ * Tải + decode trước ảnh toàn màn hình của Detail để vuốt sang trang bên cạnh không gặp placeholder.
+ *
+ * - Mỗi lần chọn trang: preload K trang phía trước theo hướng vuốt và ít hơn phía sau; K theo
+ *   {@link NetworkQuality} và giới hạn theo memory cache của Glide (ảnh ARGB_8888 cỡ pager).
+ *   Trang rơi khỏi cửa sổ thì huỷ preload của nó.
+ * - Chạm (ACTION_DOWN) vào ảnh ở grid / feed: bắt đầu tải ảnh Detail ngay, trước khi activity
+ *   mở; chạm biến thành cuộn (ACTION_CANCEL) thì huỷ.
+ *
+ * Request preload trùng key memory cache với request lúc bind của pager (cùng URL, cỡ pager,
+ * centerCrop mà Glide tự thêm cho ImageView CENTER_CROP) → trang đã decode hiện ngay; đang tải
+ * dở thì Glide gộp vào cùng job.
+ */
+public class DetailPrefetcher extends ViewPager2.OnPageChangeCallback {
+
+    private static final int BYTES_PER_PIXEL = 4; // ARGB_8888 của ảnh lớn
+    private static final int MAX_AHEAD = 3;
+
+    // Cỡ pager lần mở Detail gần nhất; lần đầu đoán theo màn hình
+    private static volatile int lastPageWidth, lastPageHeight;
+    // Ảnh đang tải trước từ lần chạm gần nhất ở grid (main thread)
+    @Nullable
+    private static Target<Drawable> touchTarget;
+
+    private final ViewPager2 pager;
+    private final List<PhotoItem> photos;
+    private final RequestManager glide;
+    private final Map<Integer, Target<Drawable>> targets = new HashMap<>();
+    private int lastPosition = -1;
+
+    public DetailPrefetcher(@NonNull ViewPager2 pager, @NonNull List<PhotoItem> photos) {
+        this.pager = pager;
+        this.photos = photos;
+        this.glide = Glide.with(pager);
+    }
+
+    // --------------------------------------
+    // Trong Detail
+    // --------------------------------------
+
+    @Override
+    public void onPageSelected(int position) {
+        int direction = lastPosition < 0 ? 0 : Integer.signum(position - lastPosition);
+        lastPosition = position;
+        // Lần chọn đầu (trước layout) chưa có cỡ pager → chờ layout xong
+        if (pager.getWidth() == 0 || pager.getHeight() == 0) {
+            pager.post(() -> {
+                if (position == lastPosition) prefetch(position, direction);
+            });
+            return;
+        }
+        prefetch(position, direction);
+    }
+
+    /** Activity bị huỷ: huỷ mọi preload còn chạy. */
+    public void release() {
+        for (Target<Drawable> t : targets.values()) glide.clear(t);
+        targets.clear();
+    }
+
+    private void prefetch(int position, int direction) {
+        int w = pager.getWidth(), h = pager.getHeight();
+        if (w <= 0 || h <= 0) return;
+        lastPageWidth = w;
+        lastPageHeight = h;
+
+        int ahead = aheadCount(w, h);
+        // Chưa biết hướng: chia đều hai bên; đã biết: phía sau chỉ giữ 1 trang
+        int behind = direction == 0 ? ahead : Math.min(1, ahead);
+        int step = direction < 0 ? -1 : 1;
+        int from = Math.max(0, step > 0 ? position - behind : position - ahead);
+        int to = Math.min(photos.size() - 1, step > 0 ? position + ahead : position + behind);
+
+        // Huỷ trang ngoài cửa sổ mới
+        Iterator<Map.Entry<Integer, Target<Drawable>>> it = targets.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Integer, Target<Drawable>> e = it.next();
+            if (e.getKey() < from || e.getKey() > to) {
+                glide.clear(e.getValue());
+                it.remove();
+            }
+        }
+        // Gần trang hiện tại trước (Glide chạy theo thứ tự + priority)
+        for (int d = 1; d <= Math.max(ahead, behind); d++) {
+            if (d <= ahead) preload(position + step * d, w, h, d == 1 ? Priority.HIGH : Priority.NORMAL);
+            if (d <= behind) preload(position - step * d, w, h, Priority.LOW);
+        }
+    }
+
+    private void preload(int position, int w, int h, Priority priority) {
+        if (position < 0 || position >= photos.size() || targets.containsKey(position)) return;
+        PhotoItem p = photos.get(position);
+        if (p == null) return;
+        targets.put(position, request(glide, pager.getContext(), p).priority(priority).preload(w, h));
+    }
+
+    /** Số trang tải trước phía trước: theo mạng, và không quá phần memory cache còn lại. */
+    private int aheadCount(int w, int h) {
+        int byNetwork;
+        switch (NetworkQuality.getTier()) {
+            case POOR:     byNetwork = 1; break;
+            case MODERATE: byNetwork = 2; break;
+            default:       byNetwork = MAX_AHEAD;
+        }
+        long pageBytes = (long) w * h * BYTES_PER_PIXEL;
+        // Trừ trang đang hiện và trang phía sau
+        long byMemory = BrowserGlideModule.memoryCacheBytes(pager.getContext()) / Math.max(1L, pageBytes) - 2;
+        return (int) Math.max(1, Math.min(byNetwork, byMemory));
+    }
+
+    // --------------------------------------
+    // Từ grid / feed
+    // --------------------------------------
+
+    /**
+     * Listener cho item mở Detail: ACTION_DOWN bắt đầu tải ảnh Detail của {@code p}, ACTION_CANCEL
+     * (chạm thành cuộn) huỷ. Không tiêu thụ sự kiện nên click vẫn chạy như cũ.
+     */
+    @SuppressLint("ClickableViewAccessibility")
+    @NonNull
+    public static View.OnTouchListener warmOnTouch(@NonNull PhotoItem p) {
+        return (v, event) -> {
+            switch (event.getActionMasked()) {
+                case MotionEvent.ACTION_DOWN:
+                    warm(v.getContext(), p);
+                    break;
+                case MotionEvent.ACTION_CANCEL:
+                    cancelWarm(v.getContext());
+                    break;
+            }
+            return false;
+        };
+    }
+
+    private static void warm(Context context, PhotoItem p) {
+        cancelWarm(context);
+        int w = lastPageWidth, h = lastPageHeight;
+        if (w <= 0 || h <= 0) {
+            DisplayMetrics dm = context.getResources().getDisplayMetrics();
+            w = dm.widthPixels;
+            h = dm.heightPixels;
+        }
+        // Application context: fragment dừng khi Detail che lên thì request vẫn chạy tiếp
+        RequestManager glide = Glide.with(context.getApplicationContext());
+        touchTarget = request(glide, context, p).priority(Priority.IMMEDIATE).preload(w, h);
+    }
+
+    private static void cancelWarm(Context context) {
+        if (touchTarget == null) return;
+        Glide.with(context.getApplicationContext()).clear(touchTarget);
+        touchTarget = null;
+    }
+
+    /** Request chính của trang Detail (không gồm bản nhỏ / placeholder, không ảnh hưởng key). */
+    static RequestBuilder<Drawable> request(RequestManager glide, Context context, PhotoItem p) {
+        return glide.load(ImageUrlResolver.forScreen(context, p)).optionalCenterCrop();
+    }
+}
@@ -1,22 +1,31 @@
 package vn.edu.usth.flickrbrowser.ui.explore;
 
+import android.content.Context;
+import android.graphics.drawable.Drawable;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 import android.widget.ImageView;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.recyclerview.widget.RecyclerView;
 import android.widget.ProgressBar;
 
 import com.bumptech.glide.Glide;
+import com.bumptech.glide.RequestBuilder;
 import com.bumptech.glide.load.engine.DiskCacheStrategy;
 
 import java.util.ArrayList;
 import java.util.List;
 
 import vn.edu.usth.flickrbrowser.R;
+import vn.edu.usth.flickrbrowser.core.image.GridImageStats;
+import vn.edu.usth.flickrbrowser.core.image.ImageTier;
+import vn.edu.usth.flickrbrowser.core.image.ImageUrlResolver;
 import vn.edu.usth.flickrbrowser.core.model.PhotoItem;
+import vn.edu.usth.flickrbrowser.ui.common.PhotoPlaceholder;
+import vn.edu.usth.flickrbrowser.ui.detail.DetailPrefetcher;
 
 public class ExploreAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder> {
 
@@ -106,24 +115,20 @@ public class ExploreAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder
         VH h = (VH) holder;
         final PhotoItem p = data.get(pos);
 
-        // Ưu tiên ảnh nhỏ (thumbUrl) để tải nhanh
-        String url = (p.getThumbUrl() != null && !p.getThumbUrl().isEmpty())
-                ? p.getThumbUrl()
-                : p.getFullUrl();
-
         try {
-            Glide.with(h.img.getContext())
-                    .load(url)
-                    .placeholder(R.drawable.placeholder_grey)
+            request(h.img.getContext(), p)
+                    // Ô vuông cố định; màu trung bình thay cho ô xám trong lúc chờ
+                    .placeholder(PhotoPlaceholder.of(h.img.getContext(), p, R.drawable.placeholder_grey))
                     .error(R.drawable.placeholder_grey)
-                    .centerCrop()
-                    .diskCacheStrategy(DiskCacheStrategy.ALL)
+                    .listener(GridImageStats.BIND_LISTENER)
                     .into(h.img);
         } catch (Throwable t) {
             // tránh crash khi context đã bị destroy
             h.img.setImageResource(R.drawable.placeholder_grey);
         }
 
+        // Chạm xuống là bắt đầu tải ảnh Detail, trước khi activity mở
+        h.itemView.setOnTouchListener(DetailPrefetcher.warmOnTouch(p));
         // Xử lý click vào ảnh
         h.itemView.setOnClickListener(v -> {
             if (listener != null)
@@ -131,6 +136,24 @@ public class ExploreAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder
         });
     }
 
+    /** Request ảnh của ô {@code pos} cho GridImagePreloader; null với footer loading. */
+    @Nullable
+    public RequestBuilder<Drawable> preloadRequest(@NonNull Context context, int pos) {
+        if (pos < 0 || pos >= data.size() || data.get(pos) == null) return null;
+        return request(context, data.get(pos));
+    }
+
+    /** Phần chung của bind và preload → cùng key memory cache của Glide. */
+    private static RequestBuilder<Drawable> request(Context context, PhotoItem p) {
+        // Ô vuông của grid 2 cột → biến thể nhỏ nhất đủ phủ ô
+        String url = ImageUrlResolver.forColumns(context, p, 2, ImageUrlResolver.Fit.CROP);
+        return Glide.with(context)
+                .load(url)
+                .apply(ImageTier.THUMB)
+                .centerCrop()
+                .diskCacheStrategy(DiskCacheStrategy.ALL);
+    }
+
     @Override
     public int getItemCount() {
         return data.size();
@@ -25,8 +25,13 @@ import java.util.List;
 
 import vn.edu.usth.flickrbrowser.R;
 import vn.edu.usth.flickrbrowser.core.api.FlickrRepo;
+import vn.edu.usth.flickrbrowser.core.api.RequestHandle;
+import vn.edu.usth.flickrbrowser.core.api.RequestPriority;
+import vn.edu.usth.flickrbrowser.core.db.FeedStore;
 import vn.edu.usth.flickrbrowser.core.model.PhotoItem;
 import vn.edu.usth.flickrbrowser.core.util.NetUtils;
+import vn.edu.usth.flickrbrowser.ui.common.GridImagePreloader;
+import vn.edu.usth.flickrbrowser.ui.common.PagedFeed;
 import vn.edu.usth.flickrbrowser.ui.detail.DetailActivity;
 import vn.edu.usth.flickrbrowser.ui.favorites.FavoritesViewModel;
 import vn.edu.usth.flickrbrowser.ui.state.PhotoState;
@@ -43,10 +48,11 @@ public class ExploreFragment extends Fragment {
     // Adapter
     private ExploreAdapter adapter;
 
-    // Paging
-    private static final int PER_PAGE = 12;
+    // Paging: trang đầu + các trang sau qua pipeline dùng chung (disk trước, next_page, prefetch)
+    private static final int PER_PAGE = 12; // mặc định; PagedFeed chỉnh theo NetworkQuality
     private int currentPage = 1;
-    private boolean isLoading = false;
+    private PagedFeed feed;
+    private GridImagePreloader preloader;
 
     // Favorites
     private FavoritesViewModel favVM;
@@ -97,21 +103,63 @@ public class ExploreFragment extends Fragment {
             R.color.md_theme_secondary
         );
         swipe.setProgressBackgroundColorSchemeResource(R.color.md_theme_surface);
-        swipe.setOnRefreshListener(this::refresh);
+        swipe.setOnRefreshListener(() -> refresh(true));
+
+        // Endless scroll: prefetch theo tốc độ cuộn + độ trễ mạng
+        FeedStore store = FeedStore.get();
+        feed = new PagedFeed(PER_PAGE, this::loadPage,
+                // Đúng trang ngẫu nhiên vừa chọn; chưa lưu trang đó thì PagedFeed tải từ mạng
+                store == null ? null : (page, cb) -> store.readPage(FeedStore.FEED_CURATED, null, page, cb),
+                new PagedFeed.Listener() {
+                    @Override
+                    public void onFirstPage(@NonNull List<PhotoItem> items) {
+                        setState(new PhotoState.Success(items));
+                    }
 
-        // Endless scroll (tiệm cận đáy)
-        rv.addOnScrollListener(new RecyclerView.OnScrollListener() {
-            @Override
-            public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
-                super.onScrolled(recyclerView, dx, dy);
-                if (dy <= 0) return;
-                int total = adapter.getItemCount();
-                int last = glm.findLastVisibleItemPosition();
-                if (!isLoading && last >= total - 8) {
-                    loadMorePhotos();
-                }
-            }
-        });
+                    @Override
+                    public void onAppend(@NonNull List<PhotoItem> items) {
+                        adapter.addMore(items);
+                    }
+
+                    @Override
+                    public void onEmpty() {
+                        setState(new PhotoState.Empty());
+                    }
+
+                    @Override
+                    public void onError(Throwable t) {
+                        String msg = (t != null && t.getMessage() != null && !t.getMessage().isEmpty())
+                                ? t.getMessage()
+                                : getString(R.string.load_failed);
+                        setState(new PhotoState.Error(msg));
+                    }
+
+                    @Override
+                    public void onSettled() {
+                        swipe.setRefreshing(false);
+                        currentPage = feed.getFirstPage();
+                    }
+
+                    @Override
+                    public void onWaiting(boolean waiting) {
+                        if (waiting) adapter.addLoadingFooter();
+                        else adapter.removeLoadingFooter();
+                    }
+
+                    @Override
+                    public void onPageError(int page, Throwable t) {
+                        if (!isAdded()) return;
+                        String msg = (t != null && t.getMessage() != null && !t.getMessage().isEmpty())
+                                ? t.getMessage()
+                                : getString(R.string.load_more_failed);
+                        Toast.makeText(requireContext(), msg, Toast.LENGTH_SHORT).show();
+                    }
+                });
+        rv.addOnScrollListener(feed.scrollListener(glm));
+        // Thumbnail của các ô sắp hiện được tải trước theo hướng / tốc độ cuộn
+        preloader = new GridImagePreloader(rv, glm, R.id.imgPhoto,
+                pos -> adapter.preloadRequest(requireContext(), pos));
+        rv.addOnScrollListener(preloader);
 
         // Click -> Detail
         adapter.setOnPhotoClickListener((p, position) -> {
@@ -135,87 +183,36 @@ public class ExploreFragment extends Fragment {
         super.onViewCreated(v, b);
         favVM = new ViewModelProvider(requireActivity()).get(FavoritesViewModel.class);
         // Load lần đầu
-        refresh();
+        refresh(false);
     }
 
-    // Pull-to-refresh / load lần đầu
-    private void refresh() {
+    // Pull-to-refresh (userRefresh = true) / load lần đầu
+    private void refresh(boolean userRefresh) {
         int newPage = new Random().nextInt(10) + 1; // ví dụ 10 trang
         if (newPage == currentPage) newPage = (newPage % 10) + 1;
         currentPage = newPage;
-        isLoading = true;
 
         swipe.setRefreshing(true);
         setState(new PhotoState.Loading());
-
-        //  Pre-check mạng: mất mạng -> show đúng thông báo
-        if (!NetUtils.hasNetwork(requireContext())) {
-            isLoading = false;
-            swipe.setRefreshing(false);
-            setState(new PhotoState.Error(getString(R.string.no_connection))); // "No internet connection. Please try again."
-            return;
-        }
-
-        FlickrRepo.getRecent(currentPage, PER_PAGE, new FlickrRepo.CB() {
-            @Override
-            public void ok(List<PhotoItem> items) {
-                isLoading = false;
-                swipe.setRefreshing(false);
-                if (items == null || items.isEmpty()) {
-                    setState(new PhotoState.Empty());
-                } else {
-                    setState(new PhotoState.Success(items));
-                }
-            }
-
-            @Override
-            public void err(Throwable t) {
-                isLoading = false;
-                swipe.setRefreshing(false);
-                String msg = (t != null && t.getMessage() != null && !t.getMessage().isEmpty())
-                        ? t.getMessage()
-                        : getString(R.string.load_failed);
-                setState(new PhotoState.Error(msg));
-            }
-        });
+        // Mất mạng: trang lưu trên disk vẫn hiện; không có thì loadPage báo no_connection
+        feed.load(currentPage, userRefresh);
     }
 
-    // Load thêm trang tiếp theo
-    private void loadMorePhotos() {
-        if (isLoading) return;
-        isLoading = true;
-        int nextPage = currentPage + 1;
-        adapter.addLoadingFooter();
-
-
-        // ✅ Check mạng cho load-more
-        if (!NetUtils.hasNetwork(requireContext())) {
-            isLoading = false;
-            Toast.makeText(requireContext(), R.string.no_connection, Toast.LENGTH_SHORT).show();
-            return;
+    // Tải một trang (trang đầu / prefetch); mất mạng thì báo lỗi ngay, prefetcher tự thử lại sau
+    private RequestHandle loadPage(int page, int perPage, RequestPriority priority, boolean userRefresh,
+                                   FlickrRepo.CB cb) {
+        if (!isAdded() || !NetUtils.hasNetwork(requireContext())) {
+            cb.err(new Exception(isAdded() ? getString(R.string.no_connection) : null));
+            return RequestHandle.NONE;
         }
+        if (userRefresh) return FlickrRepo.refreshRecent(page, perPage, cb); // conditional GET, 304 → không parse lại
+        return FlickrRepo.getRecent(page, perPage, priority, cb);
+    }
 
-        FlickrRepo.getRecent(nextPage, PER_PAGE, new FlickrRepo.CB() {
-            @Override
-            public void ok(List<PhotoItem> items) {
-                adapter.removeLoadingFooter();
-                isLoading = false;
-                if (items != null && !items.isEmpty()) {
-                    adapter.addMore(items);
-                    currentPage = nextPage;
-                }
-            }
-
-            @Override
-            public void err(Throwable t) {
-                adapter.removeLoadingFooter();
-                isLoading = false;
-                String msg = (t != null && t.getMessage() != null && !t.getMessage().isEmpty())
-                        ? t.getMessage()
-                        : getString(R.string.load_more_failed);
-                Toast.makeText(requireContext(), msg, Toast.LENGTH_SHORT).show();
-            }
-        });
+    @Override
+    public void onDestroyView() {
+        super.onDestroyView();
+        feed.stop(); // rời màn hình giữa chừng → không tải / parse tiếp
     }
 
     // ---------- UI state ----------
@@ -234,6 +231,7 @@ public class ExploreFragment extends Fragment {
             emptyRoot.setVisibility(View.GONE);
 
             rv.setVisibility(View.VISIBLE);
+            preloader.reset();
             adapter.setData(items);
         } else if (state instanceof PhotoState.Empty) {
             stopShimmers(shimmerGrid);
@@ -14,7 +14,11 @@ import java.util.ArrayList;
 import java.util.List;
 
 import vn.edu.usth.flickrbrowser.R;
+import vn.edu.usth.flickrbrowser.core.image.ImageTier;
+import vn.edu.usth.flickrbrowser.core.image.ImageUrlResolver;
 import vn.edu.usth.flickrbrowser.core.model.PhotoItem;
+import vn.edu.usth.flickrbrowser.ui.common.PhotoPlaceholder;
+import vn.edu.usth.flickrbrowser.ui.detail.DetailPrefetcher;
 
 public class FavoritesAdapter extends RecyclerView.Adapter<FavoritesAdapter.VH> {
 
@@ -56,16 +60,20 @@ public class FavoritesAdapter extends RecyclerView.Adapter<FavoritesAdapter.VH>
 
         // Hiển thị ảnh (nếu layout có imgPhoto)
         if (holder.img != null) {
-            String url = item.getThumbUrl();
-            if (url == null || url.isEmpty()) url = item.getFullUrl();
+            String url = ImageUrlResolver.forColumns(holder.itemView.getContext(), item, 2,
+                    ImageUrlResolver.Fit.CROP);
 
             Glide.with(holder.itemView.getContext())
                     .load(url)
-                    .placeholder(R.drawable.bg_skeleton_rounded)
+                    .apply(ImageTier.THUMB)
+                    .placeholder(PhotoPlaceholder.of(holder.itemView.getContext(), item, R.drawable.bg_skeleton_rounded))
                     .centerCrop()
                     .into(holder.img);
         }
 
+        // Chạm xuống là bắt đầu tải ảnh Detail, trước khi activity mở
+        holder.itemView.setOnTouchListener(DetailPrefetcher.warmOnTouch(item));
+
         // Click item → mở DetailActivity (dùng chung layout Detail)
         holder.itemView.setOnClickListener(v -> {
             if (itemClick != null) itemClick.onClick(item, position);
@@ -8,14 +8,18 @@ import android.widget.ProgressBar;
 import android.widget.TextView;
 import androidx.annotation.NonNull;
 import androidx.recyclerview.widget.RecyclerView;
-import com.bumptech.glide.Glide;
 import com.google.android.material.button.MaterialButton;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 import vn.edu.usth.flickrbrowser.R;
+import vn.edu.usth.flickrbrowser.core.image.ImageUrlResolver;
+import vn.edu.usth.flickrbrowser.core.image.ProgressiveImage;
 import vn.edu.usth.flickrbrowser.core.model.PhotoItem;
+import vn.edu.usth.flickrbrowser.ui.common.AspectRatioImageView;
+import vn.edu.usth.flickrbrowser.ui.common.PhotoPlaceholder;
+import vn.edu.usth.flickrbrowser.ui.detail.DetailPrefetcher;
 
 public class HomeAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder> {
 
@@ -44,14 +48,31 @@ public class HomeAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder> {
     }
 
     public void setData(List<PhotoItem> newPhotos, List<PhotoItem> favorites) {
+        Set<String> oldFavorites = new HashSet<>(favoriteIds);
+        updateFavoriteSet(favorites);
+        // Danh sách mới chỉ nối thêm vào cuối (trang progressive / prefetch) → chỉ insert phần mới
+        if (newPhotos != null && !photoList.isEmpty() && oldFavorites.equals(favoriteIds)
+                && extendsCurrent(newPhotos)) {
+            int start = photoList.size();
+            photoList.addAll(newPhotos.subList(start, newPhotos.size()));
+            notifyItemRangeInserted(start, newPhotos.size() - start);
+            return;
+        }
         photoList.clear();
         if (newPhotos != null) {
             photoList.addAll(newPhotos);
         }
-        updateFavoriteSet(favorites);
         notifyDataSetChanged();
     }
 
+    private boolean extendsCurrent(List<PhotoItem> newPhotos) {
+        if (newPhotos.size() < photoList.size()) return false;
+        for (int i = 0; i < photoList.size(); i++) {
+            if (photoList.get(i) != newPhotos.get(i)) return false;
+        }
+        return true;
+    }
+
     public void addMore(List<PhotoItem> morePhotos) {
         if (morePhotos != null && !morePhotos.isEmpty()) {
             int startPosition = photoList.size();
@@ -124,10 +145,15 @@ public class HomeAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder> {
                 photoHolder.photoTitle.setVisibility(View.GONE); // Ẩn TextView đi
             }
 
+            // Đặt chiều cao theo width/height của metadata trước khi ảnh về → row không nhảy
+            photoHolder.photoImage.setAspectRatio(photo.width, photo.height);
             try {
-                Glide.with(holder.itemView.getContext())
-                        .load(photo.getFullUrl())
-                        .placeholder(R.drawable.placeholder_grey)
+                // Ảnh rộng hết màn hình, cao theo tỉ lệ; mạng yếu thì tải nhỏ hơn
+                String url = ImageUrlResolver.forColumns(holder.itemView.getContext(), photo, 1,
+                        ImageUrlResolver.Fit.INSIDE);
+                // Bản nhỏ mờ hiện trước, crossfade sang ảnh lớn
+                ProgressiveImage.load(holder.itemView.getContext(), photo, url)
+                        .placeholder(PhotoPlaceholder.of(holder.itemView.getContext(), photo, R.drawable.placeholder_grey))
                         .error(R.drawable.placeholder_grey)
                         .into(photoHolder.photoImage);
             } catch (Exception e) {
@@ -140,6 +166,8 @@ public class HomeAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder> {
                 photoHolder.btnFavorite.setIconResource(R.drawable.outline_favorite_24);
             }
 
+            // Chạm xuống là bắt đầu tải ảnh Detail, trước khi activity mở
+            photoHolder.photoImage.setOnTouchListener(DetailPrefetcher.warmOnTouch(photo));
             photoHolder.photoImage.setOnClickListener(v -> {
                 if (listener != null) {
                     listener.onPhotoClick(photo, photoHolder.getBindingAdapterPosition());
@@ -181,7 +209,8 @@ public class HomeAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder> {
     }
 
     static class PhotoViewHolder extends RecyclerView.ViewHolder {
-        ImageView ownerAvatar, photoImage;
+        ImageView ownerAvatar;
+        AspectRatioImageView photoImage;
         TextView ownerName, photoTitle;
         MaterialButton btnFavorite, btnComment, btnShare;
 
@@ -31,6 +31,7 @@ import java.util.List;
 
 import vn.edu.usth.flickrbrowser.R;
 import vn.edu.usth.flickrbrowser.core.model.PhotoItem;
+import vn.edu.usth.flickrbrowser.core.util.StartupMetrics;
 import vn.edu.usth.flickrbrowser.ui.detail.DetailActivity;
 import vn.edu.usth.flickrbrowser.ui.favorites.FavoritesViewModel;
 import vn.edu.usth.flickrbrowser.ui.state.PhotoState;
@@ -195,17 +196,13 @@ public class HomeFragment extends Fragment {
         });
 
 
-        // Cuộn vô tận sẽ gọi hàm trong ViewModel
+        // Cuộn vô tận: vị trí cuộn → prefetcher trong ViewModel
         recyclerViewHome.addOnScrollListener(new RecyclerView.OnScrollListener() {
             @Override
             public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
                 super.onScrolled(recyclerView, dx, dy);
-                if (dy <= 0) return;
-                int totalItemCount = layoutManager.getItemCount();
-                int lastVisibleItem = layoutManager.findLastVisibleItemPosition();
-                if (lastVisibleItem >= totalItemCount - 3) { // Tải thêm khi còn 3 item
-                    homeVM.loadMorePhotos();
-                }
+                if (dy < 0) return;
+                homeVM.onFeedScrolled(layoutManager.findLastVisibleItemPosition(), layoutManager.getItemCount());
             }
         });
     }
@@ -217,6 +214,7 @@ public class HomeFragment extends Fragment {
                 setLoadingState();
             } else if (state instanceof PhotoState.Success) {
                 setSuccessState(((PhotoState.Success) state).getItems());
+                StartupMetrics.onFirstContent(getContext());
             } else if (state instanceof PhotoState.Empty) {
                 setEmptyState();
             } else if (state instanceof PhotoState.Error) {
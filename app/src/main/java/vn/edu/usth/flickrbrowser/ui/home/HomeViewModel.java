@@ -1,5 +1,6 @@
 package vn.edu.usth.flickrbrowser.ui.home;
 
+import androidx.annotation.NonNull;
 import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MutableLiveData;
 import androidx.lifecycle.ViewModel;
@@ -9,7 +10,9 @@ import java.util.List;
 import java.util.Random;
 
 import vn.edu.usth.flickrbrowser.core.api.FlickrRepo;
+import vn.edu.usth.flickrbrowser.core.db.FeedStore;
 import vn.edu.usth.flickrbrowser.core.model.PhotoItem;
+import vn.edu.usth.flickrbrowser.ui.common.PagedFeed;
 import vn.edu.usth.flickrbrowser.ui.state.PhotoState;
 
 public class HomeViewModel extends ViewModel {
@@ -18,11 +21,63 @@ public class HomeViewModel extends ViewModel {
     public LiveData<PhotoState> photosState = _photosState;
 
     private final List<PhotoItem> photoList = new ArrayList<>();
-    private int currentPage = 1;
-    private static final int PER_PAGE = 10;
+    private static final int PER_PAGE = 10; // mặc định; PagedFeed chỉnh theo NetworkQuality
     private boolean isLoading = false;
-    private boolean endReached = false;
-    
+
+    // Trang đầu (disk trước, rồi mạng) + các trang sau prefetch theo tốc độ cuộn
+    private final PagedFeed feed = new PagedFeed(PER_PAGE,
+            (page, perPage, priority, refresh, cb) -> refresh
+                    ? FlickrRepo.refreshRecent(page, perPage, cb) // conditional GET, 304 → không parse lại
+                    : FlickrRepo.getRecent(page, perPage, priority, cb),
+            localSource(),
+            new PagedFeed.Listener() {
+                @Override
+                public void onFirstPage(@NonNull List<PhotoItem> items) {
+                    photoList.clear();
+                    photoList.addAll(items);
+                    publish();
+                }
+
+                @Override
+                public void onAppend(@NonNull List<PhotoItem> items) {
+                    // HomeAdapter chỉ insert phần mới khi danh sách là phần nối tiếp
+                    photoList.addAll(items);
+                    publish();
+                }
+
+                @Override
+                public void onEmpty() {
+                    photoList.clear();
+                    _photosState.setValue(new PhotoState.Empty());
+                }
+
+                @Override
+                public void onError(Throwable t) {
+                    _photosState.setValue(new PhotoState.Error(t != null ? t.getMessage() : "Unknown error"));
+                }
+
+                @Override
+                public void onSettled() {
+                    isLoading = false;
+                }
+
+                @Override
+                public void onWaiting(boolean waiting) {
+                    // Home không có footer loading
+                }
+
+                @Override
+                public void onPageError(int page, Throwable e) {
+                    // Có thể gửi một event lỗi riêng để Fragment hiển thị Toast
+                }
+            });
+
+    private static PagedFeed.LocalSource localSource() {
+        FeedStore store = FeedStore.get();
+        if (store == null) return null;
+        return (page, cb) -> store.readPage(FeedStore.FEED_CURATED, null, page, cb);
+    }
+
     // Save scroll position
     private int scrollPosition = 0;
     private int scrollOffset = 0;
@@ -54,72 +109,27 @@ public class HomeViewModel extends ViewModel {
         if (isLoading && !isRefreshing) return; // Tránh gọi lại khi đang tải
         isLoading = true;
 
-        if (isRefreshing) {
-            currentPage = 1;
-            endReached = false;
-        }
-
         // Chỉ hiển thị Shimmer khi danh sách hoàn toàn trống
         if (photoList.isEmpty()) {
             _photosState.setValue(new PhotoState.Loading());
         }
 
-        int pageToLoad = isRefreshing ? new Random().nextInt(10) + 1 : currentPage;
-
-        FlickrRepo.getRecent(pageToLoad, PER_PAGE, new FlickrRepo.CB() {
-            @Override
-            public void ok(List<PhotoItem> items) {
-                isLoading = false;
-                if (isRefreshing) {
-                    photoList.clear();
-                }
-
-                if (items != null && !items.isEmpty()) {
-                    photoList.addAll(items);
-                    currentPage = pageToLoad + 1; // Cập nhật trang tiếp theo
-                } else {
-                    endReached = true;
-                }
+        int pageToLoad = isRefreshing ? new Random().nextInt(10) + 1 : 1;
+        feed.load(pageToLoad, isRefreshing);
+    }
 
-                if (photoList.isEmpty()) {
-                    _photosState.setValue(new PhotoState.Empty());
-                } else {
-                    // Gửi đi một bản sao của danh sách để UI cập nhật
-                    _photosState.setValue(new PhotoState.Success(new ArrayList<>(photoList)));
-                }
-            }
-
-            @Override
-            public void err(Throwable t) {
-                isLoading = false;
-                _photosState.setValue(new PhotoState.Error(t != null ? t.getMessage() : "Unknown error"));
-            }
-        });
+    private void publish() {
+        // Gửi đi một bản sao của danh sách để UI cập nhật
+        _photosState.setValue(new PhotoState.Success(new ArrayList<>(photoList)));
     }
 
-    public void loadMorePhotos() {
-        if (isLoading || endReached) return;
-        isLoading = true;
+    /** Chuyển vị trí cuộn của feed cho prefetcher (gọi từ OnScrollListener của HomeFragment). */
+    public void onFeedScrolled(int lastVisible, int totalItems) {
+        feed.onScrolled(lastVisible, totalItems);
+    }
 
-        FlickrRepo.getRecent(currentPage, PER_PAGE, new FlickrRepo.CB() {
-            @Override
-            public void ok(List<PhotoItem> items) {
-                isLoading = false;
-                if (items != null && !items.isEmpty()) {
-                    photoList.addAll(items);
-                    _photosState.setValue(new PhotoState.Success(new ArrayList<>(photoList)));
-                    currentPage++;
-                } else {
-                    endReached = true;
-                }
-            }
-
-            @Override
-            public void err(Throwable t) {
-                isLoading = false;
-                // Có thể gửi một event lỗi riêng để Fragment hiển thị Toast
-            }
-        });
+    @Override
+    protected void onCleared() {
+        feed.stop();
     }
 }
-
@@ -1,16 +1,25 @@
 package vn.edu.usth.flickrbrowser.ui.search;
 
+import android.content.Context;
+import android.graphics.drawable.Drawable;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 import android.widget.ImageView;
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.recyclerview.widget.RecyclerView;
 import com.bumptech.glide.Glide;
+import com.bumptech.glide.RequestBuilder;
 import java.util.ArrayList;
 import java.util.List;
 import vn.edu.usth.flickrbrowser.R;
+import vn.edu.usth.flickrbrowser.core.image.GridImageStats;
+import vn.edu.usth.flickrbrowser.core.image.ImageTier;
+import vn.edu.usth.flickrbrowser.core.image.ImageUrlResolver;
 import vn.edu.usth.flickrbrowser.core.model.PhotoItem;
+import vn.edu.usth.flickrbrowser.ui.common.PhotoPlaceholder;
+import vn.edu.usth.flickrbrowser.ui.detail.DetailPrefetcher;
 import android.widget.ProgressBar;
 
 // PhotosAdapter.java
@@ -101,12 +110,13 @@ public class PhotosAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder>
         if (getItemViewType(pos) == TYPE_LOADING) return;
         VH h = (VH) holder;
         PhotoItem it = data.get(pos);
-        Glide.with(h.img.getContext())
-                .load(it.getThumbUrl())
-                .placeholder(R.drawable.bg_skeleton_rounded)
-                .centerCrop()
+        request(h.img.getContext(), it)
+                .placeholder(PhotoPlaceholder.of(h.img.getContext(), it, R.drawable.bg_skeleton_rounded))
+                .listener(GridImageStats.BIND_LISTENER)
                 .into(h.img);
         if (onItemClick != null) {
+            // Chạm xuống là bắt đầu tải ảnh Detail, trước khi activity mở
+            h.itemView.setOnTouchListener(DetailPrefetcher.warmOnTouch(it));
             h.itemView.setOnClickListener(v -> {
                 int p = h.getBindingAdapterPosition();
                 if (p != RecyclerView.NO_POSITION) {
@@ -115,7 +125,22 @@ public class PhotosAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder>
             });
         }
     }
-    
+
+    /** Request ảnh của ô {@code pos} cho GridImagePreloader; null với footer loading. */
+    @Nullable
+    public RequestBuilder<Drawable> preloadRequest(@NonNull Context context, int pos) {
+        if (pos < 0 || pos >= data.size() || data.get(pos) == null) return null;
+        return request(context, data.get(pos));
+    }
+
+    // Phần chung của bind và preload → cùng key memory cache của Glide
+    private static RequestBuilder<Drawable> request(Context context, PhotoItem it) {
+        return Glide.with(context)
+                .load(ImageUrlResolver.forColumns(context, it, 2, ImageUrlResolver.Fit.CROP))
+                .apply(ImageTier.THUMB)
+                .centerCrop();
+    }
+
     static class VH extends RecyclerView.ViewHolder {
         ImageView img;
         VH(@NonNull View itemView) {
@@ -26,9 +26,12 @@ import java.util.Random;
 
 import vn.edu.usth.flickrbrowser.R;
 import vn.edu.usth.flickrbrowser.core.api.FlickrRepo;
+import vn.edu.usth.flickrbrowser.core.db.FeedStore;
 import vn.edu.usth.flickrbrowser.core.model.PhotoItem;
 import vn.edu.usth.flickrbrowser.databinding.FragmentSearchBinding;
+import vn.edu.usth.flickrbrowser.ui.common.GridImagePreloader;
 import vn.edu.usth.flickrbrowser.ui.common.GridSpacingDecoration;
+import vn.edu.usth.flickrbrowser.ui.common.PagedFeed;
 import vn.edu.usth.flickrbrowser.ui.favorites.FavoritesViewModel;
 import vn.edu.usth.flickrbrowser.ui.state.PhotoState;
 
@@ -42,11 +45,11 @@ public class SearchFragment extends Fragment {
     private RecyclerView rvSuggestions;
     private SuggestionAdapter suggestionAdapter;
 
-    private int page = 1;
-    private final int perPage = 24;
-    private boolean isLoading = false;
-    private boolean endReached = false;
+    private final int perPage = 24; // mặc định; PagedFeed chỉnh theo NetworkQuality
     private String currentQuery = "";
+    // Phân trang của query hiện tại; huỷ khi query đổi hoặc view bị huỷ
+    private PagedFeed feed;
+    private GridImagePreloader preloader;
 
 
     private final ActivityResultLauncher<Intent> detailLauncher =
@@ -109,21 +112,63 @@ public class SearchFragment extends Fragment {
         int spacingPx = getResources().getDimensionPixelSize(R.dimen.spacing_xs);
         binding.rvPhotos.addItemDecoration(new GridSpacingDecoration(span, spacingPx, true));
 
-        // Infinite scroll
-        final int visibleThreshold = 6;
-        binding.rvPhotos.addOnScrollListener(new RecyclerView.OnScrollListener() {
-            @Override
-            public void onScrolled(@NonNull RecyclerView rv, int dx, int dy) {
-                super.onScrolled(rv, dx, dy);
-                if (dy <= 0) return;
-                int total = glm.getItemCount();
-                if (total <= 0) return;
-                int lastVisible = glm.findLastVisibleItemPosition();
-                if (!isLoading && !endReached && !currentQuery.isEmpty() && lastVisible >= total - visibleThreshold) {
-                    loadMore();
-                }
-            }
-        });
+        // Infinite scroll: các trang sau của query hiện tại được prefetch theo tốc độ cuộn
+        FeedStore store = FeedStore.get();
+        feed = new PagedFeed(perPage,
+                (p, pp, priority, refresh, cb) -> refresh
+                        ? FlickrRepo.refreshSearch(currentQuery, p, pp, cb)
+                        : FlickrRepo.search(currentQuery, p, pp, priority, cb),
+                // Query đã tìm trước đây: trang lưu trên disk hiện ngay
+                store == null ? null : (p, cb) -> store.readPage(FeedStore.FEED_SEARCH, currentQuery, p, cb),
+                new PagedFeed.Listener() {
+                    @Override
+                    public void onFirstPage(@NonNull List<PhotoItem> items) {
+                        setState(new PhotoState.Success(items));
+                    }
+
+                    @Override
+                    public void onAppend(@NonNull List<PhotoItem> items) {
+                        adapter.addMore(items);
+                    }
+
+                    @Override
+                    public void onEmpty() {
+                        setState(new PhotoState.Empty());
+                    }
+
+                    @Override
+                    public void onError(Throwable e) {
+                        String msg = (e != null && e.getMessage() != null && !e.getMessage().isEmpty())
+                                ? e.getMessage()
+                                : getString(R.string.search_failed);
+                        setState(new PhotoState.Error(msg));
+                    }
+
+                    @Override
+                    public void onSettled() {
+                        if (binding != null) binding.swipeRefresh.setRefreshing(false);
+                    }
+
+                    @Override
+                    public void onWaiting(boolean waiting) {
+                        if (waiting) adapter.addLoadingFooter();
+                        else adapter.removeLoadingFooter();
+                    }
+
+                    @Override
+                    public void onPageError(int p, Throwable e) {
+                        if (binding == null) return;
+                        String msg = (e != null && e.getMessage() != null && !e.getMessage().isEmpty())
+                                ? e.getMessage()
+                                : getString(R.string.load_more_failed);
+                        Toast.makeText(requireContext(), msg, Toast.LENGTH_SHORT).show();
+                    }
+                });
+        binding.rvPhotos.addOnScrollListener(feed.scrollListener(glm));
+        // Thumbnail của các ô sắp hiện được tải trước theo hướng / tốc độ cuộn
+        preloader = new GridImagePreloader(binding.rvPhotos, glm, R.id.imgPhoto,
+                pos -> adapter.preloadRequest(requireContext(), pos));
+        binding.rvPhotos.addOnScrollListener(preloader);
 
         // Pull-to-refresh: giữ list, không show shimmer full
         binding.swipeRefresh.setColorSchemeResources(
@@ -177,6 +222,7 @@ public class SearchFragment extends Fragment {
     @Override
     public void onDestroyView() {
         super.onDestroyView();
+        feed.stop();
         binding = null;
     }
 
@@ -195,6 +241,7 @@ public class SearchFragment extends Fragment {
             binding.shimmerGrid.getRoot().setVisibility(View.GONE);
             if (binding.emptyView != null) binding.emptyView.getRoot().setVisibility(View.GONE);
             binding.rvPhotos.setVisibility(View.VISIBLE);
+            preloader.reset();
             adapter.submitList(items);
         } else if (state instanceof vn.edu.usth.flickrbrowser.ui.state.PhotoState.Empty) {
             stopShimmers(binding.shimmerGrid.getRoot());
@@ -222,32 +269,20 @@ public class SearchFragment extends Fragment {
 
         // Chuẩn hoá query
         currentQuery = query == null ? "" : query.trim();
+        // Huỷ trang đầu + các trang prefetch của query trước
+        feed.stop();
+        preloader.reset();
 
         // Nếu rỗng → không gọi API, show Empty luôn
         if (currentQuery.isEmpty()) {
-            isLoading = false;
-            endReached = true;
-            page = 1;
             binding.swipeRefresh.setRefreshing(false);
             adapter.clearData();
             setState(new PhotoState.Empty());
             return;
         }
 
-        // Reset phân trang
-        page = 1;
-        endReached = false;
-        isLoading = true;
         // 👉 Nếu refresh thì random page
-        if (fromSwipeRefresh) {
-            page = new java.util.Random().nextInt(10) + 1; // random từ 1 tới 10
-        } else {
-            page = 1;
-        }
-
-
-        // Huỷ in-flight
-        FlickrRepo.cancelSearch();
+        int page = fromSwipeRefresh ? new java.util.Random().nextInt(10) + 1 : 1; // random từ 1 tới 10
 
         if (!fromSwipeRefresh) {
             setState(new vn.edu.usth.flickrbrowser.ui.state.PhotoState.Loading());
@@ -262,63 +297,7 @@ public class SearchFragment extends Fragment {
             if (binding.emptyView != null) binding.emptyView.getRoot().setVisibility(View.GONE);
         }
 
-        FlickrRepo.search(currentQuery, page, perPage, new FlickrRepo.CB() {
-            @Override
-            public void ok(List<PhotoItem> items) {
-                isLoading = false;
-                binding.swipeRefresh.setRefreshing(false);
-
-                if (items == null || items.isEmpty()) {
-                    setState(new vn.edu.usth.flickrbrowser.ui.state.PhotoState.Empty());
-                    endReached = true;
-                } else {
-                    setState(new vn.edu.usth.flickrbrowser.ui.state.PhotoState.Success(items));
-                    if (items.size() < perPage) endReached = true;
-                }
-            }
-
-            @Override
-            public void err(Throwable e) {
-                isLoading = false;
-                binding.swipeRefresh.setRefreshing(false);
-                String msg = (e != null && e.getMessage() != null && !e.getMessage().isEmpty())
-                        ? e.getMessage()
-                        : getString(R.string.search_failed);
-                setState(new vn.edu.usth.flickrbrowser.ui.state.PhotoState.Error(msg));
-            }
-        });
-    }
-
-    private void loadMore() {
-        if (binding == null) return;
-        if (isLoading || endReached || currentQuery.isEmpty()) return;
-
-        isLoading = true;
-        adapter.addLoadingFooter();
-        FlickrRepo.search(currentQuery, page + 1, perPage, new FlickrRepo.CB() {
-            @Override
-            public void ok(List<PhotoItem> items) {
-                isLoading = false;
-                adapter.removeLoadingFooter();
-                if (items == null || items.isEmpty()) {
-                    endReached = true;
-                    return;
-                }
-                adapter.addMore(items);
-                page++;
-                if (items.size() < perPage) endReached = true;
-            }
-
-            @Override
-            public void err(Throwable e) {
-                isLoading = false;
-                adapter.removeLoadingFooter();
-                String msg = (e != null && e.getMessage() != null && !e.getMessage().isEmpty())
-                        ? e.getMessage()
-                        : getString(R.string.load_more_failed);
-                Toast.makeText(requireContext(), msg, Toast.LENGTH_SHORT).show();
-            }
-        });
+        feed.load(page, fromSwipeRefresh);
     }
 
     private void startShimmers(View root){
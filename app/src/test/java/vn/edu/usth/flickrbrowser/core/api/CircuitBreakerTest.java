@@ -0,0 +1,174 @@
+package vn.edu.usth.flickrbrowser.core.api;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import vn.edu.usth.flickrbrowser.core.api.CircuitBreaker.Outcome;
+import vn.edu.usth.flickrbrowser.core.api.CircuitBreaker.State;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/** Trạng thái của {@link CircuitBreaker} theo kết quả các call, với đồng hồ giả thay cho sleep. */
+public class CircuitBreakerTest {
+
+    private static final long SLOW_MS = 3000;
+    private static final long COOLDOWN_MS = 15_000;
+
+    private long now = 1_000;
+
+    private CircuitBreaker breaker() {
+        return new CircuitBreaker("test", SLOW_MS, () -> now);
+    }
+
+    private static void fail(CircuitBreaker b, int times) {
+        for (int i = 0; i < times; i++) call(b, Outcome.FAILURE);
+    }
+
+    private static void call(CircuitBreaker b, Outcome outcome) {
+        assertTrue(b.allowRequest());
+        b.onOutcome(outcome, 100);
+    }
+
+    // --------------------------------------
+    // HTTP status
+    // --------------------------------------
+
+    @Test
+    public void outcomeOf_onlyServerErrorsAreFailures() {
+        assertEquals(Outcome.SUCCESS, CircuitBreaker.outcomeOf(200));
+        assertEquals(Outcome.SUCCESS, CircuitBreaker.outcomeOf(304));
+        assertEquals(Outcome.SUCCESS, CircuitBreaker.outcomeOf(404));
+        assertEquals(Outcome.IGNORED, CircuitBreaker.outcomeOf(429));
+        assertEquals(Outcome.FAILURE, CircuitBreaker.outcomeOf(500));
+        assertEquals(Outcome.FAILURE, CircuitBreaker.outcomeOf(503));
+    }
+
+    @Test
+    public void burstOf429_doesNotOpen() {
+        CircuitBreaker b = new CircuitBreaker("test", SLOW_MS);
+        for (int i = 0; i < 30; i++) call(b, CircuitBreaker.outcomeOf(429));
+        assertEquals(State.CLOSED, b.getState());
+    }
+
+    @Test
+    public void burstOf5xx_opens() {
+        CircuitBreaker b = new CircuitBreaker("test", SLOW_MS);
+        for (int i = 0; i < 5; i++) call(b, CircuitBreaker.outcomeOf(503));
+        assertEquals(State.OPEN, b.getState());
+    }
+
+    // --------------------------------------
+    // CLOSED → OPEN
+    // --------------------------------------
+
+    @Test
+    public void opensOnlyAfterMinCallsAndFailureRate() {
+        CircuitBreaker b = breaker();
+        fail(b, 4);
+        // Chưa đủ 5 mẫu: chưa kết luận
+        assertEquals(State.CLOSED, b.getState());
+        fail(b, 1);
+        assertEquals(State.OPEN, b.getState());
+        assertFalse(b.allowRequest());
+    }
+
+    @Test
+    public void failuresBelowHalf_stayClosed() {
+        CircuitBreaker b = breaker();
+        for (int i = 0; i < 6; i++) call(b, Outcome.SUCCESS);
+        fail(b, 5); // 5/11 < 50%
+        assertEquals(State.CLOSED, b.getState());
+        fail(b, 1); // 6/12
+        assertEquals(State.OPEN, b.getState());
+    }
+
+    @Test
+    public void slowCalls_open() {
+        CircuitBreaker b = breaker();
+        for (int i = 0; i < 5; i++) {
+            assertTrue(b.allowRequest());
+            b.onSuccess(SLOW_MS);
+        }
+        assertEquals(State.OPEN, b.getState());
+    }
+
+    // --------------------------------------
+    // OPEN → HALF_OPEN → CLOSED / OPEN
+    // --------------------------------------
+
+    @Test
+    public void cooldownExpiry_allowsSingleProbe() {
+        CircuitBreaker b = breaker();
+        fail(b, 5);
+        now += COOLDOWN_MS - 1;
+        assertFalse(b.allowRequest());
+        assertEquals(State.OPEN, b.getState());
+
+        now += 1;
+        assertEquals(State.HALF_OPEN, b.getState());
+        assertTrue(b.allowRequest());
+        // Probe đang chạy: request khác bị từ chối
+        assertFalse(b.allowRequest());
+    }
+
+    @Test
+    public void ignoredProbe_returnsTheSlot() {
+        CircuitBreaker b = breaker();
+        fail(b, 5);
+        now += COOLDOWN_MS;
+        assertTrue(b.allowRequest());
+        b.onIgnored();
+        assertTrue(b.allowRequest());
+    }
+
+    @Test
+    public void successfulProbes_close() {
+        CircuitBreaker b = breaker();
+        fail(b, 5);
+        now += COOLDOWN_MS;
+
+        call(b, Outcome.SUCCESS);
+        assertEquals(State.HALF_OPEN, b.getState());
+        call(b, Outcome.SUCCESS);
+        assertEquals(State.CLOSED, b.getState());
+
+        // Cửa sổ được xoá: lỗi cũ không còn tính
+        fail(b, 4);
+        assertEquals(State.CLOSED, b.getState());
+    }
+
+    @Test
+    public void failedProbe_reopensWithLongerCooldown() {
+        CircuitBreaker b = breaker();
+        fail(b, 5);
+        now += COOLDOWN_MS;
+        call(b, Outcome.FAILURE);
+        assertEquals(State.OPEN, b.getState());
+
+        now += COOLDOWN_MS;
+        assertFalse(b.allowRequest());
+        now += COOLDOWN_MS;
+        assertTrue(b.allowRequest());
+    }
+
+    @Test
+    public void listener_seesEachTransition() {
+        CircuitBreaker b = breaker();
+        List<String> changes = new ArrayList<>();
+        b.addListener((breaker, from, to) -> changes.add(from + "->" + to));
+
+        fail(b, 5);
+        now += COOLDOWN_MS;
+        call(b, Outcome.SUCCESS);
+        call(b, Outcome.SUCCESS);
+
+        assertEquals(3, changes.size());
+        assertEquals("CLOSED->OPEN", changes.get(0));
+        assertEquals("OPEN->HALF_OPEN", changes.get(1));
+        assertEquals("HALF_OPEN->CLOSED", changes.get(2));
+    }
+}
@@ -0,0 +1,57 @@
+package vn.edu.usth.flickrbrowser.core.api;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/** Tier theo băng thông / RTT và kích thước trang, biến thể ảnh suy ra từ tier. */
+public class NetworkQualityTest {
+
+    @Before
+    public void setUp() {
+        NetworkQuality.reset();
+    }
+
+    @After
+    public void tearDown() {
+        NetworkQuality.reset();
+    }
+
+    @Test
+    public void noSamples_keepsDefaults() {
+        assertEquals(NetworkQuality.Tier.GOOD, NetworkQuality.getTier());
+        assertEquals(10, NetworkQuality.perPage(10));
+        assertEquals(NetworkQuality.Variant.LARGE, NetworkQuality.imageVariant());
+    }
+
+    @Test
+    public void smallBodies_areNotBandwidthSamples() {
+        NetworkQuality.onDownload(4 * 1024, 1000); // 32kbps, nhưng body quá nhỏ
+        assertEquals(-1, NetworkQuality.getBandwidthKbps(), 0);
+        assertEquals(NetworkQuality.Tier.GOOD, NetworkQuality.getTier());
+    }
+
+    @Test
+    public void slowestSignalWins() {
+        NetworkQuality.onDownload(1024 * 1024, 1000); // ~8Mbps
+        assertEquals(NetworkQuality.Tier.EXCELLENT, NetworkQuality.getTier());
+        NetworkQuality.onRtt(2000);
+        assertEquals(NetworkQuality.Tier.POOR, NetworkQuality.getTier());
+        assertEquals(NetworkQuality.Variant.SMALL, NetworkQuality.imageVariant());
+    }
+
+    @Test
+    public void perPage_isEvenAndBounded() {
+        NetworkQuality.pin(NetworkQuality.Tier.POOR);
+        assertEquals(6, NetworkQuality.perPage(10));
+        assertEquals(4, NetworkQuality.perPage(4));
+        NetworkQuality.pin(NetworkQuality.Tier.MODERATE);
+        assertEquals(18, NetworkQuality.perPage(24));
+        NetworkQuality.pin(NetworkQuality.Tier.EXCELLENT);
+        assertEquals(18, NetworkQuality.perPage(12));
+        NetworkQuality.pin(null);
+        assertEquals(12, NetworkQuality.perPage(12));
+    }
+}
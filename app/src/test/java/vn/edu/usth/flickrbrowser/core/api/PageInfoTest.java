@@ -0,0 +1,66 @@
+package vn.edu.usth.flickrbrowser.core.api;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import vn.edu.usth.flickrbrowser.core.model.PhotoItem;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/** Con trỏ phân trang lấy từ next_page của Pexels, và cách đoán khi không có con trỏ. */
+public class PageInfoTest {
+
+    private static PageInfo parse(String json) throws IOException {
+        List<PageInfo> out = new ArrayList<>();
+        PhotoParser.parsePexels(new StringReader(json), new PhotoParser.ItemListener() {
+            @Override
+            public void onItem(PhotoItem item) {}
+
+            @Override
+            public void onPageInfo(PageInfo info) {
+                out.add(info);
+            }
+        });
+        assertEquals(1, out.size());
+        return out.get(0);
+    }
+
+    @Test
+    public void nextPage_isReadFromCursorUrl() throws IOException {
+        PageInfo info = parse("{\"page\":2,\"per_page\":12,\"total_results\":8000,"
+                + "\"next_page\":\"https://api.pexels.com/v1/curated/?page=3&per_page=12\",\"photos\":[]}");
+        assertEquals(2, info.page);
+        assertEquals(3, info.nextPage);
+        assertEquals(8000, info.totalResults);
+        // Con trỏ thắng số ảnh: trang thiếu ảnh nhưng còn next_page vẫn chưa phải trang cuối
+        assertTrue(info.hasNext(5, 12));
+    }
+
+    @Test
+    public void missingNextPage_isLastPage() throws IOException {
+        PageInfo info = parse("{\"page\":4,\"per_page\":24,\"total_results\":96,\"photos\":[]}");
+        assertTrue(info.isKnown());
+        assertEquals(0, info.nextPage);
+        assertFalse(info.hasNext(24, 24));
+    }
+
+    @Test
+    public void unparsableCursor_fallsBackToPagePlusOne() throws IOException {
+        PageInfo info = parse("{\"page\":1,\"next_page\":\"https://api.pexels.com/v1/search?query=cat\"}");
+        assertEquals(2, info.nextPage);
+    }
+
+    @Test
+    public void unknownCursor_guessesFromPageSize() {
+        PageInfo info = PageInfo.unknown(3);
+        assertFalse(info.isKnown());
+        assertTrue(info.hasNext(12, 12));
+        assertFalse(info.hasNext(7, 12));
+    }
+}
@@ -0,0 +1,157 @@
+package vn.edu.usth.flickrbrowser.core.api;
+
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import vn.edu.usth.flickrbrowser.core.model.PhotoItem;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+/** LRU, TTL và key của {@link PageMemoryCache}, với đồng hồ giả thay cho sleep. */
+public class PageMemoryCacheTest {
+
+    private static final long TTL_MS = 60_000;
+
+    private long now = 1_000;
+
+    /** Cache vừa đúng {@code pages} trang một ảnh. */
+    private PageMemoryCache cache(int pages) {
+        long maxBytes = pages * PageMemoryCache.estimateBytes(page("x"));
+        return new PageMemoryCache(maxBytes, TTL_MS, TimeUnit.MILLISECONDS, () -> now);
+    }
+
+    private static List<PhotoItem> page(String id) {
+        PhotoItem p = new PhotoItem();
+        p.id = id;
+        return Collections.singletonList(p);
+    }
+
+    // --------------------------------------
+    // LRU
+    // --------------------------------------
+
+    @Test
+    public void atCapacity_evictsLeastRecentlyUsed() {
+        PageMemoryCache c = cache(3);
+        List<PhotoItem> a = page("a");
+        c.put("a", a);
+        c.put("b", page("b"));
+        c.put("c", page("c"));
+        // Đọc "a" → "b" thành trang dùng lâu nhất
+        assertSame(a, c.get("a"));
+
+        c.put("d", page("d"));
+        assertEquals(3, c.getEntryCount());
+        assertEquals(1, c.getEvictionCount());
+        assertNull(c.get("b"));
+        assertSame(a, c.get("a"));
+
+        c.put("e", page("e"));
+        assertNull(c.get("c"));
+        assertEquals(2, c.getEvictionCount());
+    }
+
+    @Test
+    public void pageLargerThanCache_isNotStored() {
+        PageMemoryCache c = cache(1);
+        c.put("a", page("a"));
+        PhotoItem big = new PhotoItem();
+        big.id = "b";
+        big.title = "a title long enough to exceed the one-page budget";
+        c.put("b", Collections.singletonList(big));
+
+        assertNull(c.get("b"));
+        assertEquals(1, c.getEntryCount());
+    }
+
+    // --------------------------------------
+    // TTL
+    // --------------------------------------
+
+    @Test
+    public void expiredEntry_isMiss() {
+        PageMemoryCache c = cache(3);
+        List<PhotoItem> a = page("a");
+        c.put("a", a);
+
+        now += TTL_MS - 1;
+        assertSame(a, c.get("a"));
+        now += 1;
+        assertNull(c.get("a"));
+        assertEquals(1, c.getExpiredCount());
+        assertEquals(1, c.getMissCount());
+        assertEquals(0, c.getEntryCount());
+        assertEquals(0, c.getSizeBytes());
+    }
+
+    @Test
+    public void expiredEntries_areDroppedBeforeLiveOnes() {
+        PageMemoryCache c = cache(2);
+        c.put("old", page("old"));
+        now += TTL_MS;
+        List<PhotoItem> b = page("b");
+        c.put("b", b);
+        c.put("c", page("c"));
+
+        assertEquals(1, c.getExpiredCount());
+        assertEquals(0, c.getEvictionCount());
+        assertSame(b, c.get("b"));
+    }
+
+    // --------------------------------------
+    // Refresh
+    // --------------------------------------
+
+    @Test
+    public void refresh_bypassesCache() {
+        PageMemoryCache c = cache(3);
+        List<PhotoItem> a = page("a");
+        c.put("a", a);
+
+        assertNull(c.get("a", true));
+        assertEquals(0, c.getMissCount());
+        assertEquals(0, c.getHitCount());
+        assertSame(a, c.get("a", false));
+
+        // Kết quả refresh thay trang cũ
+        List<PhotoItem> fresh = page("a2");
+        c.put("a", fresh);
+        assertSame(fresh, c.get("a"));
+        assertEquals(1, c.getEntryCount());
+    }
+
+    // --------------------------------------
+    // Key
+    // --------------------------------------
+
+    @Test
+    public void normalizeQuery_collapsesCaseAndWhitespace() {
+        assertEquals("sunset beach", PageMemoryCache.normalizeQuery("  Sunset \t  BEACH "));
+        assertEquals("", PageMemoryCache.normalizeQuery("   "));
+        assertEquals("", PageMemoryCache.normalizeQuery(null));
+        assertEquals(PageMemoryCache.key("search", "sunset beach", 1, 20),
+                PageMemoryCache.key("search", "Sunset  Beach", 1, 20));
+    }
+
+    @Test
+    public void differentQueries_neverShareKey() {
+        String[] queries = {"sunset beach", "sunsetbeach", "sunset", "beach sunset", "sunset beach 2", ""};
+        for (int i = 0; i < queries.length; i++) {
+            for (int j = i + 1; j < queries.length; j++) {
+                assertNotEquals(queries[i] + " / " + queries[j],
+                        PageMemoryCache.key("search", queries[i], 1, 20),
+                        PageMemoryCache.key("search", queries[j], 1, 20));
+            }
+        }
+        // Cùng query nhưng khác endpoint / page / perPage
+        assertNotEquals(PageMemoryCache.key("search", "", 1, 20), PageMemoryCache.key("curated", null, 1, 20));
+        assertNotEquals(PageMemoryCache.key("search", "cat", 1, 20), PageMemoryCache.key("search", "cat", 2, 20));
+        assertNotEquals(PageMemoryCache.key("search", "cat", 1, 20), PageMemoryCache.key("search", "cat", 1, 40));
+    }
+}
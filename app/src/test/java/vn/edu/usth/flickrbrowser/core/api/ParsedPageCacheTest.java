@@ -0,0 +1,99 @@
+package vn.edu.usth.flickrbrowser.core.api;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import okhttp3.MediaType;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.BufferedSource;
+import okio.Okio;
+import vn.edu.usth.flickrbrowser.core.model.PhotoItem;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+/** Dùng lại kết quả parse theo validator (ETag) hoặc theo SHA-256 của body khi không có validator. */
+public class ParsedPageCacheTest {
+
+    private static final MediaType JSON = MediaType.get("application/json; charset=utf-8");
+    private static final String PAGE = "{\"page\":1,\"per_page\":2,\"photos\":["
+            + "{\"id\":1,\"alt\":\"one\",\"src\":{\"medium\":\"https://images.pexels.com/1.jpg\"}},"
+            + "{\"id\":2,\"alt\":\"two\",\"src\":{\"medium\":\"https://images.pexels.com/2.jpg\"}}]}\n  ";
+
+    @Before
+    public void setUp() {
+        ParsedPageCache.clear();
+    }
+
+    private static Response response(String url, String body, String etag) {
+        Request req = new Request.Builder().url(url).build();
+        Response.Builder network = new Response.Builder()
+                .request(req).protocol(Protocol.HTTP_1_1).code(200).message("OK");
+        Response.Builder raw = new Response.Builder()
+                .request(req).protocol(Protocol.HTTP_1_1).code(200).message("OK")
+                .body(body(body));
+        if (etag != null) {
+            network.header("ETag", etag);
+            raw.header("ETag", etag);
+        }
+        return raw.networkResponse(network.build()).build();
+    }
+
+    /** Body đọc qua RealBufferedSource như body mạng: đọc sau khi close() thì ném lỗi. */
+    private static ResponseBody body(String json) {
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        BufferedSource source = Okio.buffer(Okio.source(new ByteArrayInputStream(bytes)));
+        return ResponseBody.create(source, JSON, bytes.length);
+    }
+
+    private static List<PhotoItem> parse(Response r, List<PhotoItem> streamed) throws IOException {
+        return ParsedPageCache.parse(r, r.body(), PhotoParser::parsePexels, streamed::add);
+    }
+
+    @Test
+    public void noValidator_sameBodyTwice_returnsCachedItems() throws IOException {
+        String url = "https://api.pexels.com/v1/curated?page=1&per_page=2";
+        List<PhotoItem> streamed = new ArrayList<>();
+
+        List<PhotoItem> first = parse(response(url, PAGE, null), streamed);
+        assertEquals(2, first.size());
+        assertEquals("1", first.get(0).id);
+        assertEquals(2, streamed.size());
+
+        // Body vẫn được parse dần (listener nhận ảnh), nhưng hash trùng → cùng List với lần trước
+        List<PhotoItem> second = parse(response(url, PAGE, null), streamed);
+        assertSame(first, second);
+        assertEquals(4, streamed.size());
+    }
+
+    @Test
+    public void noValidator_changedBody_isParsedAgain() throws IOException {
+        String url = "https://api.pexels.com/v1/curated?page=2&per_page=2";
+        List<PhotoItem> first = parse(response(url, PAGE, null), new ArrayList<>());
+        List<PhotoItem> second = parse(response(url, PAGE.replace("\"id\":2", "\"id\":3"), null), new ArrayList<>());
+
+        assertNotSame(first, second);
+        assertEquals("3", second.get(1).id);
+    }
+
+    @Test
+    public void sameEtag_skipsParse() throws IOException {
+        String url = "https://api.pexels.com/v1/curated?page=3&per_page=2";
+        List<PhotoItem> first = parse(response(url, PAGE, "\"v1\""), new ArrayList<>());
+
+        List<PhotoItem> streamed = new ArrayList<>();
+        List<PhotoItem> second = parse(response(url, PAGE, "\"v1\""), streamed);
+        assertSame(first, second);
+        assertEquals(0, streamed.size());
+    }
+}
@@ -0,0 +1,214 @@
+package vn.edu.usth.flickrbrowser.core.api;
+
+import com.google.gson.FieldNamingPolicy;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import vn.edu.usth.flickrbrowser.core.api.dto.PexelsPage;
+import vn.edu.usth.flickrbrowser.core.api.dto.PexelsPhoto;
+import vn.edu.usth.flickrbrowser.core.model.PhotoItem;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * JVM micro-benchmark: đọc một trang Pexels per_page=80 theo cách cũ
+ * (body.string() + JSONObject), bằng PhotoParser (stream vào DTO qua reader viết tay)
+ * và bằng Gson reflection trên cùng DTO.
+ *
+ * In ra thời gian và số byte cấp phát trung bình mỗi trang. Mọi parser được warm-up trước khi
+ * đo để thứ tự chạy không thiên vị JIT. Lưu ý HotSpot JIT gần như xoá chi phí reflection; trên ART
+ * (nhất là lúc cold start, chưa có baseline profile) khoảng cách lớn hơn. Chạy:
+ * ./gradlew :app:testDebugUnitTest --tests "*PhotoParserBenchmark*" -Dbenchmark=true -i
+ * (không có -Dbenchmark=true thì chỉ chạy phép so khớp kết quả, bỏ qua phần đo).
+ */
+public class PhotoParserBenchmark {
+
+    private static final int PER_PAGE = 80;
+    private static final int WARMUP = 300;
+    private static final int ROUNDS = 1000;
+
+    // Gson mặc định: dựng PexelsPage bằng reflection, để so với reader viết tay
+    private static final Gson REFLECTIVE_GSON = new GsonBuilder()
+            .setFieldNamingPolicy(FieldNamingPolicy.LOWER_CASE_WITH_UNDERSCORES)
+            .create();
+
+    interface PageParser {
+        List<PhotoItem> parse(InputStream in) throws Exception;
+    }
+
+    @Test
+    public void streamingParser_matchesLegacyOutput() throws Exception {
+        byte[] page = pexelsPage(PER_PAGE);
+        List<PhotoItem> legacy = legacyParse(new ByteArrayInputStream(page));
+        List<PhotoItem> streamed = streamingParse(new ByteArrayInputStream(page));
+
+        assertEquals(legacy.size(), streamed.size());
+        for (int i = 0; i < legacy.size(); i++) {
+            assertEquals(legacy.get(i).id, streamed.get(i).id);
+            assertEquals(legacy.get(i).title, streamed.get(i).title);
+            assertEquals(legacy.get(i).owner, streamed.get(i).owner);
+            assertEquals(legacy.get(i).thumbUrl, streamed.get(i).thumbUrl);
+            assertEquals(legacy.get(i).fullUrl, streamed.get(i).fullUrl);
+        }
+    }
+
+    @Test
+    public void typedAdapters_matchReflectiveGson() throws Exception {
+        byte[] page = pexelsPage(PER_PAGE);
+        PexelsPage typed = PhotoParser.readPexelsPage(reader(page));
+        PexelsPage reflective = REFLECTIVE_GSON.fromJson(reader(page), PexelsPage.class);
+
+        assertEquals(8000, typed.totalResults);
+        assertEquals(PER_PAGE, typed.perPage);
+        assertTrue(typed.hasNextPage());
+        assertEquals(reflective.nextPage, typed.nextPage);
+        assertEquals(reflective.photos.size(), typed.photos.size());
+        for (int i = 0; i < typed.photos.size(); i++) {
+            PexelsPhoto a = reflective.photos.get(i);
+            PexelsPhoto b = typed.photos.get(i);
+            assertEquals(a.id, b.id);
+            assertEquals(a.width, b.width);
+            assertEquals(a.height, b.height);
+            assertEquals(a.avgColor, b.avgColor);
+            assertEquals(a.alt, b.alt);
+            assertEquals(a.src.tiny, b.src.tiny);
+            assertEquals(a.src.large2x, b.src.large2x);
+        }
+    }
+
+    @Test
+    public void benchmark_pexelsPage() throws Exception {
+        Assume.assumeTrue("benchmark: chạy với -Dbenchmark=true", Boolean.getBoolean("benchmark"));
+        byte[] page = pexelsPage(PER_PAGE);
+        System.out.println("Pexels page: " + page.length + " bytes, " + PER_PAGE + " photos");
+        PageParser[] all = {
+                PhotoParserBenchmark::legacyParse,
+                PhotoParserBenchmark::streamingParse,
+                PhotoParserBenchmark::reflectiveParse,
+        };
+        for (int i = 0; i < WARMUP; i++) {
+            for (PageParser parser : all) parser.parse(new ByteArrayInputStream(page));
+        }
+        run("legacy  (string + JSONObject)", page, PhotoParserBenchmark::legacyParse);
+        run("stream  (PhotoParser)        ", page, PhotoParserBenchmark::streamingParse);
+        run("reflect (Gson + DTO)         ", page, PhotoParserBenchmark::reflectiveParse);
+    }
+
+    // ===== Các cách parse cần so sánh =====
+
+    /** Bản sao đường cũ của FlickrRepo: đọc hết body thành String rồi dựng cây JSONObject. */
+    private static List<PhotoItem> legacyParse(InputStream in) throws Exception {
+        ByteArrayOutputStream buf = new ByteArrayOutputStream();
+        byte[] chunk = new byte[8192];
+        int n;
+        while ((n = in.read(chunk)) != -1) buf.write(chunk, 0, n);
+        String body = new String(buf.toByteArray(), StandardCharsets.UTF_8);
+
+        List<PhotoItem> out = new ArrayList<>();
+        JSONArray photos = new JSONObject(body).optJSONArray("photos");
+        if (photos == null) return out;
+        for (int i = 0; i < photos.length(); i++) {
+            JSONObject o = photos.optJSONObject(i);
+            if (o == null) continue;
+            PhotoItem p = new PhotoItem();
+            p.id = String.valueOf(o.optLong("id"));
+            p.title = o.optString("alt", "");
+            p.owner = o.optString("photographer", "");
+            JSONObject src = o.optJSONObject("src");
+            String thumb = src != null ? src.optString("medium", "") : "";
+            String full = src != null ? src.optString("large2x", src.optString("large", "")) : "";
+            p.thumbUrl = thumb;
+            p.fullUrl = full.isEmpty() ? thumb : full;
+            out.add(p);
+        }
+        return out;
+    }
+
+    private static List<PhotoItem> streamingParse(InputStream in) throws IOException {
+        return PhotoParser.parsePexels(new InputStreamReader(in, StandardCharsets.UTF_8));
+    }
+
+    private static List<PhotoItem> reflectiveParse(InputStream in) {
+        PexelsPage page = REFLECTIVE_GSON.fromJson(new InputStreamReader(in, StandardCharsets.UTF_8), PexelsPage.class);
+        return PhotoParser.toPhotos(page);
+    }
+
+    private static InputStreamReader reader(byte[] page) {
+        return new InputStreamReader(new ByteArrayInputStream(page), StandardCharsets.UTF_8);
+    }
+
+    // ===== Đo đạc =====
+
+    private static void run(String label, byte[] page, PageParser parser) throws Exception {
+        long alloc0 = allocatedBytes();
+        long t0 = System.nanoTime();
+        int sink = 0;
+        for (int i = 0; i < ROUNDS; i++) {
+            sink += parser.parse(new ByteArrayInputStream(page)).size();
+        }
+        long nanos = System.nanoTime() - t0;
+        long alloc = allocatedBytes() - alloc0;
+
+        assertEquals(PER_PAGE * ROUNDS, sink);
+        System.out.printf("%s  %8.1f us/page  %9d B/page%n",
+                label, nanos / 1000.0 / ROUNDS, alloc < 0 ? -1 : alloc / ROUNDS);
+    }
+
+    /** Byte đã cấp phát trên thread hiện tại (HotSpot); -1 nếu JVM không hỗ trợ. */
+    private static long allocatedBytes() {
+        java.lang.management.ThreadMXBean mx = ManagementFactory.getThreadMXBean();
+        if (mx instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) mx)
+                    .getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+
+    /** Sinh payload giống response /v1/curated của Pexels. */
+    private static byte[] pexelsPage(int perPage) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("{\"page\":1,\"per_page\":").append(perPage).append(",\"photos\":[");
+        for (int i = 0; i < perPage; i++) {
+            long id = 2014422L + i;
+            String base = "https://images.pexels.com/photos/" + id + "/pexels-photo-" + id + ".jpeg";
+            if (i > 0) sb.append(',');
+            sb.append("{\"id\":").append(id)
+              .append(",\"width\":3024,\"height\":3024")
+              .append(",\"url\":\"https://www.pexels.com/photo/brown-rocks-during-golden-hour-").append(id).append("/\"")
+              .append(",\"photographer\":\"Joey Farina ").append(i).append('"')
+              .append(",\"photographer_url\":\"https://www.pexels.com/@joey\"")
+              .append(",\"photographer_id\":680589")
+              .append(",\"avg_color\":\"#978E82\"")
+              .append(",\"src\":{")
+              .append("\"original\":\"").append(base).append("\",")
+              .append("\"large2x\":\"").append(base).append("?auto=compress&cs=tinysrgb&dpr=2&h=650&w=940\",")
+              .append("\"large\":\"").append(base).append("?auto=compress&cs=tinysrgb&h=650&w=940\",")
+              .append("\"medium\":\"").append(base).append("?auto=compress&cs=tinysrgb&h=350\",")
+              .append("\"small\":\"").append(base).append("?auto=compress&cs=tinysrgb&h=130\",")
+              .append("\"portrait\":\"").append(base).append("?auto=compress&cs=tinysrgb&fit=crop&h=1200&w=800\",")
+              .append("\"landscape\":\"").append(base).append("?auto=compress&cs=tinysrgb&fit=crop&h=627&w=1200\",")
+              .append("\"tiny\":\"").append(base).append("?auto=compress&cs=tinysrgb&dpr=1&fit=crop&h=200&w=280\"}")
+              .append(",\"liked\":false")
+              .append(",\"alt\":\"Brown Rocks During Golden Hour ").append(i).append("\"}");
+        }
+        sb.append("],\"total_results\":8000,\"next_page\":\"https://api.pexels.com/v1/curated/?page=2&per_page=")
+          .append(perPage).append("\"}");
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,46 @@
+package vn.edu.usth.flickrbrowser.core.api;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+
+import vn.edu.usth.flickrbrowser.core.model.PhotoItem;
+
+import static org.junit.Assert.assertEquals;
+
+/** Metadata dùng để dựng khung ảnh trước khi tải: kích thước, màu trung bình, các biến thể. */
+public class PhotoParserTest {
+
+    @Test
+    public void pexels_keepsSizeColorAndVariants() throws IOException {
+        List<PhotoItem> items = PhotoParser.parsePexels(new StringReader("{\"page\":1,\"photos\":[{"
+                + "\"id\":7,\"width\":4000,\"height\":6000,\"avg_color\":\"#7A6E5C\","
+                + "\"src\":{\"original\":\"https://p/7.jpeg\",\"tiny\":\"https://p/7.jpeg?t\","
+                + "\"medium\":\"https://p/7.jpeg?m\",\"large2x\":\"https://p/7.jpeg?l2\"}}]}"));
+        PhotoItem p = items.get(0);
+        assertEquals(4000, p.width);
+        assertEquals(6000, p.height);
+        assertEquals("#7A6E5C", p.avgColor);
+        assertEquals("https://p/7.jpeg", p.originalUrl);
+        assertEquals("https://p/7.jpeg?t", p.tinyUrl);
+        assertEquals(p.mediumUrl, p.thumbUrl);
+        assertEquals(p.large2xUrl, p.fullUrl);
+    }
+
+    @Test
+    public void flickrFeed_readsImageSizeFromDescription() throws IOException {
+        List<PhotoItem> items = PhotoParser.parseFeed(new StringReader("{\"items\":[{"
+                + "\"link\":\"https://www.flickr.com/photos/someone/123/\","
+                + "\"media\":{\"m\":\"https://live.staticflickr.com/65535/123_abc_m.jpg\"},"
+                + "\"description\":\" <p><a href=\\\"https://www.flickr.com/people/someone/\\\">someone</a></p>"
+                + " <p><a href=\\\"https://www.flickr.com/photos/someone/123/\\\">"
+                + "<img src=\\\"https://live.staticflickr.com/65535/123_abc_m.jpg\\\" width=\\\"160\\\" height=\\\"240\\\" alt=\\\"x\\\" />"
+                + "</a></p>\"}]}"));
+        PhotoItem p = items.get(0);
+        assertEquals(160, p.width);
+        assertEquals(240, p.height);
+        assertEquals("https://live.staticflickr.com/65535/123_abc_b.jpg", p.fullUrl);
+    }
+}
@@ -0,0 +1,275 @@
+package vn.edu.usth.flickrbrowser.core.api;
+
+import androidx.annotation.NonNull;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.CacheControl;
+import okhttp3.Call;
+import okhttp3.Connection;
+import okhttp3.Interceptor;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Quota và retry của {@link RateLimitGovernor} qua một {@link Interceptor.Chain} giả trả các
+ * response dựng sẵn; bucket chạy theo đồng hồ giả, chỉ backoff thật là ngủ (Retry-After: 0).
+ */
+public class RateLimitGovernorTest {
+
+    private static final String HOST = "api.pexels.com";
+    private static final String URL = "https://" + HOST + "/v1/curated?page=1&per_page=20";
+
+    private static final OkHttpClient CLIENT = new OkHttpClient();
+
+    private long now = 1_700_000_000_000L;
+    private final RateLimitGovernor governor = new RateLimitGovernor(HOST, () -> now);
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor();
+
+    @After
+    public void tearDown() {
+        timer.shutdownNow();
+    }
+
+    private static Request request(RequestPriority priority) {
+        return new Request.Builder().url(URL).tag(RequestPriority.class, priority).build();
+    }
+
+    // --------------------------------------
+    // Retry
+    // --------------------------------------
+
+    @Test
+    public void tooManyRequests_thenSuccess_isRetried() throws IOException {
+        FakeChain chain = new FakeChain(request(RequestPriority.USER))
+                .respond(429, "Retry-After", "0")
+                .respond(200);
+
+        Response res = governor.intercept(chain);
+        assertEquals(200, res.code());
+        assertEquals(2, chain.proceeded);
+        assertEquals(1, governor.getRetriedCount());
+    }
+
+    @Test
+    public void user_isRetriedAtMostTwice() throws IOException {
+        FakeChain chain = new FakeChain(request(RequestPriority.USER))
+                .respond(503, "Retry-After", "0")
+                .respond(503, "Retry-After", "0")
+                .respond(503, "Retry-After", "0")
+                .respond(200);
+
+        Response res = governor.intercept(chain);
+        assertEquals(503, res.code());
+        assertEquals(3, chain.proceeded);
+        assertEquals(2, governor.getRetriedCount());
+    }
+
+    @Test
+    public void prefetch_isNotRetried() throws IOException {
+        FakeChain chain = new FakeChain(request(RequestPriority.PREFETCH))
+                .respond(429, "Retry-After", "0")
+                .respond(200);
+
+        assertEquals(429, governor.intercept(chain).code());
+        assertEquals(1, chain.proceeded);
+        assertEquals(0, governor.getRetriedCount());
+    }
+
+    @Test
+    public void retryAfterAboveCap_isReturnedWithoutWaiting() throws IOException {
+        FakeChain chain = new FakeChain(request(RequestPriority.USER))
+                .respond(429, "Retry-After", "3")
+                .respond(200);
+
+        long start = System.nanoTime();
+        assertEquals(429, governor.intercept(chain).code());
+        assertEquals(1, chain.proceeded);
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 1_000);
+
+        // Retry-After chặn cả request sau cho tới khi hết hạn
+        assertDenied(new FakeChain(request(RequestPriority.USER)).respond(200));
+        now += 3_000;
+        assertEquals(200, governor.intercept(new FakeChain(request(RequestPriority.USER)).respond(200)).code());
+    }
+
+    @Test
+    public void cancelDuringBackoff_stopsWithinASlice() {
+        FakeChain chain = new FakeChain(request(RequestPriority.USER))
+                .respond(429, "Retry-After", "2")
+                .respond(200);
+        timer.schedule(chain.call::cancel, 150, TimeUnit.MILLISECONDS);
+
+        long start = System.nanoTime();
+        try {
+            governor.intercept(chain);
+            fail("expected IOException");
+        } catch (IOException e) {
+            assertEquals("Canceled", e.getMessage());
+        }
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertTrue("stopped after " + elapsed + "ms", elapsed < 1_000);
+        assertEquals(1, chain.proceeded);
+    }
+
+    // --------------------------------------
+    // Budget
+    // --------------------------------------
+
+    @Test
+    public void emptyBucket_rejectsPrefetchButNotUser() throws IOException {
+        drain();
+
+        assertDenied(new FakeChain(request(RequestPriority.PREFETCH)).respond(200));
+        assertEquals(1, governor.getDeniedCount());
+        assertEquals(200, governor.intercept(new FakeChain(request(RequestPriority.USER)).respond(200)).code());
+    }
+
+    @Test
+    public void bucket_refillsOverTime() throws IOException {
+        drain();
+        assertEquals(0, governor.getTokens(), 1e-9);
+
+        // Không có header: tối thiểu 200 request/giờ → 1 token mỗi 18 s
+        now += 17_000;
+        assertDenied(new FakeChain(request(RequestPriority.PREFETCH)).respond(200));
+        now += 1_100;
+        assertEquals(200, governor.intercept(new FakeChain(request(RequestPriority.PREFETCH)).respond(200)).code());
+    }
+
+    @Test
+    public void lowQuota_keepsReserveForUser() throws IOException {
+        long reset = TimeUnit.MILLISECONDS.toSeconds(now) + 3_600;
+        governor.intercept(new FakeChain(request(RequestPriority.USER)).respond(200,
+                "X-Ratelimit-Limit", "200",
+                "X-Ratelimit-Remaining", "30",
+                "X-Ratelimit-Reset", String.valueOf(reset)));
+        assertEquals(0.15, governor.getRemainingFraction(), 1e-9);
+
+        // Còn 19 token; PREFETCH dùng tới khi còn 5, phần đó để dành cho USER
+        for (int i = 0; i < 14; i++) {
+            governor.intercept(new FakeChain(request(RequestPriority.PREFETCH)).respond(200));
+        }
+        assertDenied(new FakeChain(request(RequestPriority.PREFETCH)).respond(200));
+        assertEquals(200, governor.intercept(new FakeChain(request(RequestPriority.USER)).respond(200)).code());
+    }
+
+    @Test
+    public void onlyIfCached_andOtherHosts_passThrough() throws IOException {
+        drain();
+        assertDenied(new FakeChain(request(RequestPriority.PREFETCH)).respond(200));
+
+        Request cached = request(RequestPriority.PREFETCH).newBuilder()
+                .cacheControl(CacheControl.FORCE_CACHE).build();
+        assertEquals(504, governor.intercept(new FakeChain(cached).respond(504)).code());
+
+        Request other = new Request.Builder().url("https://www.flickr.com/services/feeds/photos_public.gne")
+                .tag(RequestPriority.class, RequestPriority.PREFETCH).build();
+        assertEquals(200, governor.intercept(new FakeChain(other).respond(200)).code());
+        assertEquals(1, governor.getDeniedCount());
+    }
+
+    // --------------------------------------
+    // Helpers
+    // --------------------------------------
+
+    /** Dùng hết 20 token bằng request USER (đồng hồ đứng yên nên không refill). */
+    private void drain() throws IOException {
+        for (int i = 0; i < 20; i++) {
+            governor.intercept(new FakeChain(request(RequestPriority.USER)).respond(200));
+        }
+    }
+
+    private void assertDenied(FakeChain chain) {
+        try {
+            governor.intercept(chain);
+            fail("expected RateLimitedException");
+        } catch (RateLimitedException expected) {
+            assertEquals(0, chain.proceeded);
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    /** Chain trả lần lượt các response dựng sẵn; call() là call thật (chưa chạy) để huỷ được. */
+    private static final class FakeChain implements Interceptor.Chain {
+        final Request request;
+        final Call call;
+        final Deque<Response.Builder> responses = new ArrayDeque<>();
+        int proceeded;
+
+        FakeChain(Request request) {
+            this.request = request;
+            this.call = CLIENT.newCall(request);
+        }
+
+        FakeChain respond(int code, String... headers) {
+            Response.Builder network = new Response.Builder()
+                    .request(request).protocol(Protocol.HTTP_1_1).code(code).message("HTTP " + code);
+            Response.Builder b = new Response.Builder()
+                    .request(request).protocol(Protocol.HTTP_1_1).code(code).message("HTTP " + code)
+                    .body(ResponseBody.create("{}", null));
+            for (int i = 0; i + 1 < headers.length; i += 2) {
+                network.header(headers[i], headers[i + 1]);
+                b.header(headers[i], headers[i + 1]);
+            }
+            responses.add(b.networkResponse(network.build()));
+            return this;
+        }
+
+        @NonNull
+        @Override
+        public Request request() { return request; }
+
+        @NonNull
+        @Override
+        public Response proceed(@NonNull Request request) {
+            proceeded++;
+            if (responses.isEmpty()) throw new AssertionError("unexpected request #" + proceeded);
+            return responses.poll().build();
+        }
+
+        @Override
+        public Connection connection() { return null; }
+
+        @NonNull
+        @Override
+        public Call call() { return call; }
+
+        @Override
+        public int connectTimeoutMillis() { return 0; }
+
+        @NonNull
+        @Override
+        public Interceptor.Chain withConnectTimeout(int timeout, @NonNull TimeUnit unit) { return this; }
+
+        @Override
+        public int readTimeoutMillis() { return 0; }
+
+        @NonNull
+        @Override
+        public Interceptor.Chain withReadTimeout(int timeout, @NonNull TimeUnit unit) { return this; }
+
+        @Override
+        public int writeTimeoutMillis() { return 0; }
+
+        @NonNull
+        @Override
+        public Interceptor.Chain withWriteTimeout(int timeout, @NonNull TimeUnit unit) { return this; }
+    }
+}
@@ -0,0 +1,72 @@
+package vn.edu.usth.flickrbrowser.core.image;
+
+import org.junit.Test;
+
+import vn.edu.usth.flickrbrowser.core.model.PhotoItem;
+
+import static org.junit.Assert.assertEquals;
+
+/** Chọn biến thể / URL resize theo kích thước view. */
+public class ImageUrlResolverTest {
+
+    private static final String BASE = "https://images.pexels.com/photos/1/pexels-photo-1.jpeg";
+
+    private static PhotoItem pexels(int w, int h) {
+        PhotoItem p = new PhotoItem();
+        p.width = w;
+        p.height = h;
+        p.originalUrl = BASE;
+        p.tinyUrl = BASE + "?auto=compress&cs=tinysrgb&dpr=1&fit=crop&h=200&w=280";
+        p.smallUrl = BASE + "?auto=compress&cs=tinysrgb&h=130";
+        p.mediumUrl = BASE + "?auto=compress&cs=tinysrgb&h=350";
+        p.largeUrl = BASE + "?auto=compress&cs=tinysrgb&h=650&w=940";
+        p.large2xUrl = BASE + "?auto=compress&cs=tinysrgb&dpr=2&h=650&w=940";
+        p.thumbUrl = p.mediumUrl;
+        p.fullUrl = p.large2xUrl;
+        return p;
+    }
+
+    @Test
+    public void pexels_smallestAdequateVariant() {
+        PhotoItem p = pexels(6000, 4000); // medium rộng 525, large 940
+        assertEquals(p.mediumUrl, ImageUrlResolver.resolve(p, 500, 0, ImageUrlResolver.Fit.INSIDE));
+        assertEquals(p.largeUrl, ImageUrlResolver.resolve(p, 900, 0, ImageUrlResolver.Fit.INSIDE));
+        assertEquals(p.tinyUrl, ImageUrlResolver.resolve(p, 180, 180, ImageUrlResolver.Fit.CROP));
+    }
+
+    @Test
+    public void pexels_buildsServerSideResizeWhenVariantsDoNotFit() {
+        PhotoItem p = pexels(6000, 4000);
+        // large (940) chưa đủ, large2x (1880) quá lớn → w=1100
+        assertEquals(BASE + "?auto=compress&cs=tinysrgb&w=1100",
+                ImageUrlResolver.resolve(p, 1080, 0, ImageUrlResolver.Fit.INSIDE));
+        // Ô vuông 540: cần rộng 810, large (940) vừa
+        assertEquals(p.largeUrl, ImageUrlResolver.resolve(p, 540, 540, ImageUrlResolver.Fit.CROP));
+        // Màn hình dọc phủ kín → crop phía server
+        assertEquals(BASE + "?auto=compress&cs=tinysrgb&w=1100&h=2400&fit=crop",
+                ImageUrlResolver.resolve(p, 1080, 2340, ImageUrlResolver.Fit.CROP));
+    }
+
+    @Test
+    public void flickr_picksSizeSuffix() {
+        PhotoItem p = new PhotoItem();
+        p.thumbUrl = "https://live.staticflickr.com/65535/123_abc9f_m.jpg";
+        assertEquals("https://live.staticflickr.com/65535/123_abc9f_n.jpg",
+                ImageUrlResolver.resolve(p, 300, 0, ImageUrlResolver.Fit.INSIDE));
+        assertEquals("https://live.staticflickr.com/65535/123_abc9f_c.jpg",
+                ImageUrlResolver.resolve(p, 540, 540, ImageUrlResolver.Fit.CROP));
+        assertEquals("https://live.staticflickr.com/65535/123_abc9f_b.jpg",
+                ImageUrlResolver.resolve(p, 1440, 0, ImageUrlResolver.Fit.INSIDE));
+        assertEquals("https://live.staticflickr.com/65535/123_abc9f.jpg",
+                ImageUrlResolver.flickrSize(p.thumbUrl, ""));
+    }
+
+    @Test
+    public void noVariants_fallsBackToThumbOrFull() {
+        PhotoItem p = new PhotoItem();
+        p.thumbUrl = "https://example.com/t.jpg";
+        p.fullUrl = "https://example.com/f.jpg";
+        assertEquals(p.thumbUrl, ImageUrlResolver.resolve(p, 540, 540, ImageUrlResolver.Fit.CROP));
+        assertEquals(p.fullUrl, ImageUrlResolver.resolve(p, 1080, 0, ImageUrlResolver.Fit.INSIDE));
+    }
+}
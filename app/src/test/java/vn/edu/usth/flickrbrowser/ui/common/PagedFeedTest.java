@@ -0,0 +1,315 @@
+package vn.edu.usth.flickrbrowser.ui.common;
+
+import androidx.annotation.NonNull;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import vn.edu.usth.flickrbrowser.core.api.FlickrRepo;
+import vn.edu.usth.flickrbrowser.core.api.NetworkQuality;
+import vn.edu.usth.flickrbrowser.core.api.PageInfo;
+import vn.edu.usth.flickrbrowser.core.api.RequestHandle;
+import vn.edu.usth.flickrbrowser.core.api.RequestPriority;
+import vn.edu.usth.flickrbrowser.core.db.FeedStore;
+import vn.edu.usth.flickrbrowser.core.model.PhotoItem;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Phân trang của {@link PagedFeed} với Source / LocalSource giả: callback được gọi tay ngay
+ * trên thread của test (thay cho main thread), trang lỗi được thử lại không cần chờ.
+ */
+public class PagedFeedTest {
+
+    private static final int PER_PAGE = 4;
+
+    private final FakeSource source = new FakeSource();
+    private final Events events = new Events();
+
+    @Before
+    public void setUp() {
+        // perPage của phiên = PER_PAGE
+        NetworkQuality.pin(NetworkQuality.Tier.GOOD);
+    }
+
+    @After
+    public void tearDown() {
+        NetworkQuality.pin(null);
+    }
+
+    private PagedFeed feed(PagedFeed.LocalSource local) {
+        return new PagedFeed(PER_PAGE, PER_PAGE, 0, source, local, events);
+    }
+
+    // --------------------------------------
+    // Trang cuối
+    // --------------------------------------
+
+    @Test
+    public void shortPageWithoutCursor_isLastPage() {
+        PagedFeed feed = feed(null);
+        feed.load(1, false);
+        source.last().ok(photos("a", "b"));
+
+        assertEquals(Arrays.asList("settled", "first:a,b"), events.log);
+        // Cuộn tới đáy: không tải trang 2, không hiện footer loading
+        feed.onScrolled(1, 2);
+        assertEquals(1, source.calls.size());
+        assertFalse(events.log.contains("waiting:true"));
+    }
+
+    @Test
+    public void shortPageWithCursor_keepsPaging() {
+        PagedFeed feed = feed(null);
+        feed.load(1, false);
+        source.last().respond(new PageInfo(1, 2, 100), photos("a", "b"));
+
+        feed.onScrolled(1, 2);
+        assertEquals(2, source.calls.size());
+        assertEquals(2, source.last().page);
+        assertEquals(RequestPriority.USER, source.last().priority);
+    }
+
+    @Test
+    public void emptyFirstPage_reportsEmpty() {
+        PagedFeed feed = feed(null);
+        feed.load(1, false);
+        source.last().ok(new ArrayList<>());
+
+        assertEquals(Arrays.asList("settled", "empty"), events.log);
+        feed.onScrolled(0, 0);
+        assertEquals(1, source.calls.size());
+    }
+
+    @Test
+    public void emptyLaterPage_endsPaging() {
+        PagedFeed feed = feed(null);
+        feed.load(1, false);
+        source.last().ok(photos("a", "b", "c", "d"));
+
+        feed.onScrolled(3, 4);
+        assertEquals(2, source.last().page);
+        source.last().ok(new ArrayList<>());
+
+        // Hết dữ liệu: footer loading tắt, không tải thêm trang nào
+        assertEquals("waiting:false", events.last());
+        feed.onScrolled(3, 4);
+        assertEquals(2, source.calls.size());
+    }
+
+    // --------------------------------------
+    // Lỗi
+    // --------------------------------------
+
+    @Test
+    public void firstPageError_thenReload() {
+        PagedFeed feed = feed(null);
+        feed.load(1, false);
+        source.last().err(new IOException("offline"));
+        assertEquals(Arrays.asList("settled", "error"), events.log);
+
+        feed.load(1, true);
+        Call retry = source.last();
+        assertEquals(1, retry.page);
+        assertTrue(retry.refresh);
+        retry.ok(photos("a", "b", "c", "d"));
+        assertEquals("first:a,b,c,d", events.last());
+    }
+
+    @Test
+    public void laterPageError_isRetriedOnNextScroll() {
+        PagedFeed feed = feed(null);
+        feed.load(1, false);
+        source.last().ok(photos("a", "b", "c", "d"));
+
+        feed.onScrolled(3, 4);
+        source.last().err(new IOException("timeout"));
+        assertEquals("pageError:2", events.last());
+
+        feed.onScrolled(3, 4);
+        assertEquals(3, source.calls.size());
+        assertEquals(2, source.last().page);
+        source.last().ok(photos("e", "f", "g", "h"));
+        assertTrue(events.log.contains("append:e,f,g,h"));
+    }
+
+    @Test
+    public void truncatedFirstPage_reloadsWithoutDuplicates() {
+        PagedFeed feed = feed(null);
+        feed.load(1, false);
+        Call first = source.last();
+        first.progress(photos("a", "b"));
+        first.err(new IOException("unexpected end of stream"));
+        assertEquals(Arrays.asList("first:a,b", "settled", "pageError:1"), events.log);
+
+        // Trang 1 được tải lại; chỉ phần chưa hiện được nối vào
+        feed.onScrolled(1, 2);
+        assertEquals(1, source.last().page);
+        source.last().ok(photos("a", "b", "c", "d"));
+        assertTrue(events.log.contains("append:c,d"));
+        assertFalse(events.log.contains("append:a,b,c,d"));
+    }
+
+    // --------------------------------------
+    // Trang lưu trên disk
+    // --------------------------------------
+
+    @Test
+    public void storedPage_revalidatedWithChangedIds_isReplaced() {
+        PagedFeed feed = feed(stored(photos("a", "b", "c", "d")));
+        feed.load(1, false);
+        assertEquals(Collections.singletonList("first:a,b,c,d"), events.log);
+        assertEquals(RequestPriority.PREFETCH, source.last().priority);
+
+        source.last().respond(new PageInfo(1, 2, 100), photos("a", "b", "x", "d"));
+        assertEquals("first:a,b,x,d", events.last());
+    }
+
+    @Test
+    public void storedPage_revalidatedWithSameIds_isKept() {
+        PagedFeed feed = feed(stored(photos("a", "b", "c", "d")));
+        feed.load(1, false);
+        source.last().respond(new PageInfo(1, 2, 100), photos("a", "b", "c", "d"));
+
+        assertEquals(Arrays.asList("first:a,b,c,d", "settled"), events.log);
+        // Con trỏ của trang lưu vẫn cho tải tiếp
+        feed.onScrolled(3, 4);
+        assertEquals(2, source.last().page);
+    }
+
+    @Test
+    public void storedPage_revalidatedWithoutCursor_isKept() {
+        // Kết quả fallback Flickr feed (không con trỏ) không thay trang Pexels đã lưu
+        PagedFeed feed = feed(stored(photos("a", "b", "c", "d")));
+        feed.load(1, false);
+        source.last().ok(photos("f1", "f2"));
+
+        assertEquals(Arrays.asList("first:a,b,c,d", "settled"), events.log);
+    }
+
+    // --------------------------------------
+    // Fakes
+    // --------------------------------------
+
+    private static List<PhotoItem> photos(String... ids) {
+        List<PhotoItem> out = new ArrayList<>();
+        for (String id : ids) {
+            PhotoItem p = new PhotoItem();
+            p.id = id;
+            out.add(p);
+        }
+        return out;
+    }
+
+    private static PagedFeed.LocalSource stored(List<PhotoItem> items) {
+        FeedStore.StoredPage page = new FeedStore.StoredPage(1, PER_PAGE, items, new PageInfo(1, 2, 100), 0);
+        return (p, cb) -> {
+            cb.onRead(p == page.page ? page : null);
+            return RequestHandle.NONE;
+        };
+    }
+
+    private static final class Call implements RequestHandle {
+        final int page;
+        final RequestPriority priority;
+        final boolean refresh;
+        final FlickrRepo.CB cb;
+        boolean active = true;
+
+        Call(int page, RequestPriority priority, boolean refresh, FlickrRepo.CB cb) {
+            this.page = page;
+            this.priority = priority;
+            this.refresh = refresh;
+            this.cb = cb;
+        }
+
+        void progress(List<PhotoItem> batch) {
+            ((FlickrRepo.ProgressiveCB) cb).progress(batch);
+        }
+
+        void respond(PageInfo info, List<PhotoItem> items) {
+            cb.pageInfo(info);
+            ok(items);
+        }
+
+        void ok(List<PhotoItem> items) {
+            active = false;
+            cb.ok(items);
+        }
+
+        void err(Throwable e) {
+            active = false;
+            cb.err(e);
+        }
+
+        @Override
+        public void cancel() { active = false; }
+
+        @Override
+        public boolean isActive() { return active; }
+    }
+
+    private static final class FakeSource implements PagedFeed.Source {
+        final List<Call> calls = new ArrayList<>();
+
+        @Override
+        public RequestHandle load(int page, int perPage, RequestPriority priority, boolean refresh,
+                                  FlickrRepo.CB cb) {
+            assertEquals(PER_PAGE, perPage);
+            Call call = new Call(page, priority, refresh, cb);
+            calls.add(call);
+            return call;
+        }
+
+        Call last() {
+            return calls.get(calls.size() - 1);
+        }
+    }
+
+    private static final class Events implements PagedFeed.Listener {
+        final List<String> log = new ArrayList<>();
+
+        String last() {
+            return log.get(log.size() - 1);
+        }
+
+        @Override
+        public void onFirstPage(@NonNull List<PhotoItem> items) { log.add("first:" + ids(items)); }
+
+        @Override
+        public void onAppend(@NonNull List<PhotoItem> items) { log.add("append:" + ids(items)); }
+
+        @Override
+        public void onEmpty() { log.add("empty"); }
+
+        @Override
+        public void onError(Throwable e) { log.add("error"); }
+
+        @Override
+        public void onSettled() { log.add("settled"); }
+
+        @Override
+        public void onWaiting(boolean waiting) { log.add("waiting:" + waiting); }
+
+        @Override
+        public void onPageError(int page, Throwable e) { log.add("pageError:" + page); }
+
+        private static String ids(List<PhotoItem> items) {
+            StringBuilder sb = new StringBuilder();
+            for (PhotoItem p : items) {
+                if (sb.length() > 0) sb.append(',');
+                sb.append(p.id);
+            }
+            return sb.toString();
+        }
+    }
+}